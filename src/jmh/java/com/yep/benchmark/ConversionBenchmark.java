@@ -0,0 +1,133 @@
+package com.yep.benchmark;
+
+import com.yep.config.audit.AuditEventConverter;
+import com.yep.domain.Authority;
+import com.yep.domain.PersistentAuditEvent;
+import com.yep.domain.User;
+import com.yep.security.AuthoritiesConstants;
+import com.yep.service.dto.UserDTO;
+import com.yep.service.mapper.UserMapper;
+import com.yep.web.rest.util.PaginationUtil;
+
+import org.openjdk.jmh.annotations.*;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.http.HttpHeaders;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversions done on every response of the audit and user endpoints: audit events to their actuator form, users to
+ * and from their DTO, and the Link headers of the paginated lists.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ConversionBenchmark {
+
+    private static final int PAGE_SIZE = 20;
+
+    private final AuditEventConverter auditEventConverter = new AuditEventConverter();
+
+    private final UserMapper userMapper = new UserMapper();
+
+    private User user;
+
+    private UserDTO userDTO;
+
+    private PageImpl<Object> page;
+
+    private SliceImpl<Object> slice;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        user = new User();
+        user.setId(1L);
+        user.setLogin("user");
+        user.setFirstName("First");
+        user.setLastName("Last");
+        user.setEmail("user@localhost");
+        user.setActivated(true);
+        user.setLangKey("en");
+        Set<Authority> authorities = new HashSet<>();
+        for (String name : new String[]{AuthoritiesConstants.USER, AuthoritiesConstants.ADMIN}) {
+            Authority authority = new Authority();
+            authority.setName(name);
+            authorities.add(authority);
+        }
+        user.setAuthorities(authorities);
+        userDTO = new UserDTO(user);
+
+        List<Object> content = Collections.nCopies(PAGE_SIZE, new Object());
+        page = new PageImpl<>(content, new PageRequest(5, PAGE_SIZE), 100000);
+        slice = new SliceImpl<>(content, new PageRequest(5, PAGE_SIZE), true);
+    }
+
+    @Benchmark
+    public List<AuditEvent> convertAuditEvents(AuditEventPage auditEventPage) {
+        return auditEventConverter.convertToAuditEvent(auditEventPage.events);
+    }
+
+    @Benchmark
+    public UserDTO userToUserDTO() {
+        return userMapper.userToUserDTO(user);
+    }
+
+    @Benchmark
+    public User userDTOToUser() {
+        return userMapper.userDTOToUser(userDTO);
+    }
+
+    @Benchmark
+    public HttpHeaders paginationHeaders() {
+        return PaginationUtil.generatePaginationHttpHeaders(page, "/api/users");
+    }
+
+    @Benchmark
+    public HttpHeaders sliceHeaders() {
+        return PaginationUtil.generateSliceHttpHeaders(slice, "/api/users?count=false");
+    }
+
+    /**
+     * The audit events of a page, as read from the database: their data has not been decoded yet, so they are read
+     * again before each invocation. Converting a whole page keeps the invocations long enough for that not to skew
+     * them.
+     */
+    @State(Scope.Thread)
+    public static class AuditEventPage {
+
+        private List<PersistentAuditEvent> events;
+
+        @Setup(Level.Invocation)
+        public void read() {
+            events = new ArrayList<>(PAGE_SIZE);
+            for (int i = 0; i < PAGE_SIZE; i++) {
+                PersistentAuditEvent event = new PersistentAuditEvent();
+                event.setPrincipal("user-" + i);
+                event.setAuditEventType("AUTHENTICATION_SUCCESS");
+                event.setAuditEventDate(Instant.now());
+                Map<String, String> data = new HashMap<>();
+                data.put("remoteAddress", "127.0.0.1");
+                data.put("sessionId", "session-" + i);
+                event.setData(data);
+                // Only the encoded column is loaded with the entity
+                ReflectionTestUtils.setField(event, "data", null);
+                events.add(event);
+            }
+        }
+    }
+}
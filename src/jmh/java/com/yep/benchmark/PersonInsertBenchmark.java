@@ -0,0 +1,104 @@
+package com.yep.benchmark;
+
+import com.yep.domain.Person;
+
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+
+import javax.persistence.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Insert throughput of people on an embedded H2, with the ids generated by IDENTITY or by the pooled-lo sequence
+ * of {@link Person}.
+ * <p>
+ * Both run with a JDBC batch size of 50, but Hibernate has to send IDENTITY inserts one by one to read the
+ * generated key back, while sequence ids are allocated up front and the inserts are batched.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class PersonInsertBenchmark {
+
+    private static final int ROWS_PER_TRANSACTION = 1000;
+
+    @Param({"IDENTITY", "SEQUENCE"})
+    public String generation;
+
+    private StandardServiceRegistry registry;
+
+    private SessionFactory sessionFactory;
+
+    private long counter;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.URL, "jdbc:h2:mem:insert-" + generation + ";DB_CLOSE_DELAY=-1")
+            .applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false")
+            .applySetting(AvailableSettings.STATEMENT_BATCH_SIZE, "50")
+            .applySetting(AvailableSettings.ORDER_INSERTS, "true")
+            .build();
+        Class<?> entity = "IDENTITY".equals(generation) ? IdentityPerson.class : Person.class;
+        sessionFactory = new MetadataSources(registry).addAnnotatedClass(entity).buildMetadata().buildSessionFactory();
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(ROWS_PER_TRANSACTION)
+    public void insert() {
+        try (Session session = sessionFactory.openSession()) {
+            session.beginTransaction();
+            for (int i = 0; i < ROWS_PER_TRANSACTION; i++) {
+                long n = counter++;
+                if ("IDENTITY".equals(generation)) {
+                    session.persist(new IdentityPerson("N" + n, "Person " + n));
+                } else {
+                    session.persist(new Person().nationalId("N" + n).fullName("Person " + n));
+                }
+            }
+            session.getTransaction().commit();
+        }
+    }
+
+    /**
+     * The person mapping as it was before the pooled-lo sequence.
+     */
+    @Entity
+    @Table(name = "identity_person")
+    public static class IdentityPerson {
+
+        @Id
+        @GeneratedValue(strategy = GenerationType.IDENTITY)
+        private Long id;
+
+        @Column(name = "national_id")
+        private String nationalId;
+
+        @Column(name = "full_name")
+        private String fullName;
+
+        public IdentityPerson() {
+        }
+
+        IdentityPerson(String nationalId, String fullName) {
+            this.nationalId = nationalId;
+            this.fullName = fullName;
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.yep.benchmark;
+
+import com.codahale.metrics.MetricRegistry;
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.Person;
+import com.yep.repository.PersonRepository;
+import com.yep.repository.PersonRepositoryImpl;
+import com.yep.service.PersonQueryService;
+import com.yep.service.dto.PersonCriteria;
+import com.yep.service.dto.PersonCursor;
+import com.yep.service.dto.PersonDTO;
+
+import io.github.jhipster.service.filter.StringFilter;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.repository.support.JpaRepositoryFactory;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.sql.Statement;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries of the people on an embedded H2 holding 10k, 1M or 10M rows, through the Spring Data repository and the
+ * {@link PersonQueryService}, outside of any Spring context.
+ * <p>
+ * The deep pages are in the middle of the table: the offset page reads and counts every row before it, while the
+ * keyset page starts right after the cursor. The 10M rows need a few GB of heap, hence the -Xmx of the fork.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = "-Xmx6g")
+public class PersonRepositoryBenchmark {
+
+    private static final int ROWS_PER_INSERT = 1000000;
+
+    private static final int PAGE_SIZE = 20;
+
+    @Param({"10000", "1000000", "10000000"})
+    public int rows;
+
+    private StandardServiceRegistry registry;
+
+    private SessionFactory sessionFactory;
+
+    private Session session;
+
+    private PersonRepository personRepository;
+
+    private PersonQueryService personQueryService;
+
+    private PersonCriteria keywordCriteria;
+
+    private PageRequest offsetPage;
+
+    private PersonCursor keysetCursor;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.URL, "jdbc:h2:mem:people-" + rows + ";DB_CLOSE_DELAY=-1")
+            .applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false")
+            .build();
+        sessionFactory = new MetadataSources(registry).addAnnotatedClass(Person.class).buildMetadata().buildSessionFactory();
+        session = sessionFactory.openSession();
+        for (int first = 1; first <= rows; first += ROWS_PER_INSERT) {
+            String insert = "INSERT INTO person (id, national_id, full_name) " +
+                "SELECT X, 'N' || X, 'Person ' || X FROM SYSTEM_RANGE(" + first + ", " +
+                Math.min(first + ROWS_PER_INSERT - 1, rows) + ")";
+            session.beginTransaction();
+            session.doWork(connection -> {
+                try (Statement statement = connection.createStatement()) {
+                    statement.execute(insert);
+                }
+            });
+            session.getTransaction().commit();
+        }
+
+        PersonRepositoryImpl personRepositoryImpl = new PersonRepositoryImpl();
+        ReflectionTestUtils.setField(personRepositoryImpl, "entityManager", session);
+        personRepository = new JpaRepositoryFactory(session).getRepository(PersonRepository.class, personRepositoryImpl);
+        personQueryService = new PersonQueryService(personRepository, null, null, new ApplicationProperties(),
+            new MetricRegistry());
+
+        keywordCriteria = new PersonCriteria();
+        StringFilter contains = new StringFilter();
+        contains.setContains(Integer.toString(rows / 2));
+        keywordCriteria.setNationalId(contains);
+        keywordCriteria.setFullName(contains);
+        offsetPage = new PageRequest(rows / PAGE_SIZE / 2, PAGE_SIZE, Sort.Direction.ASC, "id");
+        keysetCursor = PersonCursor.first(new Sort(Sort.Direction.ASC, "id"))
+            .after(new PersonDTO((long) rows / 2, null, null));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.close();
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    @Benchmark
+    public Person findOne() {
+        Person person = personRepository.findOne(ThreadLocalRandom.current().nextLong(1, rows + 1));
+        session.clear();
+        return person;
+    }
+
+    @Benchmark
+    public Page<PersonDTO> findByKeyword() {
+        return personQueryService.findByOrCriteria(keywordCriteria, new PageRequest(0, PAGE_SIZE));
+    }
+
+    @Benchmark
+    public Page<PersonDTO> findOffsetPage() {
+        return personQueryService.findByOrCriteria(new PersonCriteria(), offsetPage);
+    }
+
+    @Benchmark
+    public Slice<PersonDTO> findKeysetPage() {
+        return personQueryService.findByCursor(null, keysetCursor, PAGE_SIZE);
+    }
+}
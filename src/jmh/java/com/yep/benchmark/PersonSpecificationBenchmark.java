@@ -0,0 +1,123 @@
+package com.yep.benchmark;
+
+import com.codahale.metrics.MetricRegistry;
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.Person;
+import com.yep.repository.PersonRepository;
+import com.yep.service.PersonQueryService;
+import com.yep.service.dto.PersonCriteria;
+import com.yep.service.dto.PersonDTO;
+
+import io.github.jhipster.service.filter.LongFilter;
+import io.github.jhipster.service.filter.StringFilter;
+import org.hibernate.Session;
+import org.hibernate.SessionFactory;
+import org.hibernate.boot.MetadataSources;
+import org.hibernate.boot.registry.StandardServiceRegistry;
+import org.hibernate.boot.registry.StandardServiceRegistryBuilder;
+import org.hibernate.cfg.AvailableSettings;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.jpa.domain.Specification;
+
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.lang.reflect.Proxy;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Conversion of a {@link PersonCriteria} to the Specifications of the {@link PersonQueryService}, and of those to
+ * a criteria query, without running it.
+ * <p>
+ * The repository is replaced by a stub which only builds the criteria query of the specification it gets.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonSpecificationBenchmark {
+
+    private StandardServiceRegistry registry;
+
+    private SessionFactory sessionFactory;
+
+    private Session session;
+
+    private PersonQueryService personQueryService;
+
+    private PersonCriteria criteria;
+
+    private final PageRequest pageRequest = new PageRequest(0, 20);
+
+    // Keeps the last criteria query, so that building it cannot be optimized away
+    private CriteriaQuery<Person> lastQuery;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        registry = new StandardServiceRegistryBuilder()
+            .applySetting(AvailableSettings.URL, "jdbc:h2:mem:specification;DB_CLOSE_DELAY=-1")
+            .applySetting(AvailableSettings.DIALECT, "org.hibernate.dialect.H2Dialect")
+            .applySetting(AvailableSettings.HBM2DDL_AUTO, "create-drop")
+            .applySetting(AvailableSettings.USE_SECOND_LEVEL_CACHE, "false")
+            .build();
+        sessionFactory = new MetadataSources(registry).addAnnotatedClass(Person.class).buildMetadata().buildSessionFactory();
+        session = sessionFactory.openSession();
+        PersonRepository personRepository = (PersonRepository) Proxy.newProxyInstance(
+            PersonRepository.class.getClassLoader(), new Class<?>[]{PersonRepository.class},
+            (proxy, method, args) -> {
+                @SuppressWarnings("unchecked")
+                Specification<Person> specification = (Specification<Person>) args[0];
+                toCriteriaQuery(specification);
+                return "findPage".equals(method.getName()) ? new PageImpl<>(Collections.emptyList()) : Collections.emptyList();
+            });
+        personQueryService = new PersonQueryService(personRepository, null, null, new ApplicationProperties(),
+            new MetricRegistry());
+
+        criteria = new PersonCriteria();
+        LongFilter id = new LongFilter();
+        id.setGreaterThan(1000L);
+        criteria.setId(id);
+        StringFilter nationalId = new StringFilter();
+        nationalId.setContains("N12");
+        criteria.setNationalId(nationalId);
+        StringFilter fullName = new StringFilter();
+        fullName.setContains("Person 12");
+        criteria.setFullName(fullName);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        session.close();
+        sessionFactory.close();
+        StandardServiceRegistryBuilder.destroy(registry);
+    }
+
+    private void toCriteriaQuery(Specification<Person> specification) {
+        CriteriaBuilder cb = session.getCriteriaBuilder();
+        CriteriaQuery<Person> query = cb.createQuery(Person.class);
+        Root<Person> root = query.from(Person.class);
+        Predicate predicate = specification.toPredicate(root, query, cb);
+        if (predicate != null) {
+            query.where(predicate);
+        }
+        lastQuery = query;
+    }
+
+    @Benchmark
+    public List<Person> andSpecification() {
+        return personQueryService.findByCriteria(criteria);
+    }
+
+    @Benchmark
+    public Page<PersonDTO> orSpecification() {
+        return personQueryService.findByOrCriteria(criteria, pageRequest);
+    }
+}
@@ -0,0 +1,69 @@
+package com.yep.benchmark;
+
+import com.yep.config.ApplicationProperties;
+import com.yep.security.AuthoritiesConstants;
+import com.yep.security.jwt.TokenProvider;
+import com.yep.security.jwt.TokenRevocationList;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.openjdk.jmh.annotations.*;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+import org.springframework.security.core.authority.SimpleGrantedAuthority;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Creation and verification of the JWT, as done by the UserJWTController and by the JWTFilter on every request.
+ * <p>
+ * With a verified-token-cache-size of 0, every verification parses the token and checks its HMAC-SHA512 signature.
+ * Either way, the verification checks that the token has not been revoked.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TokenProviderBenchmark {
+
+    @Param({"0", "4096"})
+    public int verifiedTokenCacheSize;
+
+    private TokenProvider tokenProvider;
+
+    private Authentication authentication;
+
+    private String token;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        JHipsterProperties jHipsterProperties = new JHipsterProperties();
+        jHipsterProperties.getSecurity().getAuthentication().getJwt().setSecret("benchmark-secret-key");
+        ApplicationProperties applicationProperties = new ApplicationProperties();
+        applicationProperties.getJwt().setVerifiedTokenCacheSize(verifiedTokenCacheSize);
+        // Nothing is revoked, so the revocation list never reads its repository
+        tokenProvider = new TokenProvider(jHipsterProperties, applicationProperties,
+            new TokenRevocationList(null, applicationProperties));
+        tokenProvider.init();
+        authentication = new UsernamePasswordAuthenticationToken("user", "user", Arrays.asList(
+            new SimpleGrantedAuthority(AuthoritiesConstants.USER), new SimpleGrantedAuthority(AuthoritiesConstants.ADMIN)));
+        token = tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public String createToken() {
+        return tokenProvider.createToken(authentication, false);
+    }
+
+    @Benchmark
+    public boolean validateToken() {
+        return tokenProvider.validateToken(token);
+    }
+
+    @Benchmark
+    public Authentication getVerifiedAuthentication() {
+        return tokenProvider.getVerifiedAuthentication(token);
+    }
+}
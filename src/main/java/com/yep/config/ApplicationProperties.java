@@ -2,6 +2,11 @@ package com.yep.config;
 
 import org.springframework.boot.context.properties.ConfigurationProperties;
 
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Properties specific to Something.
  * <p>
@@ -11,4 +16,596 @@ import org.springframework.boot.context.properties.ConfigurationProperties;
 @ConfigurationProperties(prefix = "application", ignoreUnknownFields = false)
 public class ApplicationProperties {
 
+    private final PersonSearch personSearch = new PersonSearch();
+
+    private final PersonExport personExport = new PersonExport();
+
+    private final PersonImport personImport = new PersonImport();
+
+    private final PersonQueries personQueries = new PersonQueries();
+
+    private final PasswordHashing passwordHashing = new PasswordHashing();
+
+    private final AuditEvents auditEvents = new AuditEvents();
+
+    private final Cache cache = new Cache();
+
+    private final DatasourceRouting datasourceRouting = new DatasourceRouting();
+
+    private final Jwt jwt = new Jwt();
+
+    public PersonSearch getPersonSearch() {
+        return personSearch;
+    }
+
+    public PersonExport getPersonExport() {
+        return personExport;
+    }
+
+    public PersonImport getPersonImport() {
+        return personImport;
+    }
+
+    public PersonQueries getPersonQueries() {
+        return personQueries;
+    }
+
+    public PasswordHashing getPasswordHashing() {
+        return passwordHashing;
+    }
+
+    public AuditEvents getAuditEvents() {
+        return auditEvents;
+    }
+
+    public Cache getCache() {
+        return cache;
+    }
+
+    public DatasourceRouting getDatasourceRouting() {
+        return datasourceRouting;
+    }
+
+    public Jwt getJwt() {
+        return jwt;
+    }
+
+    public static class PersonSearch {
+
+        private boolean indexEnabled = true;
+
+        private int indexBatchSize = 1000;
+
+        private long suggestDeadlineMillis = 15;
+
+        private int suggestMaxResults = 50;
+
+        public boolean isIndexEnabled() {
+            return indexEnabled;
+        }
+
+        public void setIndexEnabled(boolean indexEnabled) {
+            this.indexEnabled = indexEnabled;
+        }
+
+        public int getIndexBatchSize() {
+            return indexBatchSize;
+        }
+
+        public void setIndexBatchSize(int indexBatchSize) {
+            this.indexBatchSize = indexBatchSize;
+        }
+
+        public long getSuggestDeadlineMillis() {
+            return suggestDeadlineMillis;
+        }
+
+        public void setSuggestDeadlineMillis(long suggestDeadlineMillis) {
+            this.suggestDeadlineMillis = suggestDeadlineMillis;
+        }
+
+        public int getSuggestMaxResults() {
+            return suggestMaxResults;
+        }
+
+        public void setSuggestMaxResults(int suggestMaxResults) {
+            this.suggestMaxResults = suggestMaxResults;
+        }
+    }
+
+    public static class PersonExport {
+
+        private int fetchSize = 500;
+
+        public int getFetchSize() {
+            return fetchSize;
+        }
+
+        public void setFetchSize(int fetchSize) {
+            this.fetchSize = fetchSize;
+        }
+    }
+
+    public static class PersonImport {
+
+        private int chunkSize = 1000;
+
+        private int maxJobs = 100;
+
+        public int getChunkSize() {
+            return chunkSize;
+        }
+
+        public void setChunkSize(int chunkSize) {
+            this.chunkSize = chunkSize;
+        }
+
+        public int getMaxJobs() {
+            return maxJobs;
+        }
+
+        public void setMaxJobs(int maxJobs) {
+            this.maxJobs = maxJobs;
+        }
+    }
+
+    public static class PersonQueries {
+
+        private int poolSize = 10;
+
+        private int queueCapacity = 100;
+
+        private long timeoutMillis = 10000;
+
+        private long retryAfterSeconds = 1;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(long retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    public static class PasswordHashing {
+
+        private int poolSize = 0;
+
+        private int queueCapacity = 50;
+
+        private long timeoutMillis = 5000;
+
+        private long retryAfterSeconds = 1;
+
+        public int getPoolSize() {
+            return poolSize;
+        }
+
+        public void setPoolSize(int poolSize) {
+            this.poolSize = poolSize;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public long getTimeoutMillis() {
+            return timeoutMillis;
+        }
+
+        public void setTimeoutMillis(long timeoutMillis) {
+            this.timeoutMillis = timeoutMillis;
+        }
+
+        public long getRetryAfterSeconds() {
+            return retryAfterSeconds;
+        }
+
+        public void setRetryAfterSeconds(long retryAfterSeconds) {
+            this.retryAfterSeconds = retryAfterSeconds;
+        }
+    }
+
+    public static class AuditEvents {
+
+        private boolean asyncWrites = true;
+
+        private int queueCapacity = 10000;
+
+        private int batchSize = 100;
+
+        private long flushIntervalMillis = 500;
+
+        private OverflowPolicy overflowPolicy = OverflowPolicy.WRITE_SYNCHRONOUSLY;
+
+        private int retentionMonths = 12;
+
+        private int streamHistorySize = 1000;
+
+        private int streamBufferSize = 256;
+
+        private long streamTimeoutMillis = 1800000;
+
+        private int rollupRingMinutes = 60;
+
+        private long rollupCompactionIntervalMillis = 60000;
+
+        private int rollupMaxPendingMinutes = 1440;
+
+        public boolean isAsyncWrites() {
+            return asyncWrites;
+        }
+
+        public void setAsyncWrites(boolean asyncWrites) {
+            this.asyncWrites = asyncWrites;
+        }
+
+        public int getQueueCapacity() {
+            return queueCapacity;
+        }
+
+        public void setQueueCapacity(int queueCapacity) {
+            this.queueCapacity = queueCapacity;
+        }
+
+        public int getBatchSize() {
+            return batchSize;
+        }
+
+        public void setBatchSize(int batchSize) {
+            this.batchSize = batchSize;
+        }
+
+        public long getFlushIntervalMillis() {
+            return flushIntervalMillis;
+        }
+
+        public void setFlushIntervalMillis(long flushIntervalMillis) {
+            this.flushIntervalMillis = flushIntervalMillis;
+        }
+
+        public OverflowPolicy getOverflowPolicy() {
+            return overflowPolicy;
+        }
+
+        public void setOverflowPolicy(OverflowPolicy overflowPolicy) {
+            this.overflowPolicy = overflowPolicy;
+        }
+
+        public int getRetentionMonths() {
+            return retentionMonths;
+        }
+
+        public void setRetentionMonths(int retentionMonths) {
+            this.retentionMonths = retentionMonths;
+        }
+
+        public int getStreamHistorySize() {
+            return streamHistorySize;
+        }
+
+        public void setStreamHistorySize(int streamHistorySize) {
+            this.streamHistorySize = streamHistorySize;
+        }
+
+        public int getStreamBufferSize() {
+            return streamBufferSize;
+        }
+
+        public void setStreamBufferSize(int streamBufferSize) {
+            this.streamBufferSize = streamBufferSize;
+        }
+
+        public long getStreamTimeoutMillis() {
+            return streamTimeoutMillis;
+        }
+
+        public void setStreamTimeoutMillis(long streamTimeoutMillis) {
+            this.streamTimeoutMillis = streamTimeoutMillis;
+        }
+
+        public int getRollupRingMinutes() {
+            return rollupRingMinutes;
+        }
+
+        public void setRollupRingMinutes(int rollupRingMinutes) {
+            this.rollupRingMinutes = rollupRingMinutes;
+        }
+
+        public long getRollupCompactionIntervalMillis() {
+            return rollupCompactionIntervalMillis;
+        }
+
+        public void setRollupCompactionIntervalMillis(long rollupCompactionIntervalMillis) {
+            this.rollupCompactionIntervalMillis = rollupCompactionIntervalMillis;
+        }
+
+        public int getRollupMaxPendingMinutes() {
+            return rollupMaxPendingMinutes;
+        }
+
+        public void setRollupMaxPendingMinutes(int rollupMaxPendingMinutes) {
+            this.rollupMaxPendingMinutes = rollupMaxPendingMinutes;
+        }
+
+        /**
+         * What to do with an audit event when the queue of the writer is full.
+         */
+        public enum OverflowPolicy {
+            /** Wait for the writer to make room, holding the request thread */
+            BLOCK,
+            /** Drop the oldest queued event to make room */
+            DROP_OLDEST,
+            /** Write the event on the request thread, in its own transaction */
+            WRITE_SYNCHRONOUSLY
+        }
+    }
+
+    public static class DatasourceRouting {
+
+        private boolean enabled = false;
+
+        private long readYourWritesMillis = 5000;
+
+        /**
+         * The replicas share the spring.datasource.hikari settings of the primary, with their own url and credentials.
+         */
+        private final List<Replica> replicas = new ArrayList<>();
+
+        public boolean isEnabled() {
+            return enabled;
+        }
+
+        public void setEnabled(boolean enabled) {
+            this.enabled = enabled;
+        }
+
+        public long getReadYourWritesMillis() {
+            return readYourWritesMillis;
+        }
+
+        public void setReadYourWritesMillis(long readYourWritesMillis) {
+            this.readYourWritesMillis = readYourWritesMillis;
+        }
+
+        public List<Replica> getReplicas() {
+            return replicas;
+        }
+
+        public static class Replica {
+
+            private String url;
+
+            private String username;
+
+            private String password;
+
+            public String getUrl() {
+                return url;
+            }
+
+            public void setUrl(String url) {
+                this.url = url;
+            }
+
+            public String getUsername() {
+                return username;
+            }
+
+            public void setUsername(String username) {
+                this.username = username;
+            }
+
+            public String getPassword() {
+                return password;
+            }
+
+            public void setPassword(String password) {
+                this.password = password;
+            }
+        }
+    }
+
+    public static class Cache {
+
+        /**
+         * Size and time to live of the caches, by region name. The caches which are not listed, or the settings
+         * which are not set, use the jhipster.cache.ehcache defaults.
+         */
+        private final Map<String, Region> regions = new HashMap<>();
+
+        /**
+         * Directory of the disk tiers. Each instance needs its own, as it is locked while the instance runs.
+         */
+        private String storagePath;
+
+        private final Cluster cluster = new Cluster();
+
+        public Map<String, Region> getRegions() {
+            return regions;
+        }
+
+        public String getStoragePath() {
+            return storagePath;
+        }
+
+        public void setStoragePath(String storagePath) {
+            this.storagePath = storagePath;
+        }
+
+        public Cluster getCluster() {
+            return cluster;
+        }
+
+        public static class Region {
+
+            private Long maxEntries;
+
+            private Integer timeToLiveSeconds;
+
+            /**
+             * Size of the off-heap tier, below the heap, none when not set. Its entries are serialized.
+             */
+            private Long offHeapMegabytes;
+
+            /**
+             * Size of the disk tier, below the off-heap, none when not set. Its entries are serialized.
+             */
+            private Long diskMegabytes;
+
+            /**
+             * Keep the disk tier when the application stops, so that the cache is warm when it starts again. Only
+             * the user caches accept it, when they are not clustered.
+             */
+            private boolean persistent = false;
+
+            public Long getMaxEntries() {
+                return maxEntries;
+            }
+
+            public void setMaxEntries(Long maxEntries) {
+                this.maxEntries = maxEntries;
+            }
+
+            public Integer getTimeToLiveSeconds() {
+                return timeToLiveSeconds;
+            }
+
+            public void setTimeToLiveSeconds(Integer timeToLiveSeconds) {
+                this.timeToLiveSeconds = timeToLiveSeconds;
+            }
+
+            public Long getOffHeapMegabytes() {
+                return offHeapMegabytes;
+            }
+
+            public void setOffHeapMegabytes(Long offHeapMegabytes) {
+                this.offHeapMegabytes = offHeapMegabytes;
+            }
+
+            public Long getDiskMegabytes() {
+                return diskMegabytes;
+            }
+
+            public void setDiskMegabytes(Long diskMegabytes) {
+                this.diskMegabytes = diskMegabytes;
+            }
+
+            public boolean isPersistent() {
+                return persistent;
+            }
+
+            public void setPersistent(boolean persistent) {
+                this.persistent = persistent;
+            }
+        }
+
+        public static class Cluster {
+
+            private boolean enabled = false;
+
+            private String name = "something";
+
+            private int port = 5701;
+
+            /**
+             * Hosts of the other members, as host or host:port. The members are found by multicast when empty.
+             */
+            private List<String> members = new ArrayList<>();
+
+            public boolean isEnabled() {
+                return enabled;
+            }
+
+            public void setEnabled(boolean enabled) {
+                this.enabled = enabled;
+            }
+
+            public String getName() {
+                return name;
+            }
+
+            public void setName(String name) {
+                this.name = name;
+            }
+
+            public int getPort() {
+                return port;
+            }
+
+            public void setPort(int port) {
+                this.port = port;
+            }
+
+            public List<String> getMembers() {
+                return members;
+            }
+
+            public void setMembers(List<String> members) {
+                this.members = members;
+            }
+        }
+    }
+
+    public static class Jwt {
+
+        private int verifiedTokenCacheSize = 4096;
+
+        public int getVerifiedTokenCacheSize() {
+            return verifiedTokenCacheSize;
+        }
+
+        public void setVerifiedTokenCacheSize(int verifiedTokenCacheSize) {
+            this.verifiedTokenCacheSize = verifiedTokenCacheSize;
+        }
+
+        private int revokedTokensExpected = 10000;
+
+        private long revocationRefreshMillis = 60000;
+
+        public int getRevokedTokensExpected() {
+            return revokedTokensExpected;
+        }
+
+        public void setRevokedTokensExpected(int revokedTokensExpected) {
+            this.revokedTokensExpected = revokedTokensExpected;
+        }
+
+        public long getRevocationRefreshMillis() {
+            return revocationRefreshMillis;
+        }
+
+        public void setRevocationRefreshMillis(long revocationRefreshMillis) {
+            this.revocationRefreshMillis = revocationRefreshMillis;
+        }
+    }
 }
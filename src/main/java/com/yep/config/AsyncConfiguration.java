@@ -1,5 +1,9 @@
 package com.yep.config;
 
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
 import io.github.jhipster.async.ExceptionHandlingAsyncTaskExecutor;
 import io.github.jhipster.config.JHipsterProperties;
 
@@ -11,14 +15,20 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.scheduling.annotation.*;
 import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.concurrent.DelegatingSecurityContextRunnable;
 
 import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 
 @Configuration
 @EnableAsync
 @EnableScheduling
 public class AsyncConfiguration implements AsyncConfigurer {
 
+    public static final String PERSON_QUERY_EXECUTOR = "personQueryExecutor";
+
+    public static final String PASSWORD_HASHING_EXECUTOR = "passwordHashingExecutor";
+
     private final Logger log = LoggerFactory.getLogger(AsyncConfiguration.class);
 
     private final JHipsterProperties jHipsterProperties;
@@ -39,6 +49,84 @@ public class AsyncConfiguration implements AsyncConfigurer {
         return new ExceptionHandlingAsyncTaskExecutor(executor);
     }
 
+    /**
+     * Executor running the person queries off the web server threads.
+     * <p>
+     * Its queue is bounded and a full queue rejects the query right away, so that an overloaded database sheds load
+     * instead of piling up requests. The "queue-depth" and "active" gauges and the "wait-time" timer, from submission to
+     * start, tell how close it is to that point, and the "rejected" meter counts the queries shed.
+     */
+    @Bean(name = PERSON_QUERY_EXECUTOR)
+    public ThreadPoolTaskExecutor personQueryExecutor(ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
+        log.debug("Creating Person Query Executor");
+        ApplicationProperties.PersonQueries personQueries = applicationProperties.getPersonQueries();
+        Timer waitTime = metricRegistry.timer(MetricRegistry.name(PERSON_QUERY_EXECUTOR, "wait-time"));
+        Meter rejected = metricRegistry.meter(MetricRegistry.name(PERSON_QUERY_EXECUTOR, "rejected"));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(personQueries.getPoolSize());
+        executor.setMaxPoolSize(personQueries.getPoolSize());
+        executor.setQueueCapacity(personQueries.getQueueCapacity());
+        executor.setThreadNamePrefix("person-query-");
+        executor.setTaskDecorator(task -> {
+            // Decorated on the submitting thread, so its security context is the one of the request
+            Timer.Context queued = waitTime.time();
+            Runnable withSecurityContext = new DelegatingSecurityContextRunnable(task);
+            return () -> {
+                queued.stop();
+                withSecurityContext.run();
+            };
+        });
+        executor.setRejectedExecutionHandler((task, threadPoolExecutor) -> {
+            rejected.mark();
+            throw new RejectedExecutionException("The person query queue is full");
+        });
+        metricRegistry.register(MetricRegistry.name(PERSON_QUERY_EXECUTOR, "queue-depth"),
+            (Gauge<Integer>) () -> executor.getThreadPoolExecutor().getQueue().size());
+        metricRegistry.register(MetricRegistry.name(PERSON_QUERY_EXECUTOR, "active"),
+            (Gauge<Integer>) executor::getActiveCount);
+        return executor;
+    }
+
+    /**
+     * Executor running the BCrypt hashing and verification of the passwords, see BoundedPasswordEncoder.
+     * <p>
+     * It has one thread per processor by default, as BCrypt does nothing but compute, and a bounded queue which rejects
+     * the hashings right away once full, so that a storm of logins cannot take all the CPU from the rest of the API.
+     * It has the same metrics as the person query executor.
+     */
+    @Bean(name = PASSWORD_HASHING_EXECUTOR)
+    public ThreadPoolTaskExecutor passwordHashingExecutor(ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
+        log.debug("Creating Password Hashing Executor");
+        ApplicationProperties.PasswordHashing passwordHashing = applicationProperties.getPasswordHashing();
+        int poolSize = passwordHashing.getPoolSize() > 0 ? passwordHashing.getPoolSize() :
+            Runtime.getRuntime().availableProcessors();
+        Timer waitTime = metricRegistry.timer(MetricRegistry.name(PASSWORD_HASHING_EXECUTOR, "wait-time"));
+        Meter rejected = metricRegistry.meter(MetricRegistry.name(PASSWORD_HASHING_EXECUTOR, "rejected"));
+        ThreadPoolTaskExecutor executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(poolSize);
+        executor.setMaxPoolSize(poolSize);
+        executor.setQueueCapacity(passwordHashing.getQueueCapacity());
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.setTaskDecorator(task -> {
+            Timer.Context queued = waitTime.time();
+            return () -> {
+                queued.stop();
+                task.run();
+            };
+        });
+        executor.setRejectedExecutionHandler((task, threadPoolExecutor) -> {
+            rejected.mark();
+            throw new RejectedExecutionException("The password hashing queue is full");
+        });
+        metricRegistry.register(MetricRegistry.name(PASSWORD_HASHING_EXECUTOR, "queue-depth"),
+            (Gauge<Integer>) () -> executor.getThreadPoolExecutor().getQueue().size());
+        metricRegistry.register(MetricRegistry.name(PASSWORD_HASHING_EXECUTOR, "active"),
+            (Gauge<Integer>) executor::getActiveCount);
+        return executor;
+    }
+
     @Override
     public AsyncUncaughtExceptionHandler getAsyncUncaughtExceptionHandler() {
         return new SimpleAsyncUncaughtExceptionHandler();
@@ -1,17 +1,43 @@
 package com.yep.config;
 
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import com.yep.config.cache.ClusterCacheInvalidator;
+import com.yep.config.cache.ClusteredCacheManagerPostProcessor;
+import com.yep.config.cache.HibernateCacheInvalidationListener;
+import com.yep.config.cache.TierStatisticsGaugeSet;
 import io.github.jhipster.config.JHipsterProperties;
 import org.ehcache.config.builders.CacheConfigurationBuilder;
 import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
 import org.ehcache.expiry.Duration;
 import org.ehcache.expiry.Expirations;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
 import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
 
+import java.io.File;
+import java.util.List;
 import java.util.concurrent.TimeUnit;
 
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.persistence.EntityManagerFactory;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.boot.autoconfigure.AutoConfigureAfter;
 import org.springframework.boot.autoconfigure.AutoConfigureBefore;
 import org.springframework.boot.autoconfigure.cache.JCacheManagerCustomizer;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.data.jpa.EntityManagerFactoryDependsOnPostProcessor;
 import org.springframework.cache.annotation.EnableCaching;
 import org.springframework.context.annotation.*;
 
@@ -21,25 +47,185 @@ import org.springframework.context.annotation.*;
 @AutoConfigureBefore(value = { WebConfigurer.class, DatabaseConfiguration.class })
 public class CacheConfiguration {
 
-    private final javax.cache.configuration.Configuration<Object, Object> jcacheConfiguration;
+    private static final String PROP_METRIC_REG_JCACHE_TIERS = "jcache.tiers";
+
+    private final Logger log = LoggerFactory.getLogger(CacheConfiguration.class);
+
+    private final JHipsterProperties.Cache.Ehcache ehcache;
+
+    private final ApplicationProperties.Cache cache;
+
+    public CacheConfiguration(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties) {
+        this.ehcache = jHipsterProperties.getCache().getEhcache();
+        this.cache = applicationProperties.getCache();
+    }
 
-    public CacheConfiguration(JHipsterProperties jHipsterProperties) {
-        JHipsterProperties.Cache.Ehcache ehcache =
-            jHipsterProperties.getCache().getEhcache();
+    /**
+     * With application.cache.cluster.enabled, the evictions from the user caches and from the Hibernate regions are
+     * broadcast to the other instances.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.cache.cluster", name = "enabled")
+    public ClusterCacheInvalidator clusterCacheInvalidator(MetricRegistry metricRegistry) {
+        log.debug("Starting the cache invalidation cluster");
+        ApplicationProperties.Cache.Cluster cluster = cache.getCluster();
+        Config config = new Config();
+        config.setInstanceName(cluster.getName());
+        config.getGroupConfig().setName(cluster.getName());
+        config.setProperty("hazelcast.logging.type", "slf4j");
+        config.setProperty("hazelcast.phone.home.enabled", "false");
+        config.getNetworkConfig().setPort(cluster.getPort());
+        config.getNetworkConfig().setPortAutoIncrement(true);
+        JoinConfig join = config.getNetworkConfig().getJoin();
+        if (cluster.getMembers().isEmpty()) {
+            join.getMulticastConfig().setEnabled(true);
+            join.getTcpIpConfig().setEnabled(false);
+        } else {
+            join.getMulticastConfig().setEnabled(false);
+            join.getTcpIpConfig().setEnabled(true).setMembers(cluster.getMembers());
+        }
+        return new ClusterCacheInvalidator(Hazelcast.newHazelcastInstance(config), metricRegistry);
+    }
+
+    /**
+     * Wrap the Spring cache manager, so that the evictions from the clustered caches are published.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.cache.cluster", name = "enabled")
+    public static ClusteredCacheManagerPostProcessor clusteredCacheManagerPostProcessor(
+        ObjectProvider<ClusterCacheInvalidator> clusterCacheInvalidator) {
+        return new ClusteredCacheManagerPostProcessor(clusterCacheInvalidator);
+    }
 
-        jcacheConfiguration = Eh107Configuration.fromEhcacheCacheConfiguration(
-            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
-                ResourcePoolsBuilder.heap(ehcache.getMaxEntries()))
-                .withExpiry(Expirations.timeToLiveExpiration(Duration.of(ehcache.getTimeToLiveSeconds(), TimeUnit.SECONDS)))
-                .build());
+    /**
+     * The JCache CacheManager, created here rather than by Spring Boot so that it holds the persistence service of
+     * the disk tiers when application.cache.storage-path is set. The customizers are applied as Spring Boot does, and
+     * the statistics of the tiers of the caches are then registered.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "spring.cache", name = "type", havingValue = "jcache", matchIfMissing = true)
+    public CacheManager jCacheCacheManager(List<JCacheManagerCustomizer> customizers, MetricRegistry metricRegistry) {
+        EhcacheCachingProvider cachingProvider =
+            (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        DefaultConfiguration configuration;
+        if (cache.getStoragePath() != null) {
+            log.debug("Storing the disk tiers of the caches in {}", cache.getStoragePath());
+            configuration = new DefaultConfiguration(cachingProvider.getDefaultClassLoader(),
+                new DefaultPersistenceConfiguration(new File(cache.getStoragePath())));
+        } else {
+            configuration = new DefaultConfiguration(cachingProvider.getDefaultClassLoader());
+        }
+        // At the default URI, where Hibernate looks its regions up
+        CacheManager cm = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(), configuration);
+        customizers.forEach(customizer -> customizer.customize(cm));
+        metricRegistry.register(PROP_METRIC_REG_JCACHE_TIERS, new TierStatisticsGaugeSet(cm));
+        return cm;
     }
 
     @Bean
-    public JCacheManagerCustomizer cacheManagerCustomizer() {
+    public JCacheManagerCustomizer cacheManagerCustomizer(ObjectProvider<ClusterCacheInvalidator> clusterCacheInvalidator) {
+        ClusterCacheInvalidator invalidator = clusterCacheInvalidator.getIfAvailable();
         return cm -> {
-            cm.createCache(com.yep.repository.UserRepository.USERS_BY_LOGIN_CACHE, jcacheConfiguration);
-            cm.createCache(com.yep.repository.UserRepository.USERS_BY_EMAIL_CACHE, jcacheConfiguration);
+            // A clustered cache misses the evictions broadcast while its instance is stopped
+            boolean persistable = invalidator == null;
+            createCache(cm, com.yep.repository.UserRepository.USERS_BY_LOGIN_CACHE, "users-by-login", persistable);
+            createCache(cm, com.yep.repository.UserRepository.USERS_BY_EMAIL_CACHE, "users-by-email", persistable);
+            createCache(cm, com.yep.security.DomainUserDetailsService.UNKNOWN_PRINCIPALS_CACHE, "unknown-principals",
+                persistable);
+            if (invalidator != null) {
+                // Safe to keep for long when clustered, as the evictions reach every member
+                invalidator.register(cm.getCache(com.yep.repository.UserRepository.USERS_BY_LOGIN_CACHE));
+                invalidator.register(cm.getCache(com.yep.repository.UserRepository.USERS_BY_EMAIL_CACHE));
+                invalidator.register(cm.getCache(com.yep.security.DomainUserDetailsService.UNKNOWN_PRINCIPALS_CACHE));
+            }
+            // Invalidated by a generation counter, which starts again from 0
+            createCache(cm, com.yep.service.search.PersonSearchCache.PERSON_SEARCH_CACHE, "person-search", false);
+            // Hibernate only invalidates its regions in memory, and on the instance which made the change
+            createCache(cm, com.yep.domain.User.class.getName(), "user", false);
+            createCache(cm, com.yep.domain.Authority.class.getName(), "authority", false);
+            createCache(cm, com.yep.domain.User.class.getName() + ".authorities", "user-authorities", false);
+            createCache(cm, com.yep.domain.Person.class.getName(), "person", false);
+            if (invalidator != null) {
+                // The Hibernate regions, whose evictions are published by the HibernateCacheInvalidationListener
+                invalidator.register(cm.getCache(com.yep.domain.User.class.getName()));
+                invalidator.register(cm.getCache(com.yep.domain.Authority.class.getName()));
+                invalidator.register(cm.getCache(com.yep.domain.User.class.getName() + ".authorities"));
+                invalidator.register(cm.getCache(com.yep.domain.Person.class.getName()));
+            }
             // jhipster-needle-ehcache-add-entry
         };
     }
+
+    /**
+     * Publish the evictions from the Hibernate regions registered above, which Hibernate only applies locally.
+     */
+    @Bean
+    @ConditionalOnProperty(prefix = "application.cache.cluster", name = "enabled")
+    public HibernateCacheInvalidationListener hibernateCacheInvalidationListener(
+        EntityManagerFactory entityManagerFactory, ClusterCacheInvalidator clusterCacheInvalidator) {
+        HibernateCacheInvalidationListener listener = new HibernateCacheInvalidationListener(clusterCacheInvalidator);
+        EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+            .getServiceRegistry().getService(EventListenerRegistry.class);
+        registry.appendListeners(EventType.POST_UPDATE, listener);
+        registry.appendListeners(EventType.POST_DELETE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+        registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+        return listener;
+    }
+
+    /**
+     * Create a cache sized by its application.cache.regions entry, with its statistics enabled so that they are
+     * reported by the JCacheGaugeSet of {@link MetricsConfiguration}.
+     * <p>
+     * The heap tier holds maxEntries entries. The off-heap and disk tiers below it, when set, are sized in megabytes
+     * and hold the entries evicted from the tier above, serialized: a large cache then adds nothing to the heap the
+     * garbage collector goes through.
+     * <p>
+     * Only the persistable caches may keep their disk tier across restarts: the others would serve entries whose
+     * invalidation happened while the application was stopped, so their persistent setting is rejected.
+     */
+    private void createCache(CacheManager cm, String cacheName, String regionName, boolean persistable) {
+        ApplicationProperties.Cache.Region region = cache.getRegions().get(regionName);
+        if (region != null && region.isPersistent() && !persistable) {
+            throw new IllegalStateException("The " + regionName + " cache cannot be persistent, as it would miss " +
+                "the invalidations made while the application is stopped");
+        }
+        long maxEntries = ehcache.getMaxEntries();
+        long timeToLiveSeconds = ehcache.getTimeToLiveSeconds();
+        if (region != null && region.getMaxEntries() != null) {
+            maxEntries = region.getMaxEntries();
+        }
+        if (region != null && region.getTimeToLiveSeconds() != null) {
+            timeToLiveSeconds = region.getTimeToLiveSeconds();
+        }
+        ResourcePoolsBuilder resourcePools = ResourcePoolsBuilder.heap(maxEntries);
+        if (region != null && region.getOffHeapMegabytes() != null) {
+            resourcePools = resourcePools.offheap(region.getOffHeapMegabytes(), MemoryUnit.MB);
+        }
+        if (region != null && region.getDiskMegabytes() != null) {
+            if (cache.getStoragePath() == null) {
+                throw new IllegalStateException("The disk tier of the " + regionName + " cache needs " +
+                    "application.cache.storage-path to be set");
+            }
+            resourcePools = resourcePools.disk(region.getDiskMegabytes(), MemoryUnit.MB, region.isPersistent());
+        }
+        cm.createCache(cacheName, Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class, resourcePools)
+                .withExpiry(Expirations.timeToLiveExpiration(Duration.of(timeToLiveSeconds, TimeUnit.SECONDS)))
+                .build()));
+        cm.enableStatistics(cacheName, true);
+    }
+
+    /**
+     * The Hibernate regions are looked up in the JCache CacheManager when the EntityManagerFactory starts, so they
+     * have to be created by the customizer above before.
+     */
+    @Configuration
+    static class EntityManagerFactoryDependsOnCacheManager extends EntityManagerFactoryDependsOnPostProcessor {
+
+        EntityManagerFactoryDependsOnCacheManager() {
+            super("cacheManager");
+        }
+    }
 }
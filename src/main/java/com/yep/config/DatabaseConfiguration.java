@@ -3,24 +3,39 @@ package com.yep.config;
 import io.github.jhipster.config.JHipsterConstants;
 import io.github.jhipster.config.liquibase.AsyncSpringLiquibase;
 
+import com.codahale.metrics.MetricRegistry;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
 import liquibase.integration.spring.SpringLiquibase;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.service.spi.EventListenerRegistry;
+import org.hibernate.event.spi.EventType;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.jdbc.DataSourceProperties;
 import org.springframework.boot.autoconfigure.liquibase.LiquibaseProperties;
+import org.springframework.boot.context.properties.ConfigurationProperties;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Primary;
 import org.springframework.context.annotation.Profile;
 import org.springframework.core.env.Environment;
 import org.springframework.core.task.TaskExecutor;
 import org.springframework.data.jpa.repository.config.EnableJpaAuditing;
 import org.springframework.data.jpa.repository.config.EnableJpaRepositories;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
 import org.springframework.transaction.annotation.EnableTransactionManagement;
 
+import javax.persistence.EntityManagerFactory;
 import javax.sql.DataSource;
 import java.lang.reflect.InvocationTargetException;
 import java.lang.reflect.Method;
 import java.sql.SQLException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.List;
 
 @Configuration
 @EnableJpaRepositories("com.yep.repository")
@@ -90,4 +105,66 @@ public class DatabaseConfiguration {
         }
         return liquibase;
     }
+
+    /**
+     * Send the read-only transactions to the replicas of application.datasource-routing, when it is enabled.
+     * <p>
+     * Each replica gets its own Hikari pool, configured like the primary one and reporting its metrics under its
+     * pool name, "replica-1", "replica-2"... The writes are reported to the routing by a Hibernate listener.
+     */
+    @Configuration
+    @ConditionalOnProperty(prefix = "application.datasource-routing", name = "enabled")
+    static class ReplicaRoutingConfiguration {
+
+        private final Logger log = LoggerFactory.getLogger(ReplicaRoutingConfiguration.class);
+
+        @Bean
+        @ConfigurationProperties(prefix = "spring.datasource.hikari")
+        public HikariDataSource primaryDataSource(DataSourceProperties dataSourceProperties) {
+            return (HikariDataSource) dataSourceProperties.initializeDataSourceBuilder().type(HikariDataSource.class).build();
+        }
+
+        @Bean
+        public ReplicaRoutingDataSource replicaRoutingDataSource(HikariDataSource primaryDataSource,
+                ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+            ApplicationProperties.DatasourceRouting routing = applicationProperties.getDatasourceRouting();
+            List<DataSource> replicas = new ArrayList<>();
+            for (ApplicationProperties.DatasourceRouting.Replica replica : routing.getReplicas()) {
+                HikariConfig config = new HikariConfig();
+                primaryDataSource.copyStateTo(config);
+                config.setPoolName("replica-" + (replicas.size() + 1));
+                config.setJdbcUrl(replica.getUrl());
+                if (replica.getUsername() != null) {
+                    config.setUsername(replica.getUsername());
+                    config.setPassword(replica.getPassword());
+                }
+                config.setReadOnly(true);
+                config.setMetricRegistry(metricRegistry);
+                replicas.add(new HikariDataSource(config));
+            }
+            log.debug("Routing read-only transactions to {} replicas", replicas.size());
+            return new ReplicaRoutingDataSource(primaryDataSource, replicas, routing.getReadYourWritesMillis(), Clock.systemUTC());
+        }
+
+        @Bean
+        @Primary
+        public DataSource dataSource(ReplicaRoutingDataSource replicaRoutingDataSource) {
+            return new LazyConnectionDataSourceProxy(replicaRoutingDataSource);
+        }
+
+        @Bean
+        public ReplicaRoutingWriteListener replicaRoutingWriteListener(EntityManagerFactory entityManagerFactory,
+                ReplicaRoutingDataSource replicaRoutingDataSource) {
+            ReplicaRoutingWriteListener listener = new ReplicaRoutingWriteListener(replicaRoutingDataSource);
+            EventListenerRegistry registry = entityManagerFactory.unwrap(SessionFactoryImplementor.class)
+                .getServiceRegistry().getService(EventListenerRegistry.class);
+            registry.appendListeners(EventType.POST_INSERT, listener);
+            registry.appendListeners(EventType.POST_UPDATE, listener);
+            registry.appendListeners(EventType.POST_DELETE, listener);
+            registry.appendListeners(EventType.POST_COLLECTION_RECREATE, listener);
+            registry.appendListeners(EventType.POST_COLLECTION_UPDATE, listener);
+            registry.appendListeners(EventType.POST_COLLECTION_REMOVE, listener);
+            return listener;
+        }
+    }
 }
@@ -0,0 +1,191 @@
+package com.yep.config;
+
+import com.yep.security.SecurityUtils;
+
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.jdbc.datasource.lookup.AbstractRoutingDataSource;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.io.Closeable;
+import java.io.IOException;
+import java.time.Clock;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * DataSource sending the connections of read-only transactions to the replicas, in turn, and all the others to the
+ * primary.
+ * <p>
+ * The transaction is only known once it has started, so this DataSource must be wrapped in a
+ * {@link LazyConnectionDataSourceProxy}, which only fetches the connection when the first statement runs.
+ * <p>
+ * Replicas lag behind the primary, so once a user has committed a write, their read-only transactions keep going to
+ * the primary for the read-your-writes window. Only the transactions which actually wrote count, as reported by the
+ * {@link ReplicaRoutingWriteListener} when Hibernate runs their inserts, updates and deletes, whatever their
+ * read-only flag.
+ * <p>
+ * The reads whose result outlives the transaction, such as the users kept in caches, should not be served by a
+ * lagging replica: they run in the {@link #forcePrimary()} scope.
+ */
+public class ReplicaRoutingDataSource extends AbstractRoutingDataSource implements Closeable {
+
+    static final String PRIMARY = "primary";
+
+    private static final int MAX_TRACKED_WRITERS = 10000;
+
+    private static final ThreadLocal<Boolean> primaryForced = new ThreadLocal<>();
+
+    private final List<String> replicaKeys = new ArrayList<>();
+
+    private final List<DataSource> replicas;
+
+    private final long readYourWritesMillis;
+
+    private final Clock clock;
+
+    private final AtomicInteger nextReplica = new AtomicInteger();
+
+    // Time of the last committed write, by user login
+    private final ConcurrentMap<String, Long> lastWrites = new ConcurrentHashMap<>();
+
+    public ReplicaRoutingDataSource(DataSource primary, List<DataSource> replicas, long readYourWritesMillis, Clock clock) {
+        this.replicas = replicas;
+        this.readYourWritesMillis = readYourWritesMillis;
+        this.clock = clock;
+        Map<Object, Object> targetDataSources = new HashMap<>();
+        targetDataSources.put(PRIMARY, primary);
+        for (int i = 0; i < replicas.size(); i++) {
+            String key = "replica-" + (i + 1);
+            replicaKeys.add(key);
+            targetDataSources.put(key, replicas.get(i));
+        }
+        setTargetDataSources(targetDataSources);
+        setDefaultTargetDataSource(primary);
+        afterPropertiesSet();
+    }
+
+    /**
+     * Send the connections fetched by the current thread to the primary until the scope is closed, even in read-only
+     * transactions. The connection of a transaction is fetched by its first statement, so the scope must be opened
+     * before it.
+     *
+     * @return the scope, to close once the reads are done
+     */
+    public static PrimaryScope forcePrimary() {
+        Boolean previous = primaryForced.get();
+        primaryForced.set(Boolean.TRUE);
+        return new PrimaryScope(previous);
+    }
+
+    @Override
+    protected Object determineCurrentLookupKey() {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly() || primaryForced.get() != null) {
+            return PRIMARY;
+        }
+        if (replicaKeys.isEmpty() || hasRecentlyWritten()) {
+            return PRIMARY;
+        }
+        return replicaKeys.get(Math.floorMod(nextReplica.getAndIncrement(), replicaKeys.size()));
+    }
+
+    /**
+     * Record that the current transaction wrote, so that the read-only transactions of its user stay on the primary
+     * for the read-your-writes window once it has committed.
+     */
+    public void recordWrite() {
+        Optional<String> login = SecurityUtils.getCurrentUserLogin();
+        if (!login.isPresent() || !TransactionSynchronizationManager.isActualTransactionActive()
+            || !TransactionSynchronizationManager.isSynchronizationActive()) {
+            return;
+        }
+        for (TransactionSynchronization synchronization : TransactionSynchronizationManager.getSynchronizations()) {
+            if (synchronization instanceof WriteSynchronization && ((WriteSynchronization) synchronization).owner == this) {
+                return;
+            }
+        }
+        TransactionSynchronizationManager.registerSynchronization(new WriteSynchronization(this, login.get()));
+    }
+
+    private boolean hasRecentlyWritten() {
+        Optional<String> login = SecurityUtils.getCurrentUserLogin();
+        if (!login.isPresent()) {
+            return false;
+        }
+        Long lastWrite = lastWrites.get(login.get());
+        if (lastWrite == null) {
+            return false;
+        }
+        if (clock.millis() - lastWrite < readYourWritesMillis) {
+            return true;
+        }
+        lastWrites.remove(login.get(), lastWrite);
+        return false;
+    }
+
+    private void recordCommittedWrite(String login) {
+        long now = clock.millis();
+        if (lastWrites.size() >= MAX_TRACKED_WRITERS) {
+            lastWrites.values().removeIf(lastWrite -> now - lastWrite >= readYourWritesMillis);
+        }
+        lastWrites.put(login, now);
+    }
+
+    /**
+     * Close the replica pools, the primary one is managed by Spring.
+     */
+    @Override
+    public void close() throws IOException {
+        for (DataSource replica : replicas) {
+            if (replica instanceof Closeable) {
+                ((Closeable) replica).close();
+            }
+        }
+    }
+
+    /**
+     * Scope of {@link #forcePrimary()}.
+     */
+    public static final class PrimaryScope implements AutoCloseable {
+
+        private final Boolean previous;
+
+        private PrimaryScope(Boolean previous) {
+            this.previous = previous;
+        }
+
+        @Override
+        public void close() {
+            if (previous == null) {
+                primaryForced.remove();
+            } else {
+                primaryForced.set(previous);
+            }
+        }
+    }
+
+    private static final class WriteSynchronization extends TransactionSynchronizationAdapter {
+
+        private final ReplicaRoutingDataSource owner;
+
+        private final String login;
+
+        private WriteSynchronization(ReplicaRoutingDataSource owner, String login) {
+            this.owner = owner;
+            this.login = login;
+        }
+
+        @Override
+        public void afterCommit() {
+            owner.recordCommittedWrite(login);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package com.yep.config;
+
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostInsertEvent;
+import org.hibernate.event.spi.PostInsertEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.entity.EntityPersister;
+
+/**
+ * Hibernate listener telling the {@link ReplicaRoutingDataSource} which transactions wrote, as it runs their
+ * inserts, updates and deletes of entities and collections.
+ * <p>
+ * The bulk JPQL and JDBC statements are not reported: only the scheduled purges run them, on behalf of no user.
+ */
+public class ReplicaRoutingWriteListener implements PostInsertEventListener, PostUpdateEventListener,
+    PostDeleteEventListener, PostCollectionRecreateEventListener, PostCollectionUpdateEventListener,
+    PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ReplicaRoutingDataSource replicaRoutingDataSource;
+
+    public ReplicaRoutingWriteListener(ReplicaRoutingDataSource replicaRoutingDataSource) {
+        this.replicaRoutingDataSource = replicaRoutingDataSource;
+    }
+
+    @Override
+    public void onPostInsert(PostInsertEvent event) {
+        replicaRoutingDataSource.recordWrite();
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        replicaRoutingDataSource.recordWrite();
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        replicaRoutingDataSource.recordWrite();
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        replicaRoutingDataSource.recordWrite();
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        replicaRoutingDataSource.recordWrite();
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        replicaRoutingDataSource.recordWrite();
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+}
@@ -0,0 +1,198 @@
+package com.yep.config.audit;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.yep.config.ApplicationProperties;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.http.MediaType;
+import org.springframework.scheduling.concurrent.CustomizableThreadFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import javax.annotation.PreDestroy;
+import java.io.IOException;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Broadcaster of the audit events to the Server-Sent Events subscribers.
+ * <p>
+ * The last application.audit-events.stream-history-size events are kept in a ring, numbered in the order they are
+ * published. Each subscriber only holds its position in the ring, and its events are sent from the sender threads,
+ * so publishing never waits for a client. A subscriber more than stream-buffer-size events behind is disconnected:
+ * it can then reconnect with the Last-Event-ID header, and get the events it missed from the ring, as long as they
+ * are still there.
+ */
+@Component
+public class AuditEventBroadcaster {
+
+    static final String EVENT_NAME = "audit-event";
+
+    private static final int SENDER_THREADS = 4;
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventBroadcaster.class);
+
+    private final AtomicReferenceArray<Entry> ring;
+
+    private final int bufferSize;
+
+    private final long timeoutMillis;
+
+    private final Set<Subscriber> subscribers = ConcurrentHashMap.newKeySet();
+
+    private final ExecutorService senders = Executors.newFixedThreadPool(SENDER_THREADS,
+        new CustomizableThreadFactory("audit-event-sender-"));
+
+    private final Meter lagging;
+
+    // Number of the last event published, written after its ring slot
+    private volatile long latest;
+
+    public AuditEventBroadcaster(ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        ApplicationProperties.AuditEvents auditEvents = applicationProperties.getAuditEvents();
+        this.ring = new AtomicReferenceArray<>(auditEvents.getStreamHistorySize());
+        this.bufferSize = Math.min(auditEvents.getStreamBufferSize(), ring.length());
+        this.timeoutMillis = auditEvents.getStreamTimeoutMillis();
+        this.lagging = metricRegistry.meter(MetricRegistry.name(AuditEventBroadcaster.class, "lagging"));
+        metricRegistry.register(MetricRegistry.name(AuditEventBroadcaster.class, "subscribers"),
+            (Gauge<Integer>) subscribers::size);
+    }
+
+    @PreDestroy
+    public void destroy() {
+        senders.shutdownNow();
+        subscribers.forEach(subscriber -> subscriber.emitter.complete());
+    }
+
+    /**
+     * Publish an audit event to the subscribers.
+     *
+     * @param event the audit event
+     */
+    public void publish(AuditEvent event) {
+        synchronized (ring) {
+            long id = latest + 1;
+            ring.set(slot(id), new Entry(id, event));
+            latest = id;
+        }
+        subscribers.forEach(Subscriber::schedule);
+    }
+
+    /**
+     * Subscribe to the audit events published from now on.
+     *
+     * @param lastEventId the id of the last event received before reconnecting, to also get the events published
+     * since then, or null
+     * @return the emitter of the events
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        SseEmitter emitter = new SseEmitter(timeoutMillis);
+        long position = latest;
+        if (lastEventId != null && lastEventId < position) {
+            // Ids greater than the last one come from before a restart, and are ignored
+            position = Math.max(Math.max(lastEventId, position - bufferSize), 0);
+        }
+        Subscriber subscriber = new Subscriber(emitter, position);
+        emitter.onCompletion(() -> subscribers.remove(subscriber));
+        emitter.onTimeout(() -> subscribers.remove(subscriber));
+        subscribers.add(subscriber);
+        subscriber.schedule();
+        return emitter;
+    }
+
+    private int slot(long id) {
+        return (int) (id % ring.length());
+    }
+
+    private static final class Entry {
+
+        private final long id;
+
+        private final AuditEvent event;
+
+        private Entry(long id, AuditEvent event) {
+            this.id = id;
+            this.event = event;
+        }
+    }
+
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+
+        // Id of the last event sent, only used by the sender draining this subscriber
+        private long position;
+
+        private final AtomicBoolean scheduled = new AtomicBoolean();
+
+        private Subscriber(SseEmitter emitter, long position) {
+            this.emitter = emitter;
+            this.position = position;
+        }
+
+        private void schedule() {
+            if (scheduled.compareAndSet(false, true)) {
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    close();
+                }
+            }
+        }
+
+        private void drain() {
+            do {
+                if (!sendAvailableEvents()) {
+                    close();
+                    return;
+                }
+                scheduled.set(false);
+            } while (position < latest && scheduled.compareAndSet(false, true));
+        }
+
+        /**
+         * @return false if the subscriber should be disconnected
+         */
+        private boolean sendAvailableEvents() {
+            long last = latest;
+            if (last - position > bufferSize) {
+                log.debug("Disconnecting an audit event subscriber {} events behind", last - position);
+                lagging.mark();
+                return false;
+            }
+            try {
+                while (position < last) {
+                    Entry entry = ring.get(slot(position + 1));
+                    if (entry.id != position + 1) {
+                        // Overwritten while sending
+                        lagging.mark();
+                        return false;
+                    }
+                    emitter.send(SseEmitter.event()
+                        .id(Long.toString(entry.id))
+                        .name(EVENT_NAME)
+                        .data(entry.event, MediaType.APPLICATION_JSON));
+                    position = entry.id;
+                }
+            } catch (IOException | IllegalStateException e) {
+                log.debug("Could not send the audit events: {}", e.getMessage());
+                return false;
+            }
+            return true;
+        }
+
+        private void close() {
+            subscribers.remove(this);
+            emitter.complete();
+        }
+    }
+}
@@ -21,7 +21,8 @@ public class AuditEventConverter {
         if (persistentAuditEvents == null) {
             return Collections.emptyList();
         }
-        List<AuditEvent> auditEvents = new ArrayList<>();
+        List<AuditEvent> auditEvents = persistentAuditEvents instanceof Collection ?
+            new ArrayList<>(((Collection<?>) persistentAuditEvents).size()) : new ArrayList<>();
         for (PersistentAuditEvent persistentAuditEvent : persistentAuditEvents) {
             auditEvents.add(convertToAuditEvent(persistentAuditEvent));
         }
@@ -44,19 +45,17 @@ public class AuditEventConverter {
 
     /**
      * Internal conversion. This is needed to support the current SpringBoot actuator AuditEventRepository interface
+     * <p>
+     * The data is not copied: the result is a read-only view of it.
      *
      * @param data the data to convert
      * @return a map of String, Object
      */
     public Map<String, Object> convertDataToObjects(Map<String, String> data) {
-        Map<String, Object> results = new HashMap<>();
-
-        if (data != null) {
-            for (Map.Entry<String, String> entry : data.entrySet()) {
-                results.put(entry.getKey(), entry.getValue());
-            }
+        if (data == null) {
+            return Collections.emptyMap();
         }
-        return results;
+        return Collections.unmodifiableMap(data);
     }
 
     /**
@@ -0,0 +1,37 @@
+package com.yep.config.cache;
+
+import java.io.Serializable;
+
+/**
+ * Message telling the other members of the cluster to remove a key from one of their caches, or to clear it when
+ * the key is null.
+ */
+public class CacheInvalidation implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String cacheName;
+
+    private final Serializable key;
+
+    public CacheInvalidation(String cacheName, Serializable key) {
+        this.cacheName = cacheName;
+        this.key = key;
+    }
+
+    public String getCacheName() {
+        return cacheName;
+    }
+
+    public Serializable getKey() {
+        return key;
+    }
+
+    @Override
+    public String toString() {
+        return "CacheInvalidation{" +
+            "cacheName='" + cacheName + "'" +
+            ", key=" + key +
+            "}";
+    }
+}
@@ -0,0 +1,103 @@
+package com.yep.config.cache;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.core.HazelcastInstance;
+import com.hazelcast.core.ITopic;
+import com.hazelcast.core.Message;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import javax.annotation.PreDestroy;
+import javax.cache.Cache;
+import java.io.Serializable;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Keeps the local caches of the members of a cluster consistent, by broadcasting the keys evicted from them.
+ * <p>
+ * Each member keeps its own caches, which act as near-caches: reads never leave the member. When a key is evicted
+ * from a registered cache through the Spring {@link ClusteredCacheManager}, as the UserService does when it changes a
+ * user, the eviction is published on a Hazelcast topic once the transaction has committed, and the other members
+ * remove the key from their own copy of the cache. The entries which expire are not published, as they expire on
+ * every member.
+ * <p>
+ * The Hazelcast instance is only used for the topic, and is not a bean, so that Spring Boot neither uses it as the
+ * cache manager nor as a JCache provider.
+ */
+public class ClusterCacheInvalidator {
+
+    static final String TOPIC_NAME = "cache-invalidations";
+
+    private final Logger log = LoggerFactory.getLogger(ClusterCacheInvalidator.class);
+
+    private final HazelcastInstance hazelcastInstance;
+
+    private final ITopic<CacheInvalidation> topic;
+
+    private final Map<String, Cache<Object, Object>> caches = new ConcurrentHashMap<>();
+
+    private final Meter published;
+
+    private final Meter received;
+
+    public ClusterCacheInvalidator(HazelcastInstance hazelcastInstance, MetricRegistry metricRegistry) {
+        this.hazelcastInstance = hazelcastInstance;
+        this.topic = hazelcastInstance.getTopic(TOPIC_NAME);
+        this.published = metricRegistry.meter(MetricRegistry.name(ClusterCacheInvalidator.class, "published"));
+        this.received = metricRegistry.meter(MetricRegistry.name(ClusterCacheInvalidator.class, "received"));
+        topic.addMessageListener(this::onInvalidation);
+    }
+
+    /**
+     * Publish the evictions from a cache to the other members, and apply theirs to it.
+     */
+    public void register(Cache<Object, Object> cache) {
+        caches.put(cache.getName(), cache);
+        log.debug("Registered cache {} for cluster invalidations", cache.getName());
+    }
+
+    public boolean isRegistered(String cacheName) {
+        return caches.containsKey(cacheName);
+    }
+
+    /**
+     * Tell the other members to remove a key from a cache.
+     *
+     * @param cacheName the name of the cache
+     * @param key the key to remove, or null to clear the cache
+     */
+    public void publish(String cacheName, Object key) {
+        if (key != null && !(key instanceof Serializable)) {
+            log.warn("Cannot publish the eviction of key {} from cache {}, it is not serializable", key, cacheName);
+            return;
+        }
+        topic.publish(new CacheInvalidation(cacheName, (Serializable) key));
+        published.mark();
+    }
+
+    private void onInvalidation(Message<CacheInvalidation> message) {
+        if (message.getPublishingMember() != null && message.getPublishingMember().localMember()) {
+            return;
+        }
+        CacheInvalidation invalidation = message.getMessageObject();
+        Cache<Object, Object> cache = caches.get(invalidation.getCacheName());
+        if (cache == null || cache.isClosed()) {
+            return;
+        }
+        received.mark();
+        // Straight to the JCache cache, so that the removal is not published again
+        if (invalidation.getKey() == null) {
+            cache.removeAll();
+        } else {
+            cache.remove(invalidation.getKey());
+        }
+    }
+
+    @PreDestroy
+    public void destroy() {
+        hazelcastInstance.shutdown();
+    }
+}
@@ -0,0 +1,132 @@
+package com.yep.config.cache;
+
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Collection;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Spring cache manager publishing the evictions from the caches registered in the {@link ClusterCacheInvalidator}.
+ * <p>
+ * The evictions are published even when the key is not in the local cache, as another member may hold it: a JCache
+ * removal listener would only see the keys actually removed.
+ * <p>
+ * Within a transaction, the evictions are published once it has committed: published before, another member could
+ * read the previous values again and cache them until they expire. The key is also evicted from the local cache
+ * right away, for the rest of the transaction, and again after the commit, for the reads which ran meanwhile.
+ */
+public class ClusteredCacheManager implements CacheManager {
+
+    private final CacheManager delegate;
+
+    private final ClusterCacheInvalidator invalidator;
+
+    private final Map<String, Cache> clusteredCaches = new ConcurrentHashMap<>();
+
+    public ClusteredCacheManager(CacheManager delegate, ClusterCacheInvalidator invalidator) {
+        this.delegate = delegate;
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public Cache getCache(String name) {
+        Cache cache = clusteredCaches.get(name);
+        if (cache != null) {
+            return cache;
+        }
+        cache = delegate.getCache(name);
+        if (cache == null || !invalidator.isRegistered(name)) {
+            return cache;
+        }
+        Cache clusteredCache = new ClusteredCache(cache, invalidator);
+        Cache existing = clusteredCaches.putIfAbsent(name, clusteredCache);
+        return existing != null ? existing : clusteredCache;
+    }
+
+    @Override
+    public Collection<String> getCacheNames() {
+        return delegate.getCacheNames();
+    }
+
+    private static final class ClusteredCache implements Cache {
+
+        private final Cache delegate;
+
+        private final ClusterCacheInvalidator invalidator;
+
+        private ClusteredCache(Cache delegate, ClusterCacheInvalidator invalidator) {
+            this.delegate = delegate;
+            this.invalidator = invalidator;
+        }
+
+        @Override
+        public String getName() {
+            return delegate.getName();
+        }
+
+        @Override
+        public Object getNativeCache() {
+            return delegate.getNativeCache();
+        }
+
+        @Override
+        public ValueWrapper get(Object key) {
+            return delegate.get(key);
+        }
+
+        @Override
+        public <T> T get(Object key, Class<T> type) {
+            return delegate.get(key, type);
+        }
+
+        @Override
+        public <T> T get(Object key, Callable<T> valueLoader) {
+            return delegate.get(key, valueLoader);
+        }
+
+        @Override
+        public void put(Object key, Object value) {
+            delegate.put(key, value);
+        }
+
+        @Override
+        public ValueWrapper putIfAbsent(Object key, Object value) {
+            return delegate.putIfAbsent(key, value);
+        }
+
+        @Override
+        public void evict(Object key) {
+            delegate.evict(key);
+            publish(key);
+        }
+
+        @Override
+        public void clear() {
+            delegate.clear();
+            publish(null);
+        }
+
+        private void publish(Object key) {
+            if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+                invalidator.publish(getName(), key);
+                return;
+            }
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    if (key == null) {
+                        delegate.clear();
+                    } else {
+                        delegate.evict(key);
+                    }
+                    invalidator.publish(getName(), key);
+                }
+            });
+        }
+    }
+}
@@ -0,0 +1,40 @@
+package com.yep.config.cache;
+
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.cache.CacheManager;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+
+/**
+ * Wraps the Spring cache manager in a {@link ClusteredCacheManager}.
+ * <p>
+ * The cache manager is created while the other post processors are registered, as the metrics annotations are
+ * advised along with the caching ones, so this one has to be registered before them.
+ */
+public class ClusteredCacheManagerPostProcessor implements BeanPostProcessor, PriorityOrdered {
+
+    private final ObjectProvider<ClusterCacheInvalidator> clusterCacheInvalidator;
+
+    public ClusteredCacheManagerPostProcessor(ObjectProvider<ClusterCacheInvalidator> clusterCacheInvalidator) {
+        this.clusterCacheInvalidator = clusterCacheInvalidator;
+    }
+
+    @Override
+    public Object postProcessBeforeInitialization(Object bean, String beanName) {
+        return bean;
+    }
+
+    @Override
+    public Object postProcessAfterInitialization(Object bean, String beanName) {
+        if (bean instanceof CacheManager && !(bean instanceof ClusteredCacheManager)) {
+            return new ClusteredCacheManager((CacheManager) bean, clusterCacheInvalidator.getObject());
+        }
+        return bean;
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+}
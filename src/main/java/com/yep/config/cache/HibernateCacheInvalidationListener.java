@@ -0,0 +1,115 @@
+package com.yep.config.cache;
+
+import org.hibernate.cache.spi.access.CollectionRegionAccessStrategy;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.engine.spi.CollectionEntry;
+import org.hibernate.event.spi.AbstractCollectionEvent;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostCollectionRecreateEvent;
+import org.hibernate.event.spi.PostCollectionRecreateEventListener;
+import org.hibernate.event.spi.PostCollectionRemoveEvent;
+import org.hibernate.event.spi.PostCollectionRemoveEventListener;
+import org.hibernate.event.spi.PostCollectionUpdateEvent;
+import org.hibernate.event.spi.PostCollectionUpdateEventListener;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostDeleteEventListener;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.event.spi.PostUpdateEventListener;
+import org.hibernate.persister.collection.CollectionPersister;
+import org.hibernate.persister.entity.EntityPersister;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+
+/**
+ * Hibernate listener publishing the evictions from the second-level cache regions registered in the
+ * {@link ClusterCacheInvalidator}, once the transaction has committed.
+ * <p>
+ * Hibernate only removes the changed entities and collections from the regions of the local member, so the other
+ * members would serve them as they were until they expire. The inserted entities are not published, as no member
+ * can hold them yet.
+ */
+public class HibernateCacheInvalidationListener implements PostUpdateEventListener, PostDeleteEventListener,
+    PostCollectionRecreateEventListener, PostCollectionUpdateEventListener, PostCollectionRemoveEventListener {
+
+    private static final long serialVersionUID = 1L;
+
+    private final transient ClusterCacheInvalidator invalidator;
+
+    public HibernateCacheInvalidationListener(ClusterCacheInvalidator invalidator) {
+        this.invalidator = invalidator;
+    }
+
+    @Override
+    public void onPostUpdate(PostUpdateEvent event) {
+        publishEntity(event.getPersister(), event.getId(), event.getSession());
+    }
+
+    @Override
+    public void onPostDelete(PostDeleteEvent event) {
+        publishEntity(event.getPersister(), event.getId(), event.getSession());
+    }
+
+    @Override
+    public void onPostRecreateCollection(PostCollectionRecreateEvent event) {
+        publishCollection(event);
+    }
+
+    @Override
+    public void onPostUpdateCollection(PostCollectionUpdateEvent event) {
+        publishCollection(event);
+    }
+
+    @Override
+    public void onPostRemoveCollection(PostCollectionRemoveEvent event) {
+        publishCollection(event);
+    }
+
+    @Override
+    public boolean requiresPostCommitHanding(EntityPersister persister) {
+        return false;
+    }
+
+    private void publishEntity(EntityPersister persister, Serializable id, EventSource session) {
+        if (!persister.hasCache()) {
+            return;
+        }
+        EntityRegionAccessStrategy cacheAccess = persister.getCacheAccessStrategy();
+        publishAfterCommit(cacheAccess.getRegion().getName(),
+            cacheAccess.generateCacheKey(id, persister, session.getFactory(), session.getTenantIdentifier()));
+    }
+
+    private void publishCollection(AbstractCollectionEvent event) {
+        EventSource session = event.getSession();
+        CollectionEntry entry = session.getPersistenceContext().getCollectionEntry(event.getCollection());
+        if (entry == null) {
+            return;
+        }
+        CollectionPersister persister = entry.getLoadedPersister() != null ?
+            entry.getLoadedPersister() : entry.getCurrentPersister();
+        Serializable key = event.getCollection().getKey() != null ? event.getCollection().getKey() : entry.getCurrentKey();
+        if (persister == null || !persister.hasCache() || key == null) {
+            return;
+        }
+        CollectionRegionAccessStrategy cacheAccess = persister.getCacheAccessStrategy();
+        publishAfterCommit(cacheAccess.getRegion().getName(),
+            cacheAccess.generateCacheKey(key, persister, session.getFactory(), session.getTenantIdentifier()));
+    }
+
+    private void publishAfterCommit(String regionName, Object cacheKey) {
+        if (!invalidator.isRegistered(regionName)) {
+            return;
+        }
+        if (!TransactionSynchronizationManager.isSynchronizationActive()) {
+            invalidator.publish(regionName, cacheKey);
+            return;
+        }
+        TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+            @Override
+            public void afterCommit() {
+                invalidator.publish(regionName, cacheKey);
+            }
+        });
+    }
+}
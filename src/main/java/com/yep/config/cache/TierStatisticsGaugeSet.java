@@ -0,0 +1,88 @@
+package com.yep.config.cache;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.MetricSet;
+import org.ehcache.core.statistics.TierOperationOutcomes;
+import org.terracotta.context.ContextManager;
+import org.terracotta.context.TreeNode;
+import org.terracotta.context.query.Matchers;
+import org.terracotta.context.query.Query;
+import org.terracotta.context.query.QueryBuilder;
+import org.terracotta.statistics.OperationStatistic;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Hits, misses and evictions of each tier of the Ehcache caches: OnHeap, OffHeap and Disk.
+ * <p>
+ * The JCache statistics only count the hits of a cache as a whole, while an entry found in the off-heap or disk tier
+ * has to be deserialized, and an entry evicted from the heap is only moved down to the next tier. Ehcache 3.2 has no
+ * public API for the tier statistics, so they are looked up in its statistics tree, as its JCache MBeans do.
+ */
+public class TierStatisticsGaugeSet implements MetricSet {
+
+    private static final String DISCRIMINATOR = "discriminator";
+
+    private final CacheManager cacheManager;
+
+    public TierStatisticsGaugeSet(CacheManager cacheManager) {
+        this.cacheManager = cacheManager;
+    }
+
+    /**
+     * @return the gauges of the caches of the manager, named cache.tier.hits, cache.tier.misses and
+     * cache.tier.evictions
+     */
+    @Override
+    public Map<String, Metric> getMetrics() {
+        Map<String, Metric> gauges = new HashMap<>();
+        for (String cacheName : cacheManager.getCacheNames()) {
+            Cache<?, ?> cache = cacheManager.getCache(cacheName);
+            Object ehcache = cache.unwrap(org.ehcache.Cache.class);
+            for (Map.Entry<String, OperationStatistic<TierOperationOutcomes.GetOutcome>> tier :
+                findTierStatistics(ehcache, "get", TierOperationOutcomes.GetOutcome.class).entrySet()) {
+                OperationStatistic<TierOperationOutcomes.GetOutcome> get = tier.getValue();
+                gauges.put(MetricRegistry.name(cacheName, tier.getKey(), "hits"),
+                    (Gauge<Long>) () -> get.count(TierOperationOutcomes.GetOutcome.HIT));
+                gauges.put(MetricRegistry.name(cacheName, tier.getKey(), "misses"),
+                    (Gauge<Long>) () -> get.count(TierOperationOutcomes.GetOutcome.MISS));
+            }
+            for (Map.Entry<String, OperationStatistic<TierOperationOutcomes.EvictionOutcome>> tier :
+                findTierStatistics(ehcache, "eviction", TierOperationOutcomes.EvictionOutcome.class).entrySet()) {
+                OperationStatistic<TierOperationOutcomes.EvictionOutcome> eviction = tier.getValue();
+                gauges.put(MetricRegistry.name(cacheName, tier.getKey(), "evictions"),
+                    (Gauge<Long>) () -> eviction.count(TierOperationOutcomes.EvictionOutcome.SUCCESS));
+            }
+        }
+        return gauges;
+    }
+
+    /**
+     * @return the statistics of the tiers of the cache, by tier name
+     */
+    @SuppressWarnings("unchecked")
+    private static <T extends Enum<T>> Map<String, OperationStatistic<T>> findTierStatistics(Object ehcache,
+                                                                                           String name, Class<T> type) {
+        Query query = QueryBuilder.queryBuilder()
+            .descendants()
+            .filter(Matchers.context(Matchers.attributes(Matchers.allOf(
+                Matchers.hasAttribute("name", name),
+                Matchers.hasAttribute("type", type)))))
+            .build();
+        Map<String, OperationStatistic<T>> statistics = new HashMap<>();
+        for (TreeNode node : query.execute(Collections.singleton(ContextManager.nodeFor(ehcache)))) {
+            Map<String, Object> attributes = node.getContext().attributes();
+            Map<String, Object> properties = (Map<String, Object>) attributes.get("properties");
+            if (properties != null && properties.get(DISCRIMINATOR) != null) {
+                statistics.put(properties.get(DISCRIMINATOR).toString(), (OperationStatistic<T>) attributes.get("this"));
+            }
+        }
+        return statistics;
+    }
+}
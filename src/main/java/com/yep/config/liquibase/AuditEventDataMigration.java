@@ -0,0 +1,88 @@
+package com.yep.config.liquibase;
+
+import com.yep.domain.AuditEventDataCodec;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Liquibase change copying the rows of jhi_persistent_audit_evt_data to the event_data column of their event, encoded
+ * by the {@link AuditEventDataCodec}.
+ * <p>
+ * The data rows are read in event order through a single cursor, and the events updated in JDBC batches.
+ */
+public class AuditEventDataMigration implements CustomTaskChange {
+
+    private static final int BATCH_SIZE = 500;
+
+    private int migratedEvents;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (PreparedStatement select = connection.prepareStatement(
+                "SELECT event_id, name, value FROM jhi_persistent_audit_evt_data ORDER BY event_id");
+             PreparedStatement update = connection.prepareStatement(
+                 "UPDATE jhi_persistent_audit_event SET event_data = ? WHERE event_id = ?")) {
+            select.setFetchSize(BATCH_SIZE);
+            try (ResultSet rows = select.executeQuery()) {
+                Long eventId = null;
+                Map<String, String> data = new HashMap<>();
+                while (rows.next()) {
+                    long rowEventId = rows.getLong(1);
+                    if (eventId != null && eventId != rowEventId) {
+                        addUpdate(update, eventId, data);
+                        data.clear();
+                    }
+                    eventId = rowEventId;
+                    data.put(rows.getString(2), rows.getString(3));
+                }
+                if (eventId != null) {
+                    addUpdate(update, eventId, data);
+                }
+            }
+            update.executeBatch();
+        } catch (Exception e) {
+            throw new CustomChangeException("Could not migrate the audit event data", e);
+        }
+    }
+
+    private void addUpdate(PreparedStatement update, long eventId, Map<String, String> data) throws SQLException {
+        update.setString(1, AuditEventDataCodec.encode(data));
+        update.setLong(2, eventId);
+        update.addBatch();
+        if (++migratedEvents % BATCH_SIZE == 0) {
+            update.executeBatch();
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return "Migrated the data of " + migratedEvents + " audit events";
+    }
+
+    @Override
+    public void setUp() {
+        // Nothing to set up
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // No resources needed
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
@@ -0,0 +1,78 @@
+package com.yep.config.liquibase;
+
+import com.yep.domain.PersistentAuditEvent;
+import com.yep.repository.AuditEventPartitionRepository;
+
+import liquibase.change.custom.CustomTaskChange;
+import liquibase.database.Database;
+import liquibase.database.jvm.JdbcConnection;
+import liquibase.exception.CustomChangeException;
+import liquibase.exception.ValidationErrors;
+import liquibase.resource.ResourceAccessor;
+
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Liquibase change splitting the monthly partitions of the audit events out of pmax on MySQL, from the oldest month
+ * of the events to the next month, see {@link AuditEventPartitionRepository}.
+ * <p>
+ * This copies every event once, while the application is not serving yet, so that the scheduled purge then only
+ * creates partitions while pmax is empty. Nothing is done if the table already has monthly partitions.
+ */
+public class AuditEventPartitionMigration implements CustomTaskChange {
+
+    private List<Integer> buckets;
+
+    @Override
+    public void execute(Database database) throws CustomChangeException {
+        JdbcConnection connection = (JdbcConnection) database.getConnection();
+        try (Statement statement = connection.createStatement()) {
+            try (ResultSet partitions = statement.executeQuery("SELECT COUNT(*) FROM INFORMATION_SCHEMA.PARTITIONS " +
+                    "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = 'jhi_persistent_audit_event' " +
+                    "AND PARTITION_NAME IS NOT NULL AND PARTITION_NAME <> 'pmax'")) {
+                if (partitions.next() && partitions.getInt(1) > 0) {
+                    return;
+                }
+            }
+            int lastBucket = AuditEventPartitionRepository.nextBucket(PersistentAuditEvent.bucketOf(Instant.now()));
+            int firstBucket = lastBucket;
+            try (ResultSet oldest = statement.executeQuery(
+                    "SELECT MIN(event_bucket) FROM jhi_persistent_audit_event WHERE event_bucket > 0")) {
+                if (oldest.next()) {
+                    int oldestBucket = oldest.getInt(1);
+                    if (!oldest.wasNull() && oldestBucket < lastBucket) {
+                        firstBucket = oldestBucket;
+                    }
+                }
+            }
+            buckets = AuditEventPartitionRepository.bucketsBetween(firstBucket, lastBucket);
+            statement.execute(AuditEventPartitionRepository.reorganizeStatement(buckets));
+        } catch (Exception e) {
+            throw new CustomChangeException("Could not partition the audit events", e);
+        }
+    }
+
+    @Override
+    public String getConfirmationMessage() {
+        return buckets == null ? "The audit events were already partitioned" :
+            "Partitioned the audit events of " + buckets;
+    }
+
+    @Override
+    public void setUp() {
+        // Nothing to set up
+    }
+
+    @Override
+    public void setFileOpener(ResourceAccessor resourceAccessor) {
+        // No resources needed
+    }
+
+    @Override
+    public ValidationErrors validate(Database database) {
+        return new ValidationErrors();
+    }
+}
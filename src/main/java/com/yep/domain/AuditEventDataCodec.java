@@ -0,0 +1,74 @@
+package com.yep.domain;
+
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonToken;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Encoding of the data of the persistent audit events, as a flat JSON object in a single column.
+ * <p>
+ * The same few keys come back in every event: the parser interns them, so the decoded maps share their keys.
+ */
+public final class AuditEventDataCodec {
+
+    private static final JsonFactory JSON_FACTORY = new JsonFactory();
+
+    private AuditEventDataCodec() {
+    }
+
+    /**
+     * Encode audit event data.
+     *
+     * @param data the data to encode
+     * @return the encoded data, or null if there is none
+     */
+    public static String encode(Map<String, String> data) {
+        if (data == null || data.isEmpty()) {
+            return null;
+        }
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator generator = JSON_FACTORY.createGenerator(writer)) {
+            generator.writeStartObject();
+            for (Map.Entry<String, String> entry : data.entrySet()) {
+                generator.writeStringField(entry.getKey(), entry.getValue());
+            }
+            generator.writeEndObject();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return writer.toString();
+    }
+
+    /**
+     * Decode audit event data.
+     *
+     * @param encodedData the encoded data, possibly null
+     * @return the decoded data, which can be modified
+     */
+    public static Map<String, String> decode(String encodedData) {
+        Map<String, String> data = new HashMap<>(4);
+        if (encodedData == null) {
+            return data;
+        }
+        try (JsonParser parser = JSON_FACTORY.createParser(encodedData)) {
+            if (parser.nextToken() != JsonToken.START_OBJECT) {
+                throw new IllegalArgumentException("Audit event data is not a JSON object: " + encodedData);
+            }
+            while (parser.nextToken() == JsonToken.FIELD_NAME) {
+                String key = parser.getCurrentName();
+                parser.nextToken();
+                data.put(key, parser.getValueAsString());
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return data;
+    }
+}
@@ -0,0 +1,109 @@
+package com.yep.domain;
+
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
+import javax.persistence.*;
+import javax.validation.constraints.NotNull;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * Number of audit events of a type and principal during a minute.
+ * <p>
+ * The rows are only ever inserted, each one with the events counted since the previous compaction: the count of a
+ * minute is the sum of its rows.
+ *
+ * @see com.yep.repository.AuditEventRollupCounter
+ */
+@Entity
+@Table(name = "jhi_audit_event_rollup")
+public class AuditEventRollup implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @GenericGenerator(name = "sequenceGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+        @Parameter(name = "sequence_name", value = "sequence_generator"),
+        @Parameter(name = "increment_size", value = "50"),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+    })
+    private Long id;
+
+    @NotNull
+    @Column(name = "bucket_start", nullable = false)
+    private Instant bucketStart;
+
+    @NotNull
+    @Column(name = "event_type", nullable = false)
+    private String auditEventType;
+
+    @NotNull
+    @Column(nullable = false)
+    private String principal;
+
+    @NotNull
+    @Column(name = "event_count", nullable = false)
+    private Long eventCount;
+
+    public AuditEventRollup() {
+    }
+
+    public AuditEventRollup(Instant bucketStart, String auditEventType, String principal, Long eventCount) {
+        this.bucketStart = bucketStart;
+        this.auditEventType = auditEventType;
+        this.principal = principal;
+        this.eventCount = eventCount;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public Instant getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(Instant bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public String getAuditEventType() {
+        return auditEventType;
+    }
+
+    public void setAuditEventType(String auditEventType) {
+        this.auditEventType = auditEventType;
+    }
+
+    public String getPrincipal() {
+        return principal;
+    }
+
+    public void setPrincipal(String principal) {
+        this.principal = principal;
+    }
+
+    public Long getEventCount() {
+        return eventCount;
+    }
+
+    public void setEventCount(Long eventCount) {
+        this.eventCount = eventCount;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditEventRollup{" +
+            "bucketStart=" + bucketStart +
+            ", auditEventType='" + auditEventType + "'" +
+            ", principal='" + principal + "'" +
+            ", eventCount=" + eventCount +
+            "}";
+    }
+}
@@ -1,14 +1,23 @@
 package com.yep.domain;
 
+import org.hibernate.annotations.GenericGenerator;
+import org.hibernate.annotations.Parameter;
+
 import javax.persistence.*;
 import javax.validation.constraints.NotNull;
 import java.io.Serializable;
 import java.time.Instant;
-import java.util.HashMap;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
 import java.util.Map;
 
 /**
  * Persist AuditEvent managed by the Spring Boot actuator.
+ * <p>
+ * The events are bucketed by month, so that date range queries and the retention purge only read the months they
+ * need. On MySQL the table is partitioned by bucket, see AuditEventPartitionRepository.
+ * <p>
+ * The data is stored as a single JSON column, read with the event, and only decoded when it is first used.
  *
  * @see org.springframework.boot.actuate.audit.AuditEvent
  */
@@ -16,8 +25,15 @@ import java.util.Map;
 @Table(name = "jhi_persistent_audit_event")
 public class PersistentAuditEvent implements Serializable {
 
+    public static final int NO_DATE_BUCKET = 0;
+
     @Id
-    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "sequenceGenerator")
+    @GenericGenerator(name = "sequenceGenerator", strategy = "org.hibernate.id.enhanced.SequenceStyleGenerator", parameters = {
+        @Parameter(name = "sequence_name", value = "sequence_generator"),
+        @Parameter(name = "increment_size", value = "50"),
+        @Parameter(name = "optimizer", value = "pooled-lo")
+    })
     @Column(name = "event_id")
     private Long id;
 
@@ -28,14 +44,19 @@ public class PersistentAuditEvent implements Serializable {
     @Column(name = "event_date")
     private Instant auditEventDate;
 
+    @Column(name = "event_bucket", nullable = false)
+    private Integer auditEventBucket;
+
     @Column(name = "event_type")
     private String auditEventType;
 
-    @ElementCollection
-    @MapKeyColumn(name = "name")
-    @Column(name = "value")
-    @CollectionTable(name = "jhi_persistent_audit_evt_data", joinColumns=@JoinColumn(name="event_id"))
-    private Map<String, String> data = new HashMap<>();
+    @Lob
+    @Column(name = "event_data")
+    private String eventData;
+
+    // Decoded from eventData when first used
+    @Transient
+    private Map<String, String> data;
 
     public Long getId() {
         return id;
@@ -61,6 +82,10 @@ public class PersistentAuditEvent implements Serializable {
         this.auditEventDate = auditEventDate;
     }
 
+    public Integer getAuditEventBucket() {
+        return auditEventBucket;
+    }
+
     public String getAuditEventType() {
         return auditEventType;
     }
@@ -70,10 +95,35 @@ public class PersistentAuditEvent implements Serializable {
     }
 
     public Map<String, String> getData() {
+        if (data == null) {
+            data = AuditEventDataCodec.decode(eventData);
+        }
         return data;
     }
 
     public void setData(Map<String, String> data) {
         this.data = data;
+        this.eventData = AuditEventDataCodec.encode(data);
+    }
+
+    @PrePersist
+    @PreUpdate
+    private void updateDerivedColumns() {
+        // The events without a date go to the oldest bucket, the first one purged
+        auditEventBucket = auditEventDate == null ? NO_DATE_BUCKET : bucketOf(auditEventDate);
+        if (data != null) {
+            eventData = AuditEventDataCodec.encode(data);
+        }
+    }
+
+    /**
+     * Get the bucket of a date: its month, as yyyyMM in UTC.
+     *
+     * @param date the date
+     * @return the bucket of the date
+     */
+    public static int bucketOf(Instant date) {
+        ZonedDateTime dateTime = date.atZone(ZoneOffset.UTC);
+        return dateTime.getYear() * 100 + dateTime.getMonthValue();
     }
 }
@@ -0,0 +1,84 @@
+package com.yep.domain;
+
+import javax.persistence.Column;
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Size;
+import java.io.Serializable;
+import java.time.Instant;
+
+/**
+ * A JWT which has been revoked before its expiration.
+ * <p>
+ * The token is identified by its jti claim, or by its signature when it has none. The row is only needed until the
+ * token expires, after which it is deleted.
+ *
+ * @see com.yep.security.jwt.TokenRevocationList
+ */
+@Entity
+@Table(name = "jhi_revoked_token")
+public class RevokedToken implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    @Id
+    @NotNull
+    @Size(max = 100)
+    @Column(name = "token_id", length = 100)
+    private String tokenId;
+
+    @NotNull
+    @Column(name = "expires_at", nullable = false)
+    private Instant expiresAt;
+
+    public RevokedToken() {
+    }
+
+    public RevokedToken(String tokenId, Instant expiresAt) {
+        this.tokenId = tokenId;
+        this.expiresAt = expiresAt;
+    }
+
+    public String getTokenId() {
+        return tokenId;
+    }
+
+    public void setTokenId(String tokenId) {
+        this.tokenId = tokenId;
+    }
+
+    public Instant getExpiresAt() {
+        return expiresAt;
+    }
+
+    public void setExpiresAt(Instant expiresAt) {
+        this.expiresAt = expiresAt;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        RevokedToken revokedToken = (RevokedToken) o;
+        return tokenId != null && tokenId.equals(revokedToken.tokenId);
+    }
+
+    @Override
+    public int hashCode() {
+        return tokenId != null ? tokenId.hashCode() : 0;
+    }
+
+    @Override
+    public String toString() {
+        return "RevokedToken{" +
+            "tokenId='" + tokenId + "'" +
+            ", expiresAt=" + expiresAt +
+            "}";
+    }
+}
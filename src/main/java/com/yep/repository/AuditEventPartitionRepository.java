@@ -0,0 +1,190 @@
+package com.yep.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Manages the monthly partitions of the audit events on MySQL, where the table is partitioned by range of
+ * event_bucket, see the 20180411120000 changelog.
+ * <p>
+ * Each month has its own partition, named after its bucket (p201804 holds the buckets below 201805), followed by
+ * pmax which holds the months not partitioned yet. The events written before the table was partitioned are split
+ * out of pmax once, by the AuditEventPartitionMigration of Liquibase. Afterwards the partitions are created ahead of
+ * the months, while pmax is still empty, so that creating them moves no row; dropping the partition of an expired
+ * month then costs the same whatever its size. The other databases have no partitions, their expired buckets are
+ * deleted.
+ */
+@Repository
+public class AuditEventPartitionRepository {
+
+    static final String TABLE_NAME = "jhi_persistent_audit_event";
+
+    static final String MAX_PARTITION = "pmax";
+
+    private static final String PARTITION_PREFIX = "p";
+
+    private static final String LOCK_NAME = "jhi_persistent_audit_event_partitions";
+
+    private static final String PARTITIONS_QUERY = "SELECT PARTITION_NAME FROM INFORMATION_SCHEMA.PARTITIONS " +
+        "WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ? AND PARTITION_NAME IS NOT NULL";
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventPartitionRepository.class);
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private Boolean mysql;
+
+    public AuditEventPartitionRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * @return true if the audit events table is partitioned, which is only the case on MySQL
+     */
+    public boolean isPartitioned() throws MetaDataAccessException {
+        return isMySql() && findPartitionNames().contains(MAX_PARTITION);
+    }
+
+    /**
+     * Run a task holding a MySQL named lock, so that the instances do not alter the partitions at the same time.
+     *
+     * @param task the task to run
+     * @return true if the task ran, false if another instance held the lock
+     */
+    public boolean runLocked(Runnable task) {
+        return jdbcTemplate.execute((ConnectionCallback<Boolean>) connection -> {
+            // The lock belongs to the connection, which is kept until it is released
+            try (PreparedStatement lock = connection.prepareStatement("SELECT GET_LOCK(?, 0)")) {
+                lock.setString(1, LOCK_NAME);
+                try (ResultSet result = lock.executeQuery()) {
+                    if (!result.next() || result.getInt(1) != 1) {
+                        return false;
+                    }
+                }
+            }
+            try {
+                task.run();
+                return true;
+            } finally {
+                try (PreparedStatement release = connection.prepareStatement("SELECT RELEASE_LOCK(?)")) {
+                    release.setString(1, LOCK_NAME);
+                    release.executeQuery().close();
+                }
+            }
+        });
+    }
+
+    /**
+     * Create the monthly partitions up to a bucket, by splitting them out of pmax.
+     * <p>
+     * This is skipped while pmax holds events, as they would all be copied: the first partitions are created by
+     * Liquibase, and then pmax only receives events if their month has no partition yet.
+     *
+     * @param lastBucket the last bucket which should have its own partition
+     */
+    public void createPartitionsUntil(int lastBucket) {
+        List<Integer> buckets = findPartitionBuckets();
+        int firstBucket = buckets.isEmpty() ? lastBucket : nextBucket(buckets.get(buckets.size() - 1));
+        if (firstBucket > lastBucket) {
+            return;
+        }
+        if (!jdbcTemplate.queryForList("SELECT 1 FROM " + TABLE_NAME + " PARTITION (" + MAX_PARTITION + ") LIMIT 1",
+                Integer.class).isEmpty()) {
+            log.warn("The audit event partitions from {} are not created, as {} is not empty", firstBucket, MAX_PARTITION);
+            return;
+        }
+        List<Integer> newBuckets = bucketsBetween(firstBucket, lastBucket);
+        jdbcTemplate.execute(reorganizeStatement(newBuckets));
+        log.debug("Created the audit event partitions of {}", newBuckets);
+    }
+
+    /**
+     * Drop the partitions of the buckets before a bucket, with all their events.
+     *
+     * @param bucket the oldest bucket to keep
+     * @return the dropped buckets
+     */
+    public List<Integer> dropPartitionsBefore(int bucket) {
+        List<Integer> expiredBuckets = findPartitionBuckets().stream()
+            .filter(partitionBucket -> partitionBucket < bucket)
+            .collect(Collectors.toList());
+        if (!expiredBuckets.isEmpty()) {
+            jdbcTemplate.execute(dropStatement(expiredBuckets));
+        }
+        return expiredBuckets;
+    }
+
+    /**
+     * @return the statement splitting the partitions of the buckets out of pmax
+     */
+    public static String reorganizeStatement(List<Integer> buckets) {
+        StringBuilder statement = new StringBuilder("ALTER TABLE ").append(TABLE_NAME)
+            .append(" REORGANIZE PARTITION ").append(MAX_PARTITION).append(" INTO (");
+        for (int bucket : buckets) {
+            statement.append("PARTITION ").append(PARTITION_PREFIX).append(bucket)
+                .append(" VALUES LESS THAN (").append(nextBucket(bucket)).append("), ");
+        }
+        return statement.append("PARTITION ").append(MAX_PARTITION).append(" VALUES LESS THAN MAXVALUE)").toString();
+    }
+
+    static String dropStatement(List<Integer> buckets) {
+        return "ALTER TABLE " + TABLE_NAME + " DROP PARTITION " + buckets.stream()
+            .map(bucket -> PARTITION_PREFIX + bucket)
+            .collect(Collectors.joining(", "));
+    }
+
+    /**
+     * @return the buckets from the first bucket to the last one, both included
+     */
+    public static List<Integer> bucketsBetween(int firstBucket, int lastBucket) {
+        List<Integer> buckets = new ArrayList<>();
+        for (int bucket = firstBucket; bucket <= lastBucket; bucket = nextBucket(bucket)) {
+            buckets.add(bucket);
+        }
+        return buckets;
+    }
+
+    /**
+     * @return the bucket of the month after the bucket
+     */
+    public static int nextBucket(int bucket) {
+        return bucket % 100 == 12 ? (bucket / 100 + 1) * 100 + 1 : bucket + 1;
+    }
+
+    /**
+     * @return the buckets of the monthly partitions, sorted
+     */
+    private List<Integer> findPartitionBuckets() {
+        return findPartitionNames().stream()
+            .filter(name -> !MAX_PARTITION.equals(name))
+            .map(name -> Integer.valueOf(name.substring(PARTITION_PREFIX.length())))
+            .sorted()
+            .collect(Collectors.toList());
+    }
+
+    private List<String> findPartitionNames() {
+        return jdbcTemplate.queryForList(PARTITIONS_QUERY, String.class, TABLE_NAME);
+    }
+
+    private synchronized boolean isMySql() throws MetaDataAccessException {
+        if (mysql == null) {
+            mysql = "MySQL".equals(JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName"));
+        }
+        return mysql;
+    }
+}
@@ -0,0 +1,349 @@
+package com.yep.repository;
+
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.AuditEventRollup;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Counter of the audit events per minute, type and principal.
+ * <p>
+ * The events are counted in memory, in a ring of application.audit-events.rollup-ring-minutes per-minute buckets.
+ * Every rollup-compaction-interval-millis, the buckets of the past minutes are taken out of the ring and inserted
+ * into the jhi_audit_event_rollup table. The rollups then only read the summary table and the buckets still in
+ * memory, instead of the raw events.
+ * <p>
+ * While the table cannot be written, the buckets out of the ring are kept in memory, up to
+ * application.audit-events.rollup-max-pending-minutes of them: the oldest ones are then dropped.
+ */
+@Component
+public class AuditEventRollupCounter {
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventRollupCounter.class);
+
+    private final AuditEventRollupRepository auditEventRollupRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final AtomicReferenceArray<Bucket> ring;
+
+    // Buckets out of the ring and not written yet, guarded by the compaction lock
+    private final List<Bucket> closedBuckets = new ArrayList<>();
+
+    // Held for writing while buckets move out of the ring or out of memory, so that the rollups count them once
+    private final ReadWriteLock compactionLock = new ReentrantReadWriteLock();
+
+    private final int maxPendingMinutes;
+
+    public AuditEventRollupCounter(AuditEventRollupRepository auditEventRollupRepository,
+            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties) {
+        this.auditEventRollupRepository = auditEventRollupRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.ring = new AtomicReferenceArray<>(applicationProperties.getAuditEvents().getRollupRingMinutes());
+        this.maxPendingMinutes = applicationProperties.getAuditEvents().getRollupMaxPendingMinutes();
+    }
+
+    /**
+     * Count an audit event, in the minute of its timestamp.
+     *
+     * @param event the audit event
+     */
+    public void add(AuditEvent event) {
+        long minute = TimeUnit.MILLISECONDS.toMinutes(event.getTimestamp().getTime());
+        Key key = new Key(event.getType(), event.getPrincipal());
+        while (!bucketOf(minute).increment(key)) {
+            // The bucket was closed by a compaction meanwhile, the event goes to a new one
+        }
+    }
+
+    private Bucket bucketOf(long minute) {
+        int slot = (int) Math.floorMod(minute, (long) ring.length());
+        while (true) {
+            Bucket bucket = ring.get(slot);
+            if (bucket == null) {
+                Bucket created = new Bucket(minute);
+                if (ring.compareAndSet(slot, null, created)) {
+                    return created;
+                }
+            } else if (bucket.minute == minute) {
+                return bucket;
+            } else if (bucket.minute < minute) {
+                // The ring went round before the bucket was compacted
+                close(slot, bucket);
+            } else {
+                return lateBucket(minute);
+            }
+        }
+    }
+
+    private void close(int slot, Bucket bucket) {
+        Lock lock = compactionLock.writeLock();
+        lock.lock();
+        try {
+            if (ring.compareAndSet(slot, bucket, null)) {
+                addClosedBucket(bucket);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Add a bucket out of the ring, dropping the oldest one when there are too many. Must hold the compaction lock.
+     */
+    private void addClosedBucket(Bucket bucket) {
+        if (closedBuckets.size() >= maxPendingMinutes) {
+            Bucket dropped = closedBuckets.remove(0);
+            dropped.close();
+            log.warn("Dropped the audit event rollups of minute {}, as {} minutes are waiting to be written",
+                dropped.start(), maxPendingMinutes);
+        }
+        closedBuckets.add(bucket);
+    }
+
+    /**
+     * Get a bucket outside of the ring, for an event older than the minutes it holds.
+     */
+    private Bucket lateBucket(long minute) {
+        Lock lock = compactionLock.writeLock();
+        lock.lock();
+        try {
+            for (Bucket bucket : closedBuckets) {
+                if (bucket.minute == minute && !bucket.closed) {
+                    return bucket;
+                }
+            }
+            Bucket bucket = new Bucket(minute);
+            addClosedBucket(bucket);
+            return bucket;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Write the counts of the past minutes to the database.
+     */
+    @Scheduled(fixedDelayString = "${application.audit-events.rollup-compaction-interval-millis:60000}")
+    public void compact() {
+        compact(TimeUnit.MILLISECONDS.toMinutes(System.currentTimeMillis()));
+    }
+
+    @PreDestroy
+    public void destroy() {
+        compact(Long.MAX_VALUE);
+    }
+
+    /**
+     * Write the counts of the buckets before a minute, and of the buckets already out of the ring, to the database.
+     * <p>
+     * The rows are inserted without the compaction lock, which is only held while the transaction commits: the
+     * written buckets then leave memory as their counts reach the table. When the write fails, the buckets are kept
+     * for the next compaction.
+     *
+     * @param beforeMinute the first minute to keep in memory, in minutes since the epoch
+     */
+    synchronized void compact(long beforeMinute) {
+        Lock lock = compactionLock.writeLock();
+        List<Bucket> writtenBuckets;
+        List<AuditEventRollup> rollups = new ArrayList<>();
+        lock.lock();
+        try {
+            for (int slot = 0; slot < ring.length(); slot++) {
+                Bucket bucket = ring.get(slot);
+                if (bucket != null && bucket.minute < beforeMinute && ring.compareAndSet(slot, bucket, null)) {
+                    addClosedBucket(bucket);
+                }
+            }
+            writtenBuckets = new ArrayList<>(closedBuckets);
+            for (Bucket bucket : writtenBuckets) {
+                bucket.close();
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (writtenBuckets.isEmpty()) {
+            return;
+        }
+        // Closed, so their counts no longer change
+        for (Bucket bucket : writtenBuckets) {
+            bucket.collect(rollups, null, null);
+        }
+        try {
+            transactionTemplate.execute(status -> {
+                auditEventRollupRepository.save(rollups);
+                auditEventRollupRepository.flush();
+                TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                    @Override
+                    public void beforeCompletion() {
+                        lock.lock();
+                    }
+
+                    @Override
+                    public void afterCompletion(int status) {
+                        try {
+                            if (status == STATUS_COMMITTED) {
+                                closedBuckets.removeAll(writtenBuckets);
+                            }
+                        } finally {
+                            lock.unlock();
+                        }
+                    }
+                });
+                return null;
+            });
+            log.debug("Compacted {} audit event rollups of {} minutes", rollups.size(), writtenBuckets.size());
+        } catch (RuntimeException e) {
+            log.error("Could not write the audit event rollups, they are kept for the next compaction", e);
+        }
+    }
+
+    /**
+     * Get the counts of the events per minute, type and principal, from the database and from memory.
+     * <p>
+     * A minute, type and principal can come back several times, its count is the sum of them all. This must run on
+     * the primary database, which holds the counts as soon as they leave memory.
+     *
+     * @param fromDate the start of the period, included
+     * @param toDate the end of the period, excluded
+     * @param type the type of the events to count, or null for all types
+     * @param principal the principal of the events to count, or null for all principals
+     * @return the rollups, which are not managed
+     */
+    public List<AuditEventRollup> findRollups(Instant fromDate, Instant toDate, String type, String principal) {
+        Lock lock = compactionLock.readLock();
+        lock.lock();
+        try {
+            List<AuditEventRollup> rollups =
+                new ArrayList<>(auditEventRollupRepository.sumByMinute(fromDate, toDate, type, principal));
+            for (int slot = 0; slot < ring.length(); slot++) {
+                Bucket bucket = ring.get(slot);
+                if (bucket != null && bucket.isWithin(fromDate, toDate)) {
+                    bucket.collect(rollups, type, principal);
+                }
+            }
+            for (Bucket bucket : closedBuckets) {
+                if (bucket.isWithin(fromDate, toDate)) {
+                    bucket.collect(rollups, type, principal);
+                }
+            }
+            return rollups;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private static final class Key {
+
+        private final String type;
+
+        private final String principal;
+
+        private Key(String type, String principal) {
+            this.type = type;
+            this.principal = principal;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return Objects.equals(type, key.type) && Objects.equals(principal, key.principal);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(type, principal);
+        }
+    }
+
+    private static final class Bucket {
+
+        private final long minute;
+
+        private final Map<Key, LongAdder> counts = new ConcurrentHashMap<>();
+
+        // Held for reading while counting, for writing when closing the bucket
+        private final ReadWriteLock lock = new ReentrantReadWriteLock();
+
+        // Only set with both locks held for writing
+        private boolean closed;
+
+        private Bucket(long minute) {
+            this.minute = minute;
+        }
+
+        /**
+         * @return false if the bucket is closed
+         */
+        private boolean increment(Key key) {
+            Lock readLock = lock.readLock();
+            readLock.lock();
+            try {
+                if (closed) {
+                    return false;
+                }
+                counts.computeIfAbsent(key, k -> new LongAdder()).increment();
+                return true;
+            } finally {
+                readLock.unlock();
+            }
+        }
+
+        private void close() {
+            Lock writeLock = lock.writeLock();
+            writeLock.lock();
+            closed = true;
+            writeLock.unlock();
+        }
+
+        private Instant start() {
+            return Instant.ofEpochSecond(TimeUnit.MINUTES.toSeconds(minute));
+        }
+
+        private boolean isWithin(Instant fromDate, Instant toDate) {
+            Instant start = start();
+            return !start.isBefore(fromDate) && start.isBefore(toDate);
+        }
+
+        private void collect(List<AuditEventRollup> rollups, String type, String principal) {
+            Instant start = start();
+            counts.forEach((key, count) -> {
+                long sum = count.sum();
+                if (sum > 0 && (type == null || type.equals(key.type))
+                    && (principal == null || principal.equals(key.principal))) {
+                    rollups.add(new AuditEventRollup(start, key.type, key.principal, sum));
+                }
+            });
+        }
+    }
+}
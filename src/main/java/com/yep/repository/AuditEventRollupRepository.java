@@ -0,0 +1,36 @@
+package com.yep.repository;
+
+import com.yep.domain.AuditEventRollup;
+import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * Spring Data JPA repository for the AuditEventRollup entity.
+ */
+public interface AuditEventRollupRepository extends JpaRepository<AuditEventRollup, Long> {
+
+    /**
+     * Sum the rows of each minute, type and principal, from fromDate included to toDate excluded.
+     * <p>
+     * The type and principal are only filtered on when they are not null. The rollups returned are not managed.
+     */
+    @Query("select new com.yep.domain.AuditEventRollup(r.bucketStart, r.auditEventType, r.principal, sum(r.eventCount)) " +
+        "from AuditEventRollup r " +
+        "where r.bucketStart >= :fromDate and r.bucketStart < :toDate " +
+        "and (:type is null or r.auditEventType = :type) " +
+        "and (:principal is null or r.principal = :principal) " +
+        "group by r.bucketStart, r.auditEventType, r.principal")
+    List<AuditEventRollup> sumByMinute(@Param("fromDate") Instant fromDate, @Param("toDate") Instant toDate,
+        @Param("type") String type, @Param("principal") String principal);
+
+    @Modifying
+    @Transactional
+    @Query("delete from AuditEventRollup r where r.bucketStart < :date")
+    int deleteByBucketStartBefore(@Param("date") Instant date);
+}
@@ -0,0 +1,213 @@
+package com.yep.repository;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.yep.config.ApplicationProperties;
+import com.yep.config.ApplicationProperties.AuditEvents.OverflowPolicy;
+import com.yep.domain.PersistentAuditEvent;
+
+import org.hibernate.Session;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.persistence.EntityManager;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Writer of the persistent audit events.
+ * <p>
+ * With application.audit-events.async-writes, the events are queued and a background thread writes them every
+ * batch-size events or flush-interval-millis, whichever comes first, each batch in a single transaction and JDBC
+ * batch. The request threads then neither open a transaction nor borrow a connection. When the queue is full, the
+ * overflow-policy decides whether to wait, to drop the oldest event or to write the event synchronously.
+ * <p>
+ * The "queue-depth" gauge, the "flushes" timer and the "dropped" and "failed" meters tell how the writer keeps up.
+ */
+@Component
+public class AuditEventWriter {
+
+    private final Logger log = LoggerFactory.getLogger(AuditEventWriter.class);
+
+    private final PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    private final EntityManager entityManager;
+
+    private final TransactionTemplate transactionTemplate;
+
+    private final ApplicationProperties.AuditEvents properties;
+
+    private final Queue<PersistentAuditEvent> queue = new ConcurrentLinkedQueue<>();
+
+    // One permit per free slot of the queue, as the size of a ConcurrentLinkedQueue is not constant time
+    private final Semaphore freeSlots;
+
+    private final Timer flushes;
+
+    private final Meter dropped;
+
+    private final Meter failed;
+
+    private volatile Thread writerThread;
+
+    private volatile boolean running;
+
+    public AuditEventWriter(PersistenceAuditEventRepository persistenceAuditEventRepository, EntityManager entityManager,
+            PlatformTransactionManager transactionManager, ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
+        this.persistenceAuditEventRepository = persistenceAuditEventRepository;
+        this.entityManager = entityManager;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+        this.properties = applicationProperties.getAuditEvents();
+        this.freeSlots = new Semaphore(properties.getQueueCapacity());
+        this.flushes = metricRegistry.timer(MetricRegistry.name(AuditEventWriter.class, "flushes"));
+        this.dropped = metricRegistry.meter(MetricRegistry.name(AuditEventWriter.class, "dropped"));
+        this.failed = metricRegistry.meter(MetricRegistry.name(AuditEventWriter.class, "failed"));
+        metricRegistry.register(MetricRegistry.name(AuditEventWriter.class, "queue-depth"), (Gauge<Integer>) this::queueDepth);
+    }
+
+    @PostConstruct
+    public void start() {
+        if (!properties.isAsyncWrites()) {
+            return;
+        }
+        running = true;
+        writerThread = new Thread(this::run, "audit-event-writer");
+        writerThread.setDaemon(true);
+        writerThread.start();
+    }
+
+    /**
+     * Stop the background thread, once it has written the queued events.
+     */
+    @PreDestroy
+    public void stop() throws InterruptedException {
+        Thread thread = writerThread;
+        if (thread == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(thread);
+        thread.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    /**
+     * Write an audit event, either now or in a later batch.
+     *
+     * @param event the audit event to write
+     */
+    public void write(PersistentAuditEvent event) {
+        if (!running) {
+            writeNow(Collections.singletonList(event));
+            return;
+        }
+        if (!freeSlots.tryAcquire() && !makeRoom()) {
+            writeNow(Collections.singletonList(event));
+            return;
+        }
+        queue.add(event);
+        if (queueDepth() >= properties.getBatchSize()) {
+            LockSupport.unpark(writerThread);
+        }
+    }
+
+    /**
+     * Apply the overflow policy to a full queue.
+     *
+     * @return true if a slot was taken for the event, false if it should be written synchronously
+     */
+    private boolean makeRoom() {
+        OverflowPolicy overflowPolicy = properties.getOverflowPolicy();
+        if (overflowPolicy == OverflowPolicy.BLOCK) {
+            try {
+                freeSlots.acquire();
+                return true;
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            }
+        }
+        if (overflowPolicy == OverflowPolicy.DROP_OLDEST) {
+            do {
+                PersistentAuditEvent oldest = queue.poll();
+                if (oldest != null) {
+                    log.warn("Audit event queue full, dropping the {} event of {}", oldest.getAuditEventType(),
+                        oldest.getPrincipal());
+                    dropped.mark();
+                    freeSlots.release();
+                }
+            } while (!freeSlots.tryAcquire());
+            return true;
+        }
+        return false;
+    }
+
+    private int queueDepth() {
+        return properties.getQueueCapacity() - freeSlots.availablePermits();
+    }
+
+    private void run() {
+        long flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(properties.getFlushIntervalMillis());
+        long nextFlush = System.nanoTime() + flushIntervalNanos;
+        while (running) {
+            long remainingNanos = nextFlush - System.nanoTime();
+            if (remainingNanos > 0 && queueDepth() < properties.getBatchSize()) {
+                LockSupport.parkNanos(this, remainingNanos);
+                continue;
+            }
+            flush();
+            nextFlush = System.nanoTime() + flushIntervalNanos;
+        }
+        flush();
+    }
+
+    /**
+     * Write the queued events, in batches.
+     */
+    private void flush() {
+        List<PersistentAuditEvent> batch = new ArrayList<>(properties.getBatchSize());
+        PersistentAuditEvent event;
+        while ((event = queue.poll()) != null) {
+            freeSlots.release();
+            batch.add(event);
+            if (batch.size() == properties.getBatchSize()) {
+                writeBatch(batch);
+                batch.clear();
+            }
+        }
+        if (!batch.isEmpty()) {
+            writeBatch(batch);
+        }
+    }
+
+    private void writeBatch(List<PersistentAuditEvent> batch) {
+        try (Timer.Context ignored = flushes.time()) {
+            writeNow(batch);
+        } catch (RuntimeException e) {
+            log.error("Could not write {} audit events", batch.size(), e);
+            failed.mark(batch.size());
+        }
+    }
+
+    private void writeNow(List<PersistentAuditEvent> events) {
+        transactionTemplate.execute(status -> {
+            entityManager.unwrap(Session.class).setJdbcBatchSize(events.size());
+            return persistenceAuditEventRepository.save(events);
+        });
+    }
+}
@@ -1,6 +1,7 @@
 package com.yep.repository;
 
 import com.yep.config.Constants;
+import com.yep.config.audit.AuditEventBroadcaster;
 import com.yep.config.audit.AuditEventConverter;
 import com.yep.domain.PersistentAuditEvent;
 
@@ -9,8 +10,6 @@ import org.slf4j.LoggerFactory;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.boot.actuate.audit.AuditEventRepository;
 import org.springframework.stereotype.Repository;
-import org.springframework.transaction.annotation.Propagation;
-import org.springframework.transaction.annotation.Transactional;
 
 import java.util.Date;
 import java.util.HashMap;
@@ -26,7 +25,7 @@ public class CustomAuditEventRepository implements AuditEventRepository {
     private static final String AUTHORIZATION_FAILURE = "AUTHORIZATION_FAILURE";
 
     /**
-     * Should be the same as in Liquibase migration.
+     * Maximum length of each event data value, which keeps the event_data column compact.
      */
     protected static final int EVENT_DATA_COLUMN_MAX_LENGTH = 255;
 
@@ -34,13 +33,23 @@ public class CustomAuditEventRepository implements AuditEventRepository {
 
     private final AuditEventConverter auditEventConverter;
 
+    private final AuditEventWriter auditEventWriter;
+
+    private final AuditEventBroadcaster auditEventBroadcaster;
+
+    private final AuditEventRollupCounter auditEventRollupCounter;
+
     private final Logger log = LoggerFactory.getLogger(getClass());
 
     public CustomAuditEventRepository(PersistenceAuditEventRepository persistenceAuditEventRepository,
-            AuditEventConverter auditEventConverter) {
+            AuditEventConverter auditEventConverter, AuditEventWriter auditEventWriter,
+            AuditEventBroadcaster auditEventBroadcaster, AuditEventRollupCounter auditEventRollupCounter) {
 
         this.persistenceAuditEventRepository = persistenceAuditEventRepository;
         this.auditEventConverter = auditEventConverter;
+        this.auditEventWriter = auditEventWriter;
+        this.auditEventBroadcaster = auditEventBroadcaster;
+        this.auditEventRollupCounter = auditEventRollupCounter;
     }
 
     @Override
@@ -71,8 +80,11 @@ public class CustomAuditEventRepository implements AuditEventRepository {
         return auditEventConverter.convertToAuditEvent(persistentAuditEvents);
     }
 
+    /**
+     * Add an audit event, which the AuditEventWriter writes in its own transaction, possibly later, and publish it to
+     * the subscribers of the AuditEventBroadcaster. It is also counted in the rollups.
+     */
     @Override
-    @Transactional(propagation = Propagation.REQUIRES_NEW)
     public void add(AuditEvent event) {
         if (!AUTHORIZATION_FAILURE.equals(event.getType()) &&
             !Constants.ANONYMOUS_USER.equals(event.getPrincipal())) {
@@ -83,7 +95,9 @@ public class CustomAuditEventRepository implements AuditEventRepository {
             persistentAuditEvent.setAuditEventDate(event.getTimestamp().toInstant());
             Map<String, String> eventData = auditEventConverter.convertDataToStrings(event.getData());
             persistentAuditEvent.setData(truncate(eventData));
-            persistenceAuditEventRepository.save(persistentAuditEvent);
+            auditEventWriter.write(persistentAuditEvent);
+            auditEventBroadcaster.publish(auditEventConverter.convertToAuditEvent(persistentAuditEvent));
+            auditEventRollupCounter.add(event);
         }
     }
 
@@ -100,7 +114,7 @@ public class CustomAuditEventRepository implements AuditEventRepository {
                     int length = value.length();
                     if (length > EVENT_DATA_COLUMN_MAX_LENGTH) {
                         value = value.substring(0, EVENT_DATA_COLUMN_MAX_LENGTH);
-                        log.warn("Event data for {} too long ({}) has been truncated to {}. Consider increasing column width.",
+                        log.warn("Event data for {} too long ({}) has been truncated to {}. Consider increasing the maximum length.",
                                  entry.getKey(), length, EVENT_DATA_COLUMN_MAX_LENGTH);
                     }
                 }
@@ -3,23 +3,60 @@ package com.yep.repository;
 import com.yep.domain.PersistentAuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
+import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.util.List;
 
+import static com.yep.domain.PersistentAuditEvent.bucketOf;
+
 /**
  * Spring Data JPA repository for the PersistentAuditEvent entity.
+ * <p>
+ * The date range queries also select the monthly buckets overlapping the range, so that only those are read.
  */
 public interface PersistenceAuditEventRepository extends JpaRepository<PersistentAuditEvent, Long> {
 
     List<PersistentAuditEvent> findByPrincipal(String principal);
 
-    List<PersistentAuditEvent> findByAuditEventDateAfter(Instant after);
+    default List<PersistentAuditEvent> findByAuditEventDateAfter(Instant after) {
+        return findByAuditEventBucketGreaterThanEqualAndAuditEventDateAfter(bucketOf(after), after);
+    }
+
+    List<PersistentAuditEvent> findByAuditEventBucketGreaterThanEqualAndAuditEventDateAfter(Integer bucket, Instant after);
 
     List<PersistentAuditEvent> findByPrincipalAndAuditEventDateAfter(String principal, Instant after);
 
     List<PersistentAuditEvent> findByPrincipalAndAuditEventDateAfterAndAuditEventType(String principle, Instant after, String type);
 
-    Page<PersistentAuditEvent> findAllByAuditEventDateBetween(Instant fromDate, Instant toDate, Pageable pageable);
+    default Page<PersistentAuditEvent> findAllByAuditEventDateBetween(Instant fromDate, Instant toDate, Pageable pageable) {
+        return findAllByAuditEventBucketBetweenAndAuditEventDateBetween(bucketOf(fromDate), bucketOf(toDate), fromDate,
+            toDate, pageable);
+    }
+
+    Page<PersistentAuditEvent> findAllByAuditEventBucketBetweenAndAuditEventDateBetween(Integer fromBucket,
+        Integer toBucket, Instant fromDate, Instant toDate, Pageable pageable);
+
+    Slice<PersistentAuditEvent> findSliceBy(Pageable pageable);
+
+    default Slice<PersistentAuditEvent> findSliceByAuditEventDateBetween(Instant fromDate, Instant toDate, Pageable pageable) {
+        return findSliceByAuditEventBucketBetweenAndAuditEventDateBetween(bucketOf(fromDate), bucketOf(toDate), fromDate,
+            toDate, pageable);
+    }
+
+    Slice<PersistentAuditEvent> findSliceByAuditEventBucketBetweenAndAuditEventDateBetween(Integer fromBucket,
+        Integer toBucket, Instant fromDate, Instant toDate, Pageable pageable);
+
+    @Query("select distinct e.auditEventBucket from PersistentAuditEvent e where e.auditEventBucket < :bucket")
+    List<Integer> findBucketsBefore(@Param("bucket") Integer bucket);
+
+    @Modifying
+    @Transactional
+    @Query("delete from PersistentAuditEvent e where e.auditEventBucket = :bucket")
+    int deleteByAuditEventBucket(@Param("bucket") Integer bucket);
 }
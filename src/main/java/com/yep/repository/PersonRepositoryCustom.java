@@ -0,0 +1,63 @@
+package com.yep.repository;
+
+import com.yep.domain.Person;
+import com.yep.service.dto.PersonDTO;
+
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.jpa.domain.Specification;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Custom queries for the Person entity, which Spring Data JPA cannot derive.
+ */
+public interface PersonRepositoryCustom {
+
+    /**
+     * Return a {@link Page} of the people matching the specification, projected to {@link PersonDTO}.
+     * <p>
+     * Only the returned columns are selected, into DTOs which are not managed by the persistence context.
+     *
+     * @param spec the specification to match, may be {@code null}
+     * @param pageable the page to read
+     * @return the matching people
+     */
+    Page<PersonDTO> findPage(Specification<Person> spec, Pageable pageable);
+
+    /**
+     * Return a {@link Slice} of the people matching the specification, projected to {@link PersonDTO}, without
+     * running a count query.
+     * <p>
+     * The sort of the pageable is only applied if the specification did not set an order itself.
+     *
+     * @param spec the specification to match, may be {@code null}
+     * @param pageable the page to read
+     * @return the matching people, with one extra row read to know if there is a next slice
+     */
+    Slice<PersonDTO> findSlice(Specification<Person> spec, Pageable pageable);
+
+    /**
+     * Return the people with the given ids, projected to {@link PersonDTO}, in no particular order.
+     *
+     * @param ids the ids of the people
+     * @return the people found
+     */
+    List<PersonDTO> findAllByIdIn(Collection<Long> ids);
+
+    /**
+     * Stream the people matching the specification, ordered by id, through a forward-only cursor.
+     * <p>
+     * Each person is detached from the persistence context as soon as it is read, and the second-level cache is
+     * bypassed, so memory does not grow with the number of rows. The stream must be consumed inside a transaction,
+     * and closed.
+     *
+     * @param spec the specification to match, may be {@code null}
+     * @param fetchSize the number of rows the JDBC driver reads per round trip
+     * @return the matching people
+     */
+    Stream<Person> stream(Specification<Person> spec, int fetchSize);
+}
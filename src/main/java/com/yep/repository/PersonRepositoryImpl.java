@@ -0,0 +1,131 @@
+package com.yep.repository;
+
+import com.yep.domain.Person;
+import com.yep.domain.Person_;
+import com.yep.service.dto.PersonDTO;
+
+import org.hibernate.CacheMode;
+import org.hibernate.annotations.QueryHints;
+import org.hibernate.query.Query;
+import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.jpa.domain.Specification;
+import org.springframework.data.jpa.repository.query.QueryUtils;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import javax.persistence.TypedQuery;
+import javax.persistence.criteria.CompoundSelection;
+import javax.persistence.criteria.CriteriaBuilder;
+import javax.persistence.criteria.CriteriaQuery;
+import javax.persistence.criteria.Predicate;
+import javax.persistence.criteria.Root;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Implementation of the {@link PersonRepositoryCustom} queries, picked up by Spring Data JPA through its name.
+ */
+public class PersonRepositoryImpl implements PersonRepositoryCustom {
+
+    @PersistenceContext
+    private EntityManager entityManager;
+
+    @Override
+    public Page<PersonDTO> findPage(Specification<Person> spec, Pageable pageable) {
+        List<PersonDTO> content = findProjected(spec, pageable, pageable.getPageSize());
+        if (pageable.getOffset() == 0 && content.size() < pageable.getPageSize()) {
+            return new PageImpl<>(content, pageable, content.size());
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Long> countQuery = cb.createQuery(Long.class);
+        Root<Person> root = from(spec, countQuery, cb);
+        countQuery.select(cb.count(root));
+        // The specification may have set an order, which a count query cannot have
+        countQuery.orderBy(Collections.emptyList());
+        return new PageImpl<>(content, pageable, entityManager.createQuery(countQuery).getSingleResult());
+    }
+
+    @Override
+    public Slice<PersonDTO> findSlice(Specification<Person> spec, Pageable pageable) {
+        List<PersonDTO> content = findProjected(spec, pageable, pageable.getPageSize() + 1);
+        boolean hasNext = content.size() > pageable.getPageSize();
+        if (hasNext) {
+            content = content.subList(0, pageable.getPageSize());
+        }
+        return new SliceImpl<>(content, pageable, hasNext);
+    }
+
+    @Override
+    public List<PersonDTO> findAllByIdIn(Collection<Long> ids) {
+        if (ids.isEmpty()) {
+            return Collections.emptyList();
+        }
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PersonDTO> query = cb.createQuery(PersonDTO.class);
+        Root<Person> root = query.from(Person.class);
+        query.select(construct(root, cb)).where(root.get(Person_.id).in(ids));
+        return withReadOnlyHints(entityManager.createQuery(query), ids.size()).getResultList();
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public Stream<Person> stream(Specification<Person> spec, int fetchSize) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<Person> query = cb.createQuery(Person.class);
+        Root<Person> root = from(spec, query, cb);
+        query.select(root);
+        query.orderBy(cb.asc(root.get(Person_.id)));
+        Query<Person> hibernateQuery = withReadOnlyHints(entityManager.createQuery(query), fetchSize)
+            .setHint(QueryHints.CACHE_MODE, CacheMode.IGNORE)
+            .unwrap(Query.class);
+        // Hibernate streams over a forward-only ScrollableResults, closed with the stream
+        return hibernateQuery.stream().map(person -> {
+            entityManager.detach(person);
+            return person;
+        });
+    }
+
+    private List<PersonDTO> findProjected(Specification<Person> spec, Pageable pageable, int maxResults) {
+        CriteriaBuilder cb = entityManager.getCriteriaBuilder();
+        CriteriaQuery<PersonDTO> query = cb.createQuery(PersonDTO.class);
+        Root<Person> root = from(spec, query, cb);
+        query.select(construct(root, cb));
+        if (query.getOrderList().isEmpty() && pageable.getSort() != null) {
+            query.orderBy(QueryUtils.toOrders(pageable.getSort(), root, cb));
+        }
+        TypedQuery<PersonDTO> typedQuery = entityManager.createQuery(query)
+            .setFirstResult(pageable.getOffset())
+            .setMaxResults(maxResults);
+        return withReadOnlyHints(typedQuery, maxResults).getResultList();
+    }
+
+    private static CompoundSelection<PersonDTO> construct(Root<Person> root, CriteriaBuilder cb) {
+        return cb.construct(PersonDTO.class, root.get(Person_.id), root.get(Person_.nationalId), root.get(Person_.fullName));
+    }
+
+    /**
+     * Read the rows in as few round trips as the results need, without keeping any dirty checking snapshot.
+     */
+    private static <T> TypedQuery<T> withReadOnlyHints(TypedQuery<T> query, int fetchSize) {
+        return query
+            .setHint(QueryHints.FETCH_SIZE, fetchSize)
+            .setHint(QueryHints.READ_ONLY, true);
+    }
+
+    private Root<Person> from(Specification<Person> spec, CriteriaQuery<?> query, CriteriaBuilder cb) {
+        Root<Person> root = query.from(Person.class);
+        if (spec != null) {
+            Predicate predicate = spec.toPredicate(root, query, cb);
+            if (predicate != null) {
+                query.where(predicate);
+            }
+        }
+        return root;
+    }
+}
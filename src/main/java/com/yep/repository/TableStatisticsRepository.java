@@ -0,0 +1,75 @@
+package com.yep.repository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.support.JdbcUtils;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.stereotype.Repository;
+
+import javax.sql.DataSource;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.Optional;
+
+/**
+ * Reads row count estimates from the database statistics.
+ * <p>
+ * This is much cheaper than a {@code SELECT COUNT(*)}, but only approximate: on MySQL/InnoDB the estimate can be
+ * off by tens of percent, so it must only be used where an exact total is not needed.
+ */
+@Repository
+public class TableStatisticsRepository {
+
+    private static final String MYSQL_ESTIMATE_QUERY =
+        "SELECT TABLE_ROWS FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = DATABASE() AND TABLE_NAME = ?";
+
+    private static final String H2_ESTIMATE_QUERY =
+        "SELECT ROW_COUNT_ESTIMATE FROM INFORMATION_SCHEMA.TABLES WHERE TABLE_SCHEMA = SCHEMA() AND TABLE_NAME = ?";
+
+    private final Logger log = LoggerFactory.getLogger(TableStatisticsRepository.class);
+
+    private final DataSource dataSource;
+
+    private final JdbcTemplate jdbcTemplate;
+
+    private String databaseProductName;
+
+    public TableStatisticsRepository(DataSource dataSource) {
+        this.dataSource = dataSource;
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    /**
+     * Estimate the number of rows of a table.
+     *
+     * @param tableName the name of the table, as used in the Liquibase changelogs
+     * @return the estimated number of rows, or empty if the database does not provide one
+     */
+    public Optional<Long> estimateRowCount(String tableName) {
+        try {
+            String productName = getDatabaseProductName();
+            List<Long> estimates;
+            if ("MySQL".equals(productName)) {
+                estimates = jdbcTemplate.queryForList(MYSQL_ESTIMATE_QUERY, Long.class, tableName);
+            } else if ("H2".equals(productName)) {
+                estimates = jdbcTemplate.queryForList(H2_ESTIMATE_QUERY, Long.class, tableName.toUpperCase(Locale.ENGLISH));
+            } else {
+                return Optional.empty();
+            }
+            return estimates.stream().filter(Objects::nonNull).findFirst();
+        } catch (DataAccessException | MetaDataAccessException e) {
+            log.warn("Could not estimate the row count of {}: {}", tableName, e.getMessage());
+            return Optional.empty();
+        }
+    }
+
+    private synchronized String getDatabaseProductName() throws MetaDataAccessException {
+        if (databaseProductName == null) {
+            databaseProductName = (String) JdbcUtils.extractDatabaseMetaData(dataSource, "getDatabaseProductName");
+        }
+        return databaseProductName;
+    }
+}
@@ -1,13 +1,21 @@
 package com.yep.repository;
 
 import com.yep.domain.User;
+import com.yep.service.dto.UserDTO;
 
 import org.springframework.cache.annotation.Cacheable;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.data.jpa.repository.EntityGraph;
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
+
+import javax.persistence.QueryHint;
+import java.util.Collection;
 import java.util.List;
 import java.util.Optional;
 import java.time.Instant;
@@ -22,6 +30,10 @@ public interface UserRepository extends JpaRepository<User, Long> {
 
     String USERS_BY_EMAIL_CACHE = "usersByEmail";
 
+    String MANAGED_USERS_QUERY = "select new com.yep.service.dto.UserDTO(u.id, u.login, u.firstName, u.lastName, " +
+        "u.email, u.imageUrl, u.activated, u.langKey, u.createdBy, u.createdDate, u.lastModifiedBy, " +
+        "u.lastModifiedDate) from User u where u.login <> :login";
+
     Optional<User> findOneByActivationKey(String activationKey);
 
     List<User> findAllByActivatedIsFalseAndCreatedDateBefore(Instant dateTime);
@@ -43,5 +55,30 @@ public interface UserRepository extends JpaRepository<User, Long> {
     @Cacheable(cacheNames = USERS_BY_EMAIL_CACHE)
     Optional<User> findOneWithAuthoritiesByEmail(String email);
 
+    /**
+     * Get the users whose login or email is the principal, with their authorities: at most two, if the login of
+     * one is the email of the other.
+     */
+    @EntityGraph(attributePaths = "authorities")
+    @Query("select distinct u from User u where u.login = :principal or u.email = :principal")
+    List<User> findAllWithAuthoritiesByPrincipal(@Param("principal") String principal);
+
     Page<User> findAllByLoginNot(Pageable pageable, String login);
+
+    @Query(value = MANAGED_USERS_QUERY, countQuery = "select count(u) from User u where u.login <> :login")
+    @QueryHints({
+        @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"),
+        @QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "100")
+    })
+    Page<UserDTO> findAllDTOByLoginNot(Pageable pageable, @Param("login") String login);
+
+    @Query(MANAGED_USERS_QUERY)
+    @QueryHints({
+        @QueryHint(name = org.hibernate.annotations.QueryHints.READ_ONLY, value = "true"),
+        @QueryHint(name = org.hibernate.annotations.QueryHints.FETCH_SIZE, value = "100")
+    })
+    Slice<UserDTO> findSliceDTOByLoginNot(Pageable pageable, @Param("login") String login);
+
+    @Query("select u.id, a.name from User u join u.authorities a where u.id in :ids")
+    List<Object[]> findAuthorityNamesByUserIdIn(@Param("ids") Collection<Long> ids);
 }
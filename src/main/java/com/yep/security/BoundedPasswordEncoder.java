@@ -0,0 +1,87 @@
+package com.yep.security;
+
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.Timer;
+import com.yep.config.ApplicationProperties;
+
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Password encoder running the hashing and verification of another encoder on a bounded executor.
+ * <p>
+ * The caller waits for the result, but at most as many passwords as the executor has threads are hashed at once.
+ * When its queue is full, or when the hashing takes longer than application.password-hashing.timeout-millis, a
+ * {@link PasswordHashingUnavailableException} is thrown instead. The "hashing-time" timer measures the hashing itself,
+ * without the time spent queued.
+ */
+public class BoundedPasswordEncoder implements PasswordEncoder {
+
+    private final PasswordEncoder delegate;
+
+    private final AsyncTaskExecutor executor;
+
+    private final long timeoutMillis;
+
+    private final long retryAfterSeconds;
+
+    private final Timer hashingTime;
+
+    public BoundedPasswordEncoder(PasswordEncoder delegate, AsyncTaskExecutor executor,
+            ApplicationProperties applicationProperties, MetricRegistry metricRegistry) {
+        this.delegate = delegate;
+        this.executor = executor;
+        this.timeoutMillis = applicationProperties.getPasswordHashing().getTimeoutMillis();
+        this.retryAfterSeconds = applicationProperties.getPasswordHashing().getRetryAfterSeconds();
+        this.hashingTime = metricRegistry.timer(MetricRegistry.name(BoundedPasswordEncoder.class, "hashing-time"));
+    }
+
+    @Override
+    public String encode(CharSequence rawPassword) {
+        return hash(() -> delegate.encode(rawPassword));
+    }
+
+    @Override
+    public boolean matches(CharSequence rawPassword, String encodedPassword) {
+        return hash(() -> delegate.matches(rawPassword, encodedPassword));
+    }
+
+    private <T> T hash(Callable<T> hashing) {
+        Future<T> future;
+        try {
+            future = executor.submit(() -> {
+                Timer.Context context = hashingTime.time();
+                try {
+                    return hashing.call();
+                } finally {
+                    context.stop();
+                }
+            });
+        } catch (TaskRejectedException e) {
+            throw new PasswordHashingUnavailableException("Too many password hashings", retryAfterSeconds);
+        }
+        try {
+            return future.get(timeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            // A queued hashing is dropped, a running one completes but its result is ignored
+            future.cancel(false);
+            throw new PasswordHashingUnavailableException("The password hashing timed out", retryAfterSeconds);
+        } catch (InterruptedException e) {
+            future.cancel(false);
+            Thread.currentThread().interrupt();
+            throw new PasswordHashingUnavailableException("The password hashing was interrupted", retryAfterSeconds);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new IllegalStateException("The password hashing failed", e.getCause());
+        }
+    }
+}
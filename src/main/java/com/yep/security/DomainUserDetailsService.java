@@ -1,9 +1,12 @@
 package com.yep.security;
 
+import com.yep.config.ReplicaRoutingDataSource;
 import com.yep.domain.User;
 import com.yep.repository.UserRepository;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.GrantedAuthority;
 import org.springframework.security.core.authority.SimpleGrantedAuthority;
 import org.springframework.security.core.userdetails.UserDetails;
@@ -17,30 +20,86 @@ import java.util.stream.Collectors;
 
 /**
  * Authenticate a user from the database.
+ * <p>
+ * The user is first looked up in the usersByEmail and usersByLogin caches, then by its email and its login with a
+ * single query, whose result fills these caches. The principals matching no user are kept for a short time in the
+ * unknownPrincipals cache, so that repeated attempts with them do not reach the database: the UserService evicts the
+ * login and email of the users it creates or changes from these caches.
  */
 @Component("userDetailsService")
 public class DomainUserDetailsService implements UserDetailsService {
 
+    public static final String UNKNOWN_PRINCIPALS_CACHE = "unknownPrincipals";
+
     private final Logger log = LoggerFactory.getLogger(DomainUserDetailsService.class);
 
     private final UserRepository userRepository;
 
-    public DomainUserDetailsService(UserRepository userRepository) {
+    private final CacheManager cacheManager;
+
+    public DomainUserDetailsService(UserRepository userRepository, CacheManager cacheManager) {
         this.userRepository = userRepository;
+        this.cacheManager = cacheManager;
     }
 
     @Override
-    @Transactional
+    @Transactional(readOnly = true)
     public UserDetails loadUserByUsername(final String login) {
         log.debug("Authenticating {}", login);
         String lowercaseLogin = login.toLowerCase(Locale.ENGLISH);
-        Optional<User> userByEmailFromDatabase = userRepository.findOneWithAuthoritiesByEmail(lowercaseLogin);
-        return userByEmailFromDatabase.map(user -> createSpringSecurityUser(lowercaseLogin, user)).orElseGet(() -> {
-            Optional<User> userByLoginFromDatabase = userRepository.findOneWithAuthoritiesByLogin(lowercaseLogin);
-            return userByLoginFromDatabase.map(user -> createSpringSecurityUser(lowercaseLogin, user))
-                .orElseThrow(() -> new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the " +
-                    "database"));
-        });
+        Cache unknownPrincipals = cacheManager.getCache(UNKNOWN_PRINCIPALS_CACHE);
+        if (unknownPrincipals.get(lowercaseLogin) != null) {
+            throw new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database");
+        }
+        Optional<User> user = findCachedUser(lowercaseLogin);
+        if (!user.isPresent()) {
+            user = findUser(lowercaseLogin);
+        }
+        return user.map(userFromDatabase -> createSpringSecurityUser(lowercaseLogin, userFromDatabase))
+            .orElseThrow(() -> {
+                unknownPrincipals.put(lowercaseLogin, Boolean.TRUE);
+                return new UsernameNotFoundException("User " + lowercaseLogin + " was not found in the database");
+            });
+    }
+
+    /**
+     * The user with the principal as email, else the user with it as login, as long as the principal cannot be the
+     * email of another user: the emails all have an @, which the logins may have too.
+     */
+    private Optional<User> findCachedUser(String lowercaseLogin) {
+        User user = cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).get(lowercaseLogin, User.class);
+        if (user == null && !lowercaseLogin.contains("@")) {
+            user = cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(lowercaseLogin, User.class);
+        }
+        return Optional.ofNullable(user);
+    }
+
+    /**
+     * The users found are cached, so they are read from the primary rather than from a replica which may lag behind
+     * the evictions of the UserService.
+     */
+    private Optional<User> findUser(String lowercaseLogin) {
+        List<User> users;
+        try (ReplicaRoutingDataSource.PrimaryScope primary = ReplicaRoutingDataSource.forcePrimary()) {
+            users = userRepository.findAllWithAuthoritiesByPrincipal(lowercaseLogin);
+        }
+        // Cached under the keys which the UserService evicts, its login and its email
+        for (User user : users) {
+            if (lowercaseLogin.equals(user.getLogin())) {
+                cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).put(user.getLogin(), user);
+            }
+            if (lowercaseLogin.equals(user.getEmail())) {
+                cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).put(user.getEmail(), user);
+            }
+        }
+        // The email is prioritized over the login, should they be of two different users
+        Optional<User> user = users.stream()
+            .filter(candidate -> lowercaseLogin.equalsIgnoreCase(candidate.getEmail()))
+            .findFirst();
+        if (!user.isPresent()) {
+            user = users.stream().findFirst();
+        }
+        return user;
     }
 
     private org.springframework.security.core.userdetails.User createSpringSecurityUser(String lowercaseLogin, User user) {
@@ -0,0 +1,21 @@
+package com.yep.security;
+
+/**
+ * This exception is thrown when a password cannot be hashed or verified because the password hashing executor is
+ * overloaded. It is answered with a 503 (Service Unavailable).
+ */
+public class PasswordHashingUnavailableException extends RuntimeException {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long retryAfterSeconds;
+
+    public PasswordHashingUnavailableException(String message, long retryAfterSeconds) {
+        super(message);
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
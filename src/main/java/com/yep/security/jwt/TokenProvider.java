@@ -1,8 +1,10 @@
 package com.yep.security.jwt;
 
+import com.yep.config.ApplicationProperties;
 import io.github.jhipster.config.JHipsterProperties;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
 import java.util.stream.Collectors;
 import javax.annotation.PostConstruct;
 
@@ -32,8 +34,20 @@ public class TokenProvider {
 
     private final JHipsterProperties jHipsterProperties;
 
-    public TokenProvider(JHipsterProperties jHipsterProperties) {
+    private final VerifiedTokenCache verifiedTokenCache;
+
+    private final TokenRevocationList tokenRevocationList;
+
+    // Authorities of each auth claim, shared by all the tokens with that claim. Only signed tokens add to it, and they
+    // come with the few combinations of authorities the users have.
+    private final Map<String, List<GrantedAuthority>> authoritiesByClaim = new ConcurrentHashMap<>();
+
+    public TokenProvider(JHipsterProperties jHipsterProperties, ApplicationProperties applicationProperties,
+                         TokenRevocationList tokenRevocationList) {
         this.jHipsterProperties = jHipsterProperties;
+        int verifiedTokenCacheSize = applicationProperties.getJwt().getVerifiedTokenCacheSize();
+        this.verifiedTokenCache = verifiedTokenCacheSize > 0 ? new VerifiedTokenCache(verifiedTokenCacheSize) : null;
+        this.tokenRevocationList = tokenRevocationList;
     }
 
     @PostConstruct
@@ -61,6 +75,7 @@ public class TokenProvider {
         }
 
         return Jwts.builder()
+            .setId(UUID.randomUUID().toString())
             .setSubject(authentication.getName())
             .claim(AUTHORITIES_KEY, authorities)
             .signWith(SignatureAlgorithm.HS512, secretKey)
@@ -74,20 +89,99 @@ public class TokenProvider {
             .parseClaimsJws(token)
             .getBody();
 
-        Collection<? extends GrantedAuthority> authorities =
-            Arrays.stream(claims.get(AUTHORITIES_KEY).toString().split(","))
-                .map(SimpleGrantedAuthority::new)
-                .collect(Collectors.toList());
+        return getAuthentication(token, claims);
+    }
+
+    private Authentication getAuthentication(String token, Claims claims) {
+        List<GrantedAuthority> authorities =
+            authoritiesByClaim.computeIfAbsent(claims.get(AUTHORITIES_KEY).toString(), claim ->
+                Collections.unmodifiableList(Arrays.stream(claim.split(","))
+                    .map(SimpleGrantedAuthority::new)
+                    .collect(Collectors.toList())));
 
         User principal = new User(claims.getSubject(), "", authorities);
 
         return new UsernamePasswordAuthenticationToken(principal, token, authorities);
     }
 
+    /**
+     * Get the authentication of a token, if it is valid and has not been revoked.
+     * <p>
+     * The token is parsed and its signature verified only once: its authentication is then kept in the cache of
+     * verified tokens until the token expires, or is pushed out by another token. Its revocation is checked every
+     * time, so that a token revoked while in the cache is rejected as well.
+     *
+     * @param token the token
+     * @return the authentication, or null if the token is not valid
+     */
+    public Authentication getVerifiedAuthentication(String token) {
+        if (verifiedTokenCache != null) {
+            VerifiedTokenCache.VerifiedToken verifiedToken = verifiedTokenCache.get(token, System.currentTimeMillis());
+            if (verifiedToken != null) {
+                return tokenRevocationList.isRevoked(verifiedToken.getTokenId()) ? null : verifiedToken.getAuthentication();
+            }
+        }
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return null;
+        }
+        String tokenId = getTokenId(token, claims);
+        if (tokenRevocationList.isRevoked(tokenId)) {
+            log.info("Revoked JWT token.");
+            return null;
+        }
+        Authentication authentication = getAuthentication(token, claims);
+        if (verifiedTokenCache != null && claims.getExpiration() != null) {
+            verifiedTokenCache.put(token, tokenId, authentication, claims.getExpiration().getTime());
+        }
+        return authentication;
+    }
+
     public boolean validateToken(String authToken) {
+        Claims claims = parseClaims(authToken);
+        if (claims == null) {
+            return false;
+        }
+        if (tokenRevocationList.isRevoked(getTokenId(authToken, claims))) {
+            log.info("Revoked JWT token.");
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Revoke a token until it expires.
+     *
+     * @param token the token
+     * @return false if the token is not valid, and so cannot be revoked
+     */
+    public boolean revokeToken(String token) {
+        Claims claims = parseClaims(token);
+        if (claims == null) {
+            return false;
+        }
+        // The tokens created here always expire: one which does not is kept as long as a remember-me token would be
+        Date expiration = claims.getExpiration() != null ? claims.getExpiration() :
+            new Date(System.currentTimeMillis() + tokenValidityInMillisecondsForRememberMe);
+        tokenRevocationList.revoke(getTokenId(token, claims), expiration.toInstant());
+        return true;
+    }
+
+    /**
+     * The id of a token is its jti claim. The tokens created before it was added are identified by their signature.
+     */
+    private String getTokenId(String token, Claims claims) {
+        return claims.getId() != null ? claims.getId() : token.substring(token.lastIndexOf('.') + 1);
+    }
+
+    /**
+     * Parse a token and verify its signature.
+     *
+     * @return the claims of the token, or null if it is not valid
+     */
+    private Claims parseClaims(String authToken) {
         try {
-            Jwts.parser().setSigningKey(secretKey).parseClaimsJws(authToken);
-            return true;
+            return Jwts.parser().setSigningKey(secretKey).parseClaimsJws(authToken).getBody();
         } catch (SignatureException e) {
             log.info("Invalid JWT signature.");
             log.trace("Invalid JWT signature trace: {}", e);
@@ -104,6 +198,6 @@ public class TokenProvider {
             log.info("JWT token compact of handler are invalid.");
             log.trace("JWT token compact of handler are invalid trace: {}", e);
         }
-        return false;
+        return null;
     }
 }
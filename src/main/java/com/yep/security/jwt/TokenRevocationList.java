@@ -0,0 +1,139 @@
+package com.yep.security.jwt;
+
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.RevokedToken;
+import com.yep.repository.RevokedTokenRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.dao.DataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.time.Instant;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * The JWT revoked before their expiration.
+ * <p>
+ * The revoked tokens are kept in the database, and in memory behind a Bloom filter: checking a token which has not
+ * been revoked, as nearly all of them are, only reads a few bits of the filter. The few tokens the filter might
+ * contain are then looked up in the in-memory list, so that no check ever goes to the database.
+ * <p>
+ * A token stays revoked until it expires. The list is reloaded from the database at startup and then periodically,
+ * which deletes the expired tokens, rebuilds the filter without them and picks the tokens revoked by the other
+ * instances.
+ */
+@Component
+public class TokenRevocationList {
+
+    private static final double FALSE_POSITIVE_PROBABILITY = 0.01;
+
+    private final Logger log = LoggerFactory.getLogger(TokenRevocationList.class);
+
+    private final RevokedTokenRepository revokedTokenRepository;
+
+    private final int revokedTokensExpected;
+
+    // Serializes the revocations with the swaps of the revoked tokens, which are read without it
+    private final Object lock = new Object();
+
+    private volatile RevokedTokens revokedTokens;
+
+    public TokenRevocationList(RevokedTokenRepository revokedTokenRepository,
+                               ApplicationProperties applicationProperties) {
+        this.revokedTokenRepository = revokedTokenRepository;
+        this.revokedTokensExpected = applicationProperties.getJwt().getRevokedTokensExpected();
+        this.revokedTokens = new RevokedTokens(new ConcurrentHashMap<>(), revokedTokensExpected);
+    }
+
+    @PostConstruct
+    public void init() {
+        try {
+            refresh();
+        } catch (DataAccessException e) {
+            // With the dev profile, Liquibase may still be creating the schema
+            log.warn("Could not load the revoked tokens, they will be on the next refresh: {}", e.getMessage());
+        }
+    }
+
+    /**
+     * @param tokenId the jti of the token, or its signature when it has none
+     * @return true if the token has been revoked
+     */
+    public boolean isRevoked(String tokenId) {
+        RevokedTokens current = this.revokedTokens;
+        return current.filter.mightContain(tokenId) && current.expirationByTokenId.containsKey(tokenId);
+    }
+
+    /**
+     * Revoke a token until it expires.
+     *
+     * @param tokenId the jti of the token, or its signature when it has none
+     * @param expiresAt the expiration of the token
+     */
+    public void revoke(String tokenId, Instant expiresAt) {
+        if (!expiresAt.isAfter(Instant.now())) {
+            return;
+        }
+        revokedTokenRepository.save(new RevokedToken(tokenId, expiresAt));
+        synchronized (lock) {
+            revokedTokens.put(tokenId, expiresAt.toEpochMilli());
+        }
+        log.debug("Revoked token {} until {}", tokenId, expiresAt);
+    }
+
+    /**
+     * Delete the expired tokens, and reload the others.
+     * <p>
+     * This is scheduled to run every minute by default, to forget the expired tokens and pick the tokens revoked by
+     * the other instances.
+     */
+    @Scheduled(fixedDelayString = "${application.jwt.revocation-refresh-millis:60000}")
+    public void refresh() {
+        Instant now = Instant.now();
+        int deleted = revokedTokenRepository.deleteExpired(now);
+        List<RevokedToken> rows = revokedTokenRepository.findAllByExpiresAtAfter(now);
+        synchronized (lock) {
+            Map<String, Long> expirationByTokenId = new ConcurrentHashMap<>();
+            for (RevokedToken row : rows) {
+                expirationByTokenId.put(row.getTokenId(), row.getExpiresAt().toEpochMilli());
+            }
+            // Tokens revoked since the rows were read
+            revokedTokens.expirationByTokenId.forEach((tokenId, expirationMillis) -> {
+                if (expirationMillis > now.toEpochMilli()) {
+                    expirationByTokenId.putIfAbsent(tokenId, expirationMillis);
+                }
+            });
+            revokedTokens = new RevokedTokens(expirationByTokenId,
+                Math.max(revokedTokensExpected, 2 * expirationByTokenId.size()));
+        }
+        log.debug("Deleted {} expired revoked tokens, {} revoked tokens left", deleted, revokedTokens.size());
+    }
+
+    private static final class RevokedTokens {
+
+        private final Map<String, Long> expirationByTokenId;
+
+        private final BloomFilter filter;
+
+        private RevokedTokens(Map<String, Long> expirationByTokenId, int expectedInsertions) {
+            this.expirationByTokenId = expirationByTokenId;
+            this.filter = new BloomFilter(expectedInsertions, FALSE_POSITIVE_PROBABILITY);
+            expirationByTokenId.keySet().forEach(filter::put);
+        }
+
+        private void put(String tokenId, long expirationMillis) {
+            // In the list before the filter, so that a token found by the filter is always in the list
+            expirationByTokenId.put(tokenId, expirationMillis);
+            filter.put(tokenId);
+        }
+
+        private int size() {
+            return expirationByTokenId.size();
+        }
+    }
+}
@@ -0,0 +1,95 @@
+package com.yep.security.jwt;
+
+import org.springframework.security.core.Authentication;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * Bounded cache of the authentications of the JWT already verified.
+ * <p>
+ * The cache is a fixed array of slots, indexed by the hash code of the token: a token replaces whichever token was in
+ * its slot, so the cache never grows and needs no lock. A hit compares the whole token and checks its expiration,
+ * without allocating anything.
+ */
+public final class VerifiedTokenCache {
+
+    private final AtomicReferenceArray<VerifiedToken> slots;
+
+    private final int mask;
+
+    /**
+     * @param size the number of tokens the cache can hold, rounded up to a power of two
+     */
+    public VerifiedTokenCache(int size) {
+        int capacity = Integer.highestOneBit(Math.max(size, 1) - 1) << 1;
+        this.slots = new AtomicReferenceArray<>(Math.max(capacity, 1));
+        this.mask = slots.length() - 1;
+    }
+
+    /**
+     * Get a verified token.
+     *
+     * @param token the token
+     * @param nowMillis the current time, in milliseconds since the epoch
+     * @return the verified token, or null if the token is not in the cache or has expired
+     */
+    public VerifiedToken get(String token, long nowMillis) {
+        VerifiedToken verifiedToken = slots.get(indexOf(token));
+        if (verifiedToken == null || nowMillis >= verifiedToken.expirationMillis || !verifiedToken.token.equals(token)) {
+            return null;
+        }
+        return verifiedToken;
+    }
+
+    /**
+     * Put a token which has been verified.
+     *
+     * @param token the token
+     * @param tokenId the id its revocation is checked with
+     * @param authentication its authentication
+     * @param expirationMillis its expiration, in milliseconds since the epoch
+     */
+    public void put(String token, String tokenId, Authentication authentication, long expirationMillis) {
+        slots.set(indexOf(token), new VerifiedToken(token, tokenId, authentication, expirationMillis));
+    }
+
+    /**
+     * Remove all the tokens.
+     */
+    public void clear() {
+        for (int i = 0; i < slots.length(); i++) {
+            slots.set(i, null);
+        }
+    }
+
+    private int indexOf(String token) {
+        int hash = token.hashCode();
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+
+    public static final class VerifiedToken {
+
+        private final String token;
+
+        private final String tokenId;
+
+        private final Authentication authentication;
+
+        private final long expirationMillis;
+
+        private VerifiedToken(String token, String tokenId, Authentication authentication, long expirationMillis) {
+            this.token = token;
+            this.tokenId = tokenId;
+            this.authentication = authentication;
+            this.expirationMillis = expirationMillis;
+        }
+
+        public String getTokenId() {
+            return tokenId;
+        }
+
+        public Authentication getAuthentication() {
+            return authentication;
+        }
+    }
+}
@@ -1,14 +1,37 @@
 package com.yep.service;
 
+import com.yep.config.ApplicationProperties;
 import com.yep.config.audit.AuditEventConverter;
+import com.yep.domain.AuditEventRollup;
+import com.yep.domain.PersistentAuditEvent;
+import com.yep.repository.AuditEventPartitionRepository;
+import com.yep.repository.AuditEventRollupCounter;
+import com.yep.repository.AuditEventRollupRepository;
 import com.yep.repository.PersistenceAuditEventRepository;
+import com.yep.repository.TableStatisticsRepository;
+import com.yep.service.dto.AuditEventRollupDTO;
+import com.yep.service.dto.AuditEventRollupDTO.Granularity;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.jdbc.support.MetaDataAccessException;
+import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 
 /**
@@ -20,16 +43,38 @@ import java.util.Optional;
 @Transactional
 public class AuditEventService {
 
+    private final Logger log = LoggerFactory.getLogger(AuditEventService.class);
+
     private final PersistenceAuditEventRepository persistenceAuditEventRepository;
 
     private final AuditEventConverter auditEventConverter;
 
+    private final TableStatisticsRepository tableStatisticsRepository;
+
+    private final ApplicationProperties applicationProperties;
+
+    private final AuditEventRollupCounter auditEventRollupCounter;
+
+    private final AuditEventPartitionRepository auditEventPartitionRepository;
+
+    private final AuditEventRollupRepository auditEventRollupRepository;
+
     public AuditEventService(
         PersistenceAuditEventRepository persistenceAuditEventRepository,
-        AuditEventConverter auditEventConverter) {
+        AuditEventConverter auditEventConverter,
+        TableStatisticsRepository tableStatisticsRepository,
+        ApplicationProperties applicationProperties,
+        AuditEventRollupCounter auditEventRollupCounter,
+        AuditEventPartitionRepository auditEventPartitionRepository,
+        AuditEventRollupRepository auditEventRollupRepository) {
 
         this.persistenceAuditEventRepository = persistenceAuditEventRepository;
         this.auditEventConverter = auditEventConverter;
+        this.tableStatisticsRepository = tableStatisticsRepository;
+        this.applicationProperties = applicationProperties;
+        this.auditEventRollupCounter = auditEventRollupCounter;
+        this.auditEventPartitionRepository = auditEventPartitionRepository;
+        this.auditEventRollupRepository = auditEventRollupRepository;
     }
 
     public Page<AuditEvent> findAll(Pageable pageable) {
@@ -42,6 +87,110 @@ public class AuditEventService {
             .map(auditEventConverter::convertToAuditEvent);
     }
 
+    public Slice<AuditEvent> findAllSlice(Pageable pageable) {
+        return persistenceAuditEventRepository.findSliceBy(pageable)
+            .map(auditEventConverter::convertToAuditEvent);
+    }
+
+    public Slice<AuditEvent> findSliceByDates(Instant fromDate, Instant toDate, Pageable pageable) {
+        return persistenceAuditEventRepository.findSliceByAuditEventDateBetween(fromDate, toDate, pageable)
+            .map(auditEventConverter::convertToAuditEvent);
+    }
+
+    /**
+     * Estimate the number of audit events from the database statistics.
+     *
+     * @return the estimated number of events, or empty if the database does not provide one
+     */
+    public Optional<Long> estimateCount() {
+        return tableStatisticsRepository.estimateRowCount("jhi_persistent_audit_event");
+    }
+
+    /**
+     * Count the audit events per time bucket, from the per-minute rollups instead of the events themselves.
+     * <p>
+     * This runs in a read-write transaction, so that it reads the primary database.
+     *
+     * @param fromDate the start of the period, included
+     * @param toDate the end of the period, excluded
+     * @param granularity the duration of the time buckets
+     * @param type the type of the events to count, or null for all types
+     * @param principal the principal of the events to count, or null for all principals
+     * @param byType whether to count each type separately
+     * @param byPrincipal whether to count each principal separately
+     * @return the counts, sorted by bucket, type and principal
+     */
+    public List<AuditEventRollupDTO> findRollups(Instant fromDate, Instant toDate, Granularity granularity, String type,
+        String principal, boolean byType, boolean byPrincipal) {
+
+        Map<List<Object>, AuditEventRollupDTO> rollups = new HashMap<>();
+        for (AuditEventRollup rollup : auditEventRollupCounter.findRollups(fromDate, toDate, type, principal)) {
+            Instant bucketStart = granularity.bucketOf(rollup.getBucketStart());
+            String rollupType = byType ? rollup.getAuditEventType() : null;
+            String rollupPrincipal = byPrincipal ? rollup.getPrincipal() : null;
+            AuditEventRollupDTO rollupDTO = rollups.computeIfAbsent(Arrays.asList(bucketStart, rollupType, rollupPrincipal),
+                key -> new AuditEventRollupDTO(bucketStart, rollupType, rollupPrincipal, 0));
+            rollupDTO.setCount(rollupDTO.getCount() + rollup.getEventCount());
+        }
+        List<AuditEventRollupDTO> result = new ArrayList<>(rollups.values());
+        result.sort(Comparator.comparing(AuditEventRollupDTO::getBucketStart)
+            .thenComparing(AuditEventRollupDTO::getType, Comparator.nullsFirst(Comparator.naturalOrder()))
+            .thenComparing(AuditEventRollupDTO::getPrincipal, Comparator.nullsFirst(Comparator.naturalOrder())));
+        return result;
+    }
+
+    /**
+     * Old audit events should be automatically deleted after application.audit-events.retention-months.
+     * <p>
+     * This is scheduled to get fired everyday, at 12:00 (pm). On MySQL, where the table is partitioned by month, the
+     * partition of next month is created while it is still empty and the partitions of the expired months are
+     * dropped, whatever their size, by a single instance at a time. On the other databases, the expired monthly
+     * buckets are deleted whole, each one with a single statement in its own transaction. The per-minute rollups
+     * older than the retention are deleted as well.
+     */
+    @Scheduled(cron = "0 0 12 * * ?")
+    @Transactional(propagation = Propagation.NOT_SUPPORTED)
+    public void removeOldAuditEvents() {
+        int retentionMonths = applicationProperties.getAuditEvents().getRetentionMonths();
+        boolean partitioned = isPartitioned();
+        if (partitioned && !auditEventPartitionRepository.runLocked(() -> maintainPartitions(retentionMonths))) {
+            log.debug("The audit event partitions are being maintained by another instance");
+        }
+        if (retentionMonths <= 0) {
+            return;
+        }
+        Instant oldestKept = ZonedDateTime.now(ZoneOffset.UTC).minusMonths(retentionMonths).toInstant();
+        int deletedRollups = auditEventRollupRepository.deleteByBucketStartBefore(oldestKept);
+        log.debug("Deleted {} audit event rollups before {}", deletedRollups, oldestKept);
+        if (partitioned) {
+            return;
+        }
+        for (Integer bucket : persistenceAuditEventRepository.findBucketsBefore(PersistentAuditEvent.bucketOf(oldestKept))) {
+            int deleted = persistenceAuditEventRepository.deleteByAuditEventBucket(bucket);
+            log.debug("Deleted {} audit events of {}", deleted, bucket);
+        }
+    }
+
+    private void maintainPartitions(int retentionMonths) {
+        auditEventPartitionRepository.createPartitionsUntil(
+            AuditEventPartitionRepository.nextBucket(PersistentAuditEvent.bucketOf(Instant.now())));
+        if (retentionMonths <= 0) {
+            return;
+        }
+        Instant oldestKept = ZonedDateTime.now(ZoneOffset.UTC).minusMonths(retentionMonths).toInstant();
+        List<Integer> buckets = auditEventPartitionRepository.dropPartitionsBefore(PersistentAuditEvent.bucketOf(oldestKept));
+        log.debug("Dropped the audit event partitions of {}", buckets);
+    }
+
+    private boolean isPartitioned() {
+        try {
+            return auditEventPartitionRepository.isPartitioned();
+        } catch (MetaDataAccessException e) {
+            log.warn("Could not check whether the audit events are partitioned: {}", e.getMessage());
+            return false;
+        }
+    }
+
     public Optional<AuditEvent> find(Long id) {
         return Optional.ofNullable(persistenceAuditEventRepository.findOne(id)).map
             (auditEventConverter::convertToAuditEvent);
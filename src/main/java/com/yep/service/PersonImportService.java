@@ -0,0 +1,284 @@
+package com.yep.service;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.MappingIterator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.Person;
+import com.yep.service.dto.PersonImportJobDTO;
+import com.yep.service.dto.PersonImportJobDTO.Status;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.NestedExceptionUtils;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.CannotCreateTransactionException;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.UUID;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.zip.GZIPInputStream;
+
+/**
+ * Service importing people in bulk from a CSV or NDJSON file.
+ * <p>
+ * The uploaded body is first spooled to a temporary file, so that the request can return at once, then parsed
+ * row by row with the Jackson streaming parser on the {@code taskExecutor}. The people are saved in chunks, each
+ * chunk in its own transaction, and the rows which cannot be saved are rejected without failing the job. The job
+ * progress can be polled with {@link #getJob(String)}.
+ */
+@Service
+public class PersonImportService {
+
+    public enum Format {
+        NDJSON, CSV
+    }
+
+    private static final int MAX_ERRORS = 10;
+
+    private final Logger log = LoggerFactory.getLogger(PersonImportService.class);
+
+    private final PersonService personService;
+
+    private final Executor taskExecutor;
+
+    private final ObjectReader ndjsonReader;
+
+    private final ObjectReader csvReader;
+
+    private final int chunkSize;
+
+    private final Map<String, Job> jobs;
+
+    public PersonImportService(PersonService personService, @Qualifier("taskExecutor") Executor taskExecutor,
+            ObjectMapper objectMapper, ApplicationProperties applicationProperties) {
+        this.personService = personService;
+        this.taskExecutor = taskExecutor;
+        this.ndjsonReader = objectMapper.readerFor(Person.class);
+        this.csvReader = new CsvMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES)
+            .readerFor(Person.class)
+            .with(CsvSchema.emptySchema().withHeader());
+        this.chunkSize = applicationProperties.getPersonImport().getChunkSize();
+        int maxJobs = applicationProperties.getPersonImport().getMaxJobs();
+        this.jobs = Collections.synchronizedMap(new LinkedHashMap<String, Job>() {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Job> eldest) {
+                return size() > maxJobs;
+            }
+        });
+    }
+
+    /**
+     * Start a job importing the people of the input, which may be gzip-compressed.
+     *
+     * @param input the CSV or NDJSON people, fully read before this method returns
+     * @param format the format of the input
+     * @return the queued job
+     * @throws IOException if the input could not be spooled
+     */
+    public PersonImportJobDTO start(InputStream input, Format format) throws IOException {
+        Path file = Files.createTempFile("person-import-", ".tmp");
+        Job job = new Job(UUID.randomUUID().toString());
+        try {
+            Files.copy(input, file, StandardCopyOption.REPLACE_EXISTING);
+            jobs.put(job.id, job);
+            taskExecutor.execute(() -> importPeople(job, format, file));
+        } catch (IOException | RuntimeException e) {
+            jobs.remove(job.id);
+            Files.deleteIfExists(file);
+            throw e;
+        }
+        log.debug("Queued person import job {}", job.id);
+        return job.toDTO();
+    }
+
+    /**
+     * Get the progress of an import job.
+     *
+     * @param id the id of the job
+     * @return the job, or empty if it is unknown or has been evicted by newer jobs
+     */
+    public Optional<PersonImportJobDTO> getJob(String id) {
+        return Optional.ofNullable(jobs.get(id)).map(Job::toDTO);
+    }
+
+    private void importPeople(Job job, Format format, Path file) {
+        job.start();
+        ObjectReader reader = format == Format.CSV ? csvReader : ndjsonReader;
+        try (InputStream input = open(file); MappingIterator<Person> rows = reader.readValues(input)) {
+            List<Person> chunk = new ArrayList<>(chunkSize);
+            List<Long> chunkRows = new ArrayList<>(chunkSize);
+            while (rows.hasNextValue()) {
+                long row = job.processed.incrementAndGet();
+                Person person;
+                try {
+                    person = rows.nextValue();
+                } catch (JsonProcessingException e) {
+                    job.reject(row, e.getOriginalMessage());
+                    continue;
+                }
+                if (person.getId() != null) {
+                    job.reject(row, "A new person cannot already have an ID");
+                    continue;
+                }
+                chunk.add(person);
+                chunkRows.add(row);
+                if (chunk.size() == chunkSize) {
+                    saveChunk(job, chunk, chunkRows);
+                    chunk = new ArrayList<>(chunkSize);
+                    chunkRows = new ArrayList<>(chunkSize);
+                }
+            }
+            if (!chunk.isEmpty()) {
+                saveChunk(job, chunk, chunkRows);
+            }
+            job.finish(Status.COMPLETED);
+            log.info("Person import job {} completed: {} rows imported, {} rejected", job.id, job.imported, job.rejected);
+        } catch (IOException | RuntimeException e) {
+            log.error("Person import job {} failed after {} rows", job.id, job.processed, e);
+            job.addError("Import failed: " + e.getMessage());
+            job.finish(Status.FAILED);
+        } finally {
+            try {
+                Files.deleteIfExists(file);
+            } catch (IOException e) {
+                log.warn("Could not delete the person import file {}", file, e);
+            }
+        }
+    }
+
+    /**
+     * Save a chunk of people, or one person at a time when the chunk fails, so that only the offending rows are
+     * rejected. The database being unreachable still fails the job.
+     */
+    private void saveChunk(Job job, List<Person> chunk, List<Long> chunkRows) {
+        try {
+            personService.saveAll(chunk);
+            job.imported.addAndGet(chunk.size());
+            return;
+        } catch (CannotCreateTransactionException e) {
+            throw e;
+        } catch (RuntimeException e) {
+            log.debug("Person import job {} saves the chunk ending at row {} one person at a time: {}", job.id,
+                chunkRows.get(chunkRows.size() - 1), e.getMessage());
+        }
+        for (int i = 0; i < chunk.size(); i++) {
+            Person person = chunk.get(i);
+            // The id generated by the rolled back chunk is not in the database
+            person.setId(null);
+            try {
+                personService.save(person);
+                job.imported.incrementAndGet();
+            } catch (CannotCreateTransactionException e) {
+                throw e;
+            } catch (RuntimeException e) {
+                job.reject(chunkRows.get(i), NestedExceptionUtils.getMostSpecificCause(e).getMessage());
+            }
+        }
+    }
+
+    /**
+     * Open the spooled file, decompressing it if it starts with the gzip magic number.
+     */
+    private static InputStream open(Path file) throws IOException {
+        InputStream input = new BufferedInputStream(Files.newInputStream(file));
+        input.mark(2);
+        int magic = input.read() | (input.read() << 8);
+        input.reset();
+        if (magic == GZIPInputStream.GZIP_MAGIC) {
+            return new GZIPInputStream(input);
+        }
+        return input;
+    }
+
+    private static final class Job {
+
+        private final String id;
+
+        private final Instant createdDate = Instant.now();
+
+        private final AtomicLong processed = new AtomicLong();
+
+        private final AtomicLong imported = new AtomicLong();
+
+        private final AtomicLong rejected = new AtomicLong();
+
+        private final List<String> errors = new ArrayList<>();
+
+        private volatile Status status = Status.QUEUED;
+
+        private volatile Instant startedDate;
+
+        private volatile Instant finishedDate;
+
+        Job(String id) {
+            this.id = id;
+        }
+
+        void start() {
+            startedDate = Instant.now();
+            status = Status.RUNNING;
+        }
+
+        void finish(Status status) {
+            finishedDate = Instant.now();
+            this.status = status;
+        }
+
+        void reject(long row, String message) {
+            rejected.incrementAndGet();
+            addError("Row " + row + ": " + message);
+        }
+
+        void addError(String message) {
+            synchronized (errors) {
+                if (errors.size() < MAX_ERRORS) {
+                    errors.add(message);
+                }
+            }
+        }
+
+        PersonImportJobDTO toDTO() {
+            PersonImportJobDTO dto = new PersonImportJobDTO();
+            dto.setId(id);
+            dto.setStatus(status);
+            dto.setCreatedDate(createdDate);
+            Instant started = startedDate;
+            Instant finished = finishedDate;
+            dto.setStartedDate(started);
+            dto.setFinishedDate(finished);
+            long rows = processed.get();
+            dto.setRowsProcessed(rows);
+            dto.setRowsImported(imported.get());
+            dto.setRowsRejected(rejected.get());
+            if (started != null) {
+                long millis = Duration.between(started, finished != null ? finished : Instant.now()).toMillis();
+                dto.setRowsPerSecond(millis > 0 ? rows * 1000.0 / millis : rows);
+            }
+            synchronized (errors) {
+                dto.setErrors(new ArrayList<>(errors));
+            }
+            return dto;
+        }
+    }
+}
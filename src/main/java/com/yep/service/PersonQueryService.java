@@ -1,29 +1,60 @@
 package com.yep.service;
 
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.PageImpl;
+import org.springframework.data.domain.PageRequest;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.data.domain.Sort;
+import org.springframework.data.jpa.domain.Specification;
 import org.springframework.data.jpa.domain.Specifications;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
 
+import com.codahale.metrics.MetricRegistry;
 import io.github.jhipster.service.QueryService;
+import io.github.jhipster.service.filter.StringFilter;
 
+import javax.persistence.criteria.Expression;
+import javax.persistence.criteria.Path;
+import javax.persistence.criteria.Predicate;
+
+import com.yep.config.ApplicationProperties;
 import com.yep.domain.Person;
 import com.yep.domain.*; // for static metamodels
 import com.yep.repository.PersonRepository;
 import com.yep.service.dto.PersonCriteria;
+import com.yep.service.dto.PersonCursor;
+import com.yep.service.dto.PersonDTO;
+import com.yep.service.search.PersonSearchCache;
+import com.yep.service.search.PersonSearchIndex;
+import com.yep.service.util.SingleFlight;
 
 
 /**
  * Service for executing complex queries for Person entities in the database.
  * The main input is a {@link PersonCriteria} which get's converted to {@link Specifications},
  * in a way that all the filters must apply.
- * It returns a {@link List} of {@link Person} or a {@link Page} of {@link Person} which fulfills the criteria.
+ * It returns a {@link List} of {@link Person} or a {@link Page} of {@link PersonDTO} which fulfills the criteria.
+ * Pages are projected to {@link PersonDTO}, so they do not load managed entities in the persistence context.
  */
 @Service
 @Transactional(readOnly = true)
@@ -34,40 +65,337 @@ public class PersonQueryService extends QueryService<Person> {
 
     private final PersonRepository personRepository;
 
-    public PersonQueryService(PersonRepository personRepository) {
+    private final PersonSearchIndex personSearchIndex;
+
+    private final PersonSearchCache personSearchCache;
+
+    private final int exportFetchSize;
+
+    private final long suggestDeadlineNanos;
+
+    private final SingleFlight<List<Object>, List<Person>> listSearches;
+
+    private final SingleFlight<List<Object>, Page<PersonDTO>> pageSearches;
+
+    public PersonQueryService(PersonRepository personRepository, PersonSearchIndex personSearchIndex,
+            PersonSearchCache personSearchCache, ApplicationProperties applicationProperties,
+            MetricRegistry metricRegistry) {
         this.personRepository = personRepository;
+        this.personSearchIndex = personSearchIndex;
+        this.personSearchCache = personSearchCache;
+        this.exportFetchSize = applicationProperties.getPersonExport().getFetchSize();
+        this.suggestDeadlineNanos = TimeUnit.MILLISECONDS.toNanos(applicationProperties.getPersonSearch().getSuggestDeadlineMillis());
+        this.listSearches = new SingleFlight<>(metricRegistry, MetricRegistry.name(PersonQueryService.class, "listSearches"));
+        this.pageSearches = new SingleFlight<>(metricRegistry, MetricRegistry.name(PersonQueryService.class, "pageSearches"));
     }
 
     /**
      * Return a {@link List} of {@link Person} which matches the criteria from the database
+     * <p>
+     * Identical concurrent searches share a single query, see {@link #coalesce(SingleFlight, List, Supplier)}. The
+     * people loaded by one caller are then shared, so in a read-only transaction every caller gets detached copies of
+     * its own.
      * @param criteria The object which holds all the filters, which the entities should match.
      * @return the matching entities.
      */
     @Transactional(readOnly = true)
     public List<Person> findByCriteria(PersonCriteria criteria) {
         log.debug("find by criteria : {}", criteria);
-        final Specifications<Person> specification = createAndSpecification(criteria);
-        return personRepository.findAll(specification);
+        Supplier<List<Person>> search = () -> {
+            final Specifications<Person> specification = createAndSpecification(criteria);
+            return personRepository.findAll(specification);
+        };
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return search.get();
+        }
+        return coalesce(listSearches, Arrays.asList("and", String.valueOf(criteria)), search).stream()
+            .map(PersonQueryService::copyOf)
+            .collect(Collectors.toList());
     }
 
     /**
      * Return a {@link Page} of {@link Person} which matches the criteria from the database
+     * <p>
+     * Identical concurrent searches share a single query, see {@link #coalesce(SingleFlight, List, Supplier)}.
      * @param criteria The object which holds all the filters, which the entities should match.
      * @param page The page, which should be returned.
      * @return the matching entities.
      */
     @Transactional(readOnly = true)
-    public Page<Person> findByCriteria(PersonCriteria criteria, Pageable page) {
+    public Page<PersonDTO> findByCriteria(PersonCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        return coalesce(pageSearches, Arrays.asList("and", String.valueOf(criteria), page), () -> {
+            final Specifications<Person> specification = createAndSpecification(criteria);
+            return personRepository.findPage(specification, page);
+        });
+    }
+
+    /**
+     * Pass every {@link Person} which matches the criteria to the action, in id order, without loading them all in
+     * memory.
+     * @param criteria The object which holds all the filters, which the entities should match.
+     * @param action The action to run on each matching entity, which is detached when it is called.
+     */
+    @Transactional(readOnly = true)
+    public void exportByCriteria(PersonCriteria criteria, Consumer<Person> action) {
+        log.debug("export by criteria : {}", criteria);
         final Specifications<Person> specification = createAndSpecification(criteria);
-        return personRepository.findAll(specification, page);
+        try (Stream<Person> people = personRepository.stream(specification, exportFetchSize)) {
+            people.forEach(action);
+        }
     }
 
+    /**
+     * Return a {@link Page} of {@link Person} which matches any of the filters from the database
+     * <p>
+     * Identical concurrent searches share a single query, see {@link #coalesce(SingleFlight, List, Supplier)}.
+     * @param criteria The object which holds all the filters, any of which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
     @Transactional(readOnly = true)
-    public Page<Person> findByOrCriteria(PersonCriteria criteria, Pageable page) {
+    public Page<PersonDTO> findByOrCriteria(PersonCriteria criteria, Pageable page) {
         log.debug("find by criteria : {}, page: {}", criteria, page);
+        return coalesce(pageSearches, Arrays.asList("or", String.valueOf(criteria), page), () -> {
+            final Specifications<Person> specification = createOrSpecification(criteria);
+            return personRepository.findPage(specification, page);
+        });
+    }
+
+    /**
+     * Run the search, or wait for the identical search already running in another thread and share its result.
+     * <p>
+     * The filters have no equals method, so searches are identified by the description of their criteria, which
+     * holds every filter value. The shared page was read in the transaction of another thread, so searches are only
+     * coalesced in read-only transactions, which cannot have written anything they should see.
+     */
+    private <T> T coalesce(SingleFlight<List<Object>, T> searches, List<Object> key, Supplier<T> search) {
+        if (!TransactionSynchronizationManager.isCurrentTransactionReadOnly()) {
+            return search.get();
+        }
+        return searches.execute(key, search);
+    }
+
+    private static Person copyOf(Person person) {
+        Person copy = new Person().nationalId(person.getNationalId()).fullName(person.getFullName());
+        copy.setId(person.getId());
+        return copy;
+    }
+
+    /**
+     * Return a {@link Slice} of {@link Person} which matches any of the filters from the database, without
+     * counting all the matches.
+     * @param criteria The object which holds all the filters, any of which the entities should match.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<PersonDTO> findSliceByOrCriteria(PersonCriteria criteria, Pageable page) {
+        log.debug("find slice by criteria : {}, page: {}", criteria, page);
         final Specifications<Person> specification = createOrSpecification(criteria);
-        return personRepository.findAll(specification, page);
+        return personRepository.findSlice(specification, page);
+    }
+
+    /**
+     * Return a {@link Page} of {@link Person} whose full name or national id contains the keyword.
+     * <p>
+     * The search is answered by the {@link PersonSearchIndex} when it is ready, in which case results are ranked by
+     * relevance, or sorted by id when the page asks for it. Otherwise, or when the page is sorted by another
+     * property, it falls back to a "contains" query on the database.
+     * <p>
+     * The ids of the page and the total are cached in the {@link PersonSearchCache}.
+     * @param keyword The keyword to search for.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Page<PersonDTO> findByKeyword(String keyword, Pageable page) {
+        log.debug("find by keyword : {}, page: {}", keyword, page);
+        String normalizedKeyword = PersonSearchCache.normalize(keyword);
+        PersonSearchCache.Result result = personSearchCache.get(normalizedKeyword, page, true, () -> {
+            long[] ids = sortIds(personSearchIndex.search(normalizedKeyword), page.getSort());
+            if (ids == null) {
+                Page<PersonDTO> people = findByOrCriteria(createKeywordCriteria(normalizedKeyword), page);
+                return PersonSearchCache.Result.counted(idsOf(people), people.getTotalElements());
+            }
+            return PersonSearchCache.Result.counted(pageOfIds(ids, page), ids.length);
+        });
+        return new PageImpl<>(findAllInOrder(result.getIds()), page, result.getTotal());
+    }
+
+    /**
+     * Return a {@link Slice} of {@link Person} whose full name or national id contains the keyword, without
+     * counting all the matches when the database has to be used.
+     * @param keyword The keyword to search for.
+     * @param page The page, which should be returned.
+     * @return the matching entities.
+     * @see #findByKeyword(String, Pageable)
+     */
+    @Transactional(readOnly = true)
+    public Slice<PersonDTO> findSliceByKeyword(String keyword, Pageable page) {
+        log.debug("find slice by keyword : {}, page: {}", keyword, page);
+        String normalizedKeyword = PersonSearchCache.normalize(keyword);
+        PersonSearchCache.Result result = personSearchCache.get(normalizedKeyword, page, false, () -> {
+            long[] ids = sortIds(personSearchIndex.search(normalizedKeyword), page.getSort());
+            if (ids == null) {
+                Slice<PersonDTO> people = findSliceByOrCriteria(createKeywordCriteria(normalizedKeyword), page);
+                return PersonSearchCache.Result.uncounted(idsOf(people), people.hasNext());
+            }
+            return PersonSearchCache.Result.uncounted(pageOfIds(ids, page), page.getOffset() + page.getPageSize() < ids.length);
+        });
+        return new SliceImpl<>(findAllInOrder(result.getIds()), page, result.hasNext());
+    }
+
+    /**
+     * Return the ids of the best matches of a keyword from the {@link PersonSearchIndex}, within the suggestion
+     * deadline.
+     * <p>
+     * The database is never scanned: until the index is ready, no suggestions are returned.
+     * @param keyword The keyword to search for.
+     * @param limit The maximum number of ids to return.
+     * @return the suggested ids, and whether the index could be fully scanned in time.
+     */
+    @Transactional(propagation = Propagation.SUPPORTS)
+    public PersonSearchIndex.Suggestions suggest(String keyword, int limit) {
+        log.debug("suggest for keyword : {}, limit: {}", keyword, limit);
+        PersonSearchIndex.Suggestions suggestions = personSearchIndex.suggest(keyword, limit, System.nanoTime() + suggestDeadlineNanos);
+        return suggestions != null ? suggestions : new PersonSearchIndex.Suggestions(new long[0], false);
+    }
+
+    /**
+     * Load the suggested people, keeping their rank.
+     * @param ids The suggested ids.
+     * @return the suggestions.
+     */
+    @Transactional(readOnly = true)
+    public List<PersonDTO> findSuggestions(long[] ids) {
+        return findAllInOrder(Arrays.stream(ids).boxed().collect(Collectors.toList()));
+    }
+
+    /**
+     * Sort the ranked ids of the index as the page asks, which can only be done here for the id.
+     * @return the ids, or null if the index did not answer or the sort needs the database.
+     */
+    private long[] sortIds(long[] ids, Sort sort) {
+        if (ids == null || sort == null) {
+            return ids;
+        }
+        List<Sort.Order> orders = new ArrayList<>();
+        sort.forEach(orders::add);
+        if (orders.isEmpty()) {
+            return ids;
+        }
+        if (orders.size() > 1 || !"id".equals(orders.get(0).getProperty())) {
+            return null;
+        }
+        long[] sortedIds = ids.clone();
+        Arrays.sort(sortedIds);
+        if (orders.get(0).isDescending()) {
+            for (int i = 0, j = sortedIds.length - 1; i < j; i++, j--) {
+                long id = sortedIds[i];
+                sortedIds[i] = sortedIds[j];
+                sortedIds[j] = id;
+            }
+        }
+        return sortedIds;
+    }
+
+    private List<Long> idsOf(Slice<PersonDTO> people) {
+        return people.getContent().stream().map(PersonDTO::getId).collect(Collectors.toList());
+    }
+
+    /**
+     * Cut a page out of ranked ids.
+     */
+    private List<Long> pageOfIds(long[] ids, Pageable page) {
+        int from = Math.min(page.getOffset(), ids.length);
+        int to = Math.min(from + page.getPageSize(), ids.length);
+        List<Long> pageIds = new ArrayList<>(to - from);
+        for (int i = from; i < to; i++) {
+            pageIds.add(ids[i]);
+        }
+        return pageIds;
+    }
+
+    /**
+     * Load the people of a list of ids, keeping their order.
+     */
+    private List<PersonDTO> findAllInOrder(List<Long> pageIds) {
+        Map<Long, PersonDTO> peopleById = personRepository.findAllByIdIn(pageIds).stream()
+            .collect(Collectors.toMap(PersonDTO::getId, Function.identity()));
+        return pageIds.stream()
+            .map(peopleById::get)
+            .filter(Objects::nonNull)
+            .collect(Collectors.toList());
+    }
+
+    /**
+     * Return a {@link Slice} of {@link Person} following the cursor, optionally filtered by a keyword.
+     * <p>
+     * Instead of an offset, the page starts right after the sort value and id held by the cursor, so deep pages
+     * cost the same as the first one. No count query is run.
+     * @param keyword The keyword the full name or national id should contain, may be empty.
+     * @param cursor The position to start from, see {@link PersonCursor#first(Sort)}.
+     * @param size The number of people to return.
+     * @return the matching entities.
+     */
+    @Transactional(readOnly = true)
+    public Slice<PersonDTO> findByCursor(String keyword, PersonCursor cursor, int size) {
+        log.debug("find by keyword : {}, cursor: {}, size: {}", keyword, cursor, size);
+        Specifications<Person> specification = Specifications.where(createKeysetSpecification(cursor));
+        if (keyword != null && !keyword.isEmpty()) {
+            specification = specification.and(createOrSpecification(createKeywordCriteria(keyword)));
+        }
+        return personRepository.findSlice(specification, new PageRequest(0, size));
+    }
+
+    private PersonCriteria createKeywordCriteria(String keyword) {
+        PersonCriteria criteria = new PersonCriteria();
+        StringFilter fullNameContainsFilter = new StringFilter();
+        fullNameContainsFilter.setContains(keyword);
+        criteria.setFullName(fullNameContainsFilter);
+        StringFilter nationalIdContainsFilter = new StringFilter();
+        nationalIdContainsFilter.setContains(keyword);
+        criteria.setNationalId(nationalIdContainsFilter);
+        return criteria;
+    }
+
+    /**
+     * Function to convert a {@link PersonCursor} to a {@link Specification} ordering by the cursor column then id,
+     * and only matching the rows after the cursor.
+     * <p>
+     * The databases we support sort {@code NULL} first in ascending order, so null values are handled explicitly
+     * rather than wrapping the column in a function, which would prevent the use of an index.
+     */
+    private Specification<Person> createKeysetSpecification(PersonCursor cursor) {
+        return (root, query, cb) -> {
+            boolean ascending = cursor.getDirection().isAscending();
+            Path<Long> id = root.get(Person_.id);
+            if ("id".equals(cursor.getProperty())) {
+                query.orderBy(ascending ? cb.asc(id) : cb.desc(id));
+                if (cursor.isFirst()) {
+                    return null;
+                }
+                return ascending ? cb.greaterThan(id, cursor.getLastId()) : cb.lessThan(id, cursor.getLastId());
+            }
+            Expression<String> column = root.get("nationalId".equals(cursor.getProperty()) ? Person_.nationalId : Person_.fullName);
+            query.orderBy(ascending ? cb.asc(column) : cb.desc(column), ascending ? cb.asc(id) : cb.desc(id));
+            if (cursor.isFirst()) {
+                return null;
+            }
+            String lastValue = cursor.getLastValue();
+            Predicate sameValueAfterId = cb.and(
+                lastValue == null ? cb.isNull(column) : cb.equal(column, lastValue),
+                ascending ? cb.greaterThan(id, cursor.getLastId()) : cb.lessThan(id, cursor.getLastId()));
+            if (ascending) {
+                return lastValue == null ?
+                    cb.or(sameValueAfterId, cb.isNotNull(column)) :
+                    cb.or(sameValueAfterId, cb.greaterThan(column, lastValue));
+            }
+            return lastValue == null ?
+                sameValueAfterId :
+                cb.or(sameValueAfterId, cb.lessThan(column, lastValue), cb.isNull(column));
+        };
     }
 
     /**
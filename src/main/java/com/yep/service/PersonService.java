@@ -2,13 +2,23 @@ package com.yep.service;
 
 import com.yep.domain.Person;
 import com.yep.repository.PersonRepository;
+import com.yep.repository.TableStatisticsRepository;
+import com.yep.service.dto.PersonDTO;
+import com.yep.service.search.PersonSearchCache;
+import com.yep.service.search.PersonSearchIndex;
+import org.hibernate.Session;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
+import java.util.List;
+import java.util.Optional;
+
 
 /**
  * Service Implementation for managing Person.
@@ -21,8 +31,22 @@ public class PersonService {
 
     private final PersonRepository personRepository;
 
-    public PersonService(PersonRepository personRepository) {
+    private final PersonSearchIndex personSearchIndex;
+
+    private final PersonSearchCache personSearchCache;
+
+    private final TableStatisticsRepository tableStatisticsRepository;
+
+    private final EntityManager entityManager;
+
+    public PersonService(PersonRepository personRepository, PersonSearchIndex personSearchIndex,
+            PersonSearchCache personSearchCache, TableStatisticsRepository tableStatisticsRepository,
+            EntityManager entityManager) {
         this.personRepository = personRepository;
+        this.personSearchIndex = personSearchIndex;
+        this.personSearchCache = personSearchCache;
+        this.tableStatisticsRepository = tableStatisticsRepository;
+        this.entityManager = entityManager;
     }
 
     /**
@@ -33,19 +57,60 @@ public class PersonService {
      */
     public Person save(Person person) {
         log.debug("Request to save Person : {}", person);
-        return personRepository.save(person);
+        Person result = personRepository.save(person);
+        personSearchIndex.update(result);
+        personSearchCache.invalidate();
+        return result;
+    }
+
+    /**
+     * Save a chunk of people in a single transaction, sending the statements in JDBC batches.
+     *
+     * @param people the entities to save
+     * @return the persisted entities
+     */
+    public List<Person> saveAll(List<Person> people) {
+        log.debug("Request to save {} People", people.size());
+        entityManager.unwrap(Session.class).setJdbcBatchSize(people.size());
+        List<Person> result = personRepository.save(people);
+        personRepository.flush();
+        result.forEach(personSearchIndex::update);
+        personSearchCache.invalidate();
+        return result;
     }
 
     /**
-     * Get all the people.
+     * Get all the people, projected to DTOs.
      *
      * @param pageable the pagination information
-     * @return the list of entities
+     * @return the list of people
      */
     @Transactional(readOnly = true)
-    public Page<Person> findAll(Pageable pageable) {
+    public Page<PersonDTO> findAll(Pageable pageable) {
         log.debug("Request to get all People");
-        return personRepository.findAll(pageable);
+        return personRepository.findPage(null, pageable);
+    }
+
+    /**
+     * Get a slice of the people, projected to DTOs, without counting them.
+     *
+     * @param pageable the pagination information
+     * @return the list of people
+     */
+    @Transactional(readOnly = true)
+    public Slice<PersonDTO> findAllSlice(Pageable pageable) {
+        log.debug("Request to get a slice of People");
+        return personRepository.findSlice(null, pageable);
+    }
+
+    /**
+     * Estimate the number of people from the database statistics.
+     *
+     * @return the estimated number of people, or empty if the database does not provide one
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> estimateCount() {
+        return tableStatisticsRepository.estimateRowCount("person");
     }
 
     /**
@@ -68,5 +133,7 @@ public class PersonService {
     public void delete(Long id) {
         log.debug("Request to delete Person : {}", id);
         personRepository.delete(id);
+        personSearchIndex.remove(id);
+        personSearchCache.invalidate();
     }
 }
@@ -1,25 +1,33 @@
 package com.yep.service;
 
 import com.yep.config.CacheConfiguration;
+import com.yep.config.ReplicaRoutingDataSource;
 import com.yep.domain.Authority;
 import com.yep.domain.User;
 import com.yep.repository.AuthorityRepository;
+import com.yep.repository.TableStatisticsRepository;
 import com.yep.config.Constants;
 import com.yep.repository.UserRepository;
 import com.yep.security.AuthoritiesConstants;
+import com.yep.security.DomainUserDetailsService;
 import com.yep.security.SecurityUtils;
 import com.yep.service.util.RandomUtil;
 import com.yep.service.dto.UserDTO;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
 import org.springframework.cache.CacheManager;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.security.crypto.password.PasswordEncoder;
 import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Propagation;
 import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
 
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
@@ -28,6 +36,9 @@ import java.util.stream.Collectors;
 
 /**
  * Service class for managing users.
+ * <p>
+ * The methods setting a password hash it before their transaction starts, so that no database connection is held
+ * during the hashing. They only join the transaction of their caller if there is one.
  */
 @Service
 @Transactional
@@ -43,11 +54,18 @@ public class UserService {
 
     private final CacheManager cacheManager;
 
-    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository, CacheManager cacheManager) {
+    private final TableStatisticsRepository tableStatisticsRepository;
+
+    private final TransactionTemplate transactionTemplate;
+
+    public UserService(UserRepository userRepository, PasswordEncoder passwordEncoder, AuthorityRepository authorityRepository, CacheManager cacheManager, TableStatisticsRepository tableStatisticsRepository,
+            PlatformTransactionManager transactionManager) {
         this.userRepository = userRepository;
         this.passwordEncoder = passwordEncoder;
         this.authorityRepository = authorityRepository;
         this.cacheManager = cacheManager;
+        this.tableStatisticsRepository = tableStatisticsRepository;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
     }
 
     public Optional<User> activateRegistration(String key) {
@@ -64,19 +82,21 @@ public class UserService {
             });
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public Optional<User> completePasswordReset(String newPassword, String key) {
        log.debug("Reset user password for reset key {}", key);
+       String encryptedPassword = passwordEncoder.encode(newPassword);
 
-       return userRepository.findOneByResetKey(key)
+       return transactionTemplate.execute(status -> userRepository.findOneByResetKey(key)
            .filter(user -> user.getResetDate().isAfter(Instant.now().minusSeconds(86400)))
            .map(user -> {
-                user.setPassword(passwordEncoder.encode(newPassword));
+                user.setPassword(encryptedPassword);
                 user.setResetKey(null);
                 user.setResetDate(null);
                 cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
                 cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
                 return user;
-           });
+           }));
     }
 
     public Optional<User> requestPasswordReset(String mail) {
@@ -91,12 +111,16 @@ public class UserService {
             });
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User registerUser(UserDTO userDTO, String password) {
+        String encryptedPassword = passwordEncoder.encode(password);
+        return transactionTemplate.execute(status -> saveRegisteredUser(userDTO, encryptedPassword));
+    }
 
+    private User saveRegisteredUser(UserDTO userDTO, String encryptedPassword) {
         User newUser = new User();
         Authority authority = authorityRepository.findOne(AuthoritiesConstants.USER);
         Set<Authority> authorities = new HashSet<>();
-        String encryptedPassword = passwordEncoder.encode(password);
         newUser.setLogin(userDTO.getLogin());
         // new user gets initially a generated password
         newUser.setPassword(encryptedPassword);
@@ -114,11 +138,18 @@ public class UserService {
         userRepository.save(newUser);
         cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(newUser.getLogin());
         cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(newUser.getEmail());
+        evictUnknownPrincipals(newUser);
         log.debug("Created Information for User: {}", newUser);
         return newUser;
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public User createUser(UserDTO userDTO) {
+        String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
+        return transactionTemplate.execute(status -> saveCreatedUser(userDTO, encryptedPassword));
+    }
+
+    private User saveCreatedUser(UserDTO userDTO, String encryptedPassword) {
         User user = new User();
         user.setLogin(userDTO.getLogin());
         user.setFirstName(userDTO.getFirstName());
@@ -136,7 +167,6 @@ public class UserService {
                 .collect(Collectors.toSet());
             user.setAuthorities(authorities);
         }
-        String encryptedPassword = passwordEncoder.encode(RandomUtil.generatePassword());
         user.setPassword(encryptedPassword);
         user.setResetKey(RandomUtil.generateResetKey());
         user.setResetDate(Instant.now());
@@ -144,6 +174,7 @@ public class UserService {
         userRepository.save(user);
         cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
         cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+        evictUnknownPrincipals(user);
         log.debug("Created Information for User: {}", user);
         return user;
     }
@@ -168,6 +199,7 @@ public class UserService {
                 user.setImageUrl(imageUrl);
                 cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
                 cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                evictUnknownPrincipals(user);
                 log.debug("Changed Information for User: {}", user);
             });
     }
@@ -196,6 +228,7 @@ public class UserService {
                     .forEach(managedAuthorities::add);
                 cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
                 cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                evictUnknownPrincipals(user);
                 log.debug("Changed Information for User: {}", user);
                 return user;
             })
@@ -211,26 +244,91 @@ public class UserService {
         });
     }
 
+    @Transactional(propagation = Propagation.SUPPORTS)
     public void changePassword(String password) {
-        SecurityUtils.getCurrentUserLogin()
-            .flatMap(userRepository::findOneByLogin)
-            .ifPresent(user -> {
-                String encryptedPassword = passwordEncoder.encode(password);
-                user.setPassword(encryptedPassword);
-                cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
-                cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
-                log.debug("Changed password for User: {}", user);
-            });
+        String encryptedPassword = passwordEncoder.encode(password);
+        transactionTemplate.execute(status -> {
+            SecurityUtils.getCurrentUserLogin()
+                .flatMap(userRepository::findOneByLogin)
+                .ifPresent(user -> {
+                    user.setPassword(encryptedPassword);
+                    cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).evict(user.getLogin());
+                    cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).evict(user.getEmail());
+                    log.debug("Changed password for User: {}", user);
+                });
+            return null;
+        });
+    }
+
+    /**
+     * Forget that the login and email of a user created or changed were unknown, see DomainUserDetailsService.
+     */
+    private void evictUnknownPrincipals(User user) {
+        Cache unknownPrincipals = cacheManager.getCache(DomainUserDetailsService.UNKNOWN_PRINCIPALS_CACHE);
+        unknownPrincipals.evict(user.getLogin());
+        if (user.getEmail() != null) {
+            unknownPrincipals.evict(user.getEmail().toLowerCase(Locale.ENGLISH));
+        }
     }
 
+    /**
+     * Get a page of the managed users.
+     * <p>
+     * The users are projected to DTOs and their authorities read by a single query for the whole page, so no
+     * managed entity is loaded.
+     *
+     * @param pageable the pagination information
+     * @return a page of users
+     */
     @Transactional(readOnly = true)
     public Page<UserDTO> getAllManagedUsers(Pageable pageable) {
-        return userRepository.findAllByLoginNot(pageable, Constants.ANONYMOUS_USER).map(UserDTO::new);
+        return withAuthorities(userRepository.findAllDTOByLoginNot(pageable, Constants.ANONYMOUS_USER));
+    }
+
+    /**
+     * Get a slice of the managed users, without counting them.
+     *
+     * @param pageable the pagination information
+     * @return a slice of users
+     */
+    @Transactional(readOnly = true)
+    public Slice<UserDTO> getAllManagedUsersSlice(Pageable pageable) {
+        return withAuthorities(userRepository.findSliceDTOByLoginNot(pageable, Constants.ANONYMOUS_USER));
+    }
+
+    private <S extends Slice<UserDTO>> S withAuthorities(S users) {
+        Map<Long, UserDTO> usersById = new HashMap<>();
+        for (UserDTO user : users) {
+            user.setAuthorities(new HashSet<>());
+            usersById.put(user.getId(), user);
+        }
+        if (!usersById.isEmpty()) {
+            for (Object[] row : userRepository.findAuthorityNamesByUserIdIn(usersById.keySet())) {
+                usersById.get(row[0]).getAuthorities().add((String) row[1]);
+            }
+        }
+        return users;
+    }
+
+    /**
+     * Estimate the number of users from the database statistics.
+     *
+     * @return the estimated number of users, or empty if the database does not provide one
+     */
+    @Transactional(readOnly = true)
+    public Optional<Long> estimateManagedUsersCount() {
+        return tableStatisticsRepository.estimateRowCount("jhi_user");
     }
 
+    /**
+     * The user is cached, so it is read from the primary, as are the other cached lookups: read from a lagging
+     * replica right after a change, it would be cached as it was until it expires.
+     */
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthoritiesByLogin(String login) {
-        return userRepository.findOneWithAuthoritiesByLogin(login);
+        try (ReplicaRoutingDataSource.PrimaryScope primary = ReplicaRoutingDataSource.forcePrimary()) {
+            return userRepository.findOneWithAuthoritiesByLogin(login);
+        }
     }
 
     @Transactional(readOnly = true)
@@ -240,7 +338,9 @@ public class UserService {
 
     @Transactional(readOnly = true)
     public Optional<User> getUserWithAuthorities() {
-        return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
+        try (ReplicaRoutingDataSource.PrimaryScope primary = ReplicaRoutingDataSource.forcePrimary()) {
+            return SecurityUtils.getCurrentUserLogin().flatMap(userRepository::findOneWithAuthoritiesByLogin);
+        }
     }
 
     /**
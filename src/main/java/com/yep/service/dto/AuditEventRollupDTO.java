@@ -0,0 +1,98 @@
+package com.yep.service.dto;
+
+import java.io.Serializable;
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+
+/**
+ * A DTO for the number of audit events during a time bucket, by type and principal.
+ * <p>
+ * The type or the principal is null when the events are not grouped by it.
+ */
+public class AuditEventRollupDTO implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    /**
+     * Duration of the time buckets.
+     */
+    public enum Granularity {
+        MINUTE(ChronoUnit.MINUTES), HOUR(ChronoUnit.HOURS), DAY(ChronoUnit.DAYS);
+
+        private final ChronoUnit unit;
+
+        Granularity(ChronoUnit unit) {
+            this.unit = unit;
+        }
+
+        /**
+         * Get the start of the bucket of a date, in UTC.
+         *
+         * @param date the date
+         * @return the start of its bucket
+         */
+        public Instant bucketOf(Instant date) {
+            return date.truncatedTo(unit);
+        }
+    }
+
+    private Instant bucketStart;
+
+    private String type;
+
+    private String principal;
+
+    private long count;
+
+    public AuditEventRollupDTO() {
+    }
+
+    public AuditEventRollupDTO(Instant bucketStart, String type, String principal, long count) {
+        this.bucketStart = bucketStart;
+        this.type = type;
+        this.principal = principal;
+        this.count = count;
+    }
+
+    public Instant getBucketStart() {
+        return bucketStart;
+    }
+
+    public void setBucketStart(Instant bucketStart) {
+        this.bucketStart = bucketStart;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    public void setType(String type) {
+        this.type = type;
+    }
+
+    public String getPrincipal() {
+        return principal;
+    }
+
+    public void setPrincipal(String principal) {
+        this.principal = principal;
+    }
+
+    public long getCount() {
+        return count;
+    }
+
+    public void setCount(long count) {
+        this.count = count;
+    }
+
+    @Override
+    public String toString() {
+        return "AuditEventRollupDTO{" +
+            "bucketStart=" + bucketStart +
+            ", type='" + type + "'" +
+            ", principal='" + principal + "'" +
+            ", count=" + count +
+            "}";
+    }
+}
@@ -0,0 +1,140 @@
+package com.yep.service.dto;
+
+
+import org.springframework.data.domain.Sort;
+
+import java.io.Serializable;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.Base64;
+import java.util.List;
+
+/**
+ * Position in a keyset paginated list of people.
+ * <p>
+ * A cursor holds the sort column and direction, plus the sort value and id of the last person returned. The next
+ * page is then read with {@code WHERE (sort_col, id) > (?, ?)}, so every page costs the same no matter how deep it
+ * is. Clients only see the cursor as an opaque string, see {@link #encode()}.
+ */
+public final class PersonCursor implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    public static final List<String> SORT_PROPERTIES = Arrays.asList("id", "nationalId", "fullName");
+
+    private static final String SEPARATOR = ":";
+
+    private final String property;
+
+    private final Sort.Direction direction;
+
+    private final Long lastId;
+
+    private final String lastValue;
+
+    private PersonCursor(String property, Sort.Direction direction, Long lastId, String lastValue) {
+        this.property = property;
+        this.direction = direction;
+        this.lastId = lastId;
+        this.lastValue = lastValue;
+    }
+
+    /**
+     * Create the cursor of the first page, sorted on the first order of the sort.
+     *
+     * @param sort the requested sort, may be {@code null} to sort by id
+     * @return the cursor of the first page
+     * @throws IllegalArgumentException if the sort property is not supported
+     */
+    public static PersonCursor first(Sort sort) {
+        if (sort == null || !sort.iterator().hasNext()) {
+            return new PersonCursor("id", Sort.Direction.ASC, null, null);
+        }
+        Sort.Order order = sort.iterator().next();
+        if (!SORT_PROPERTIES.contains(order.getProperty())) {
+            throw new IllegalArgumentException("Unsupported sort property: " + order.getProperty());
+        }
+        return new PersonCursor(order.getProperty(), order.getDirection(), null, null);
+    }
+
+    /**
+     * Decode a cursor created by {@link #encode()}.
+     *
+     * @param cursor the encoded cursor
+     * @return the decoded cursor
+     * @throws IllegalArgumentException if the cursor is not valid
+     */
+    public static PersonCursor decode(String cursor) {
+        String decoded = new String(Base64.getUrlDecoder().decode(cursor), StandardCharsets.UTF_8);
+        String[] parts = decoded.split(SEPARATOR, 4);
+        if (parts.length != 4 || !SORT_PROPERTIES.contains(parts[0]) || parts[3].isEmpty()) {
+            throw new IllegalArgumentException("Invalid cursor");
+        }
+        Sort.Direction direction = Sort.Direction.fromString(parts[1]);
+        Long lastId = parts[2].isEmpty() ? null : Long.valueOf(parts[2]);
+        String lastValue = parts[3].charAt(0) == 'v' ? parts[3].substring(1) : null;
+        return new PersonCursor(parts[0], direction, lastId, lastValue);
+    }
+
+    /**
+     * @return the cursor of the first page, with the same sort
+     */
+    public PersonCursor first() {
+        return new PersonCursor(property, direction, null, null);
+    }
+
+    /**
+     * Create the cursor of the page following the given person.
+     *
+     * @param person the last person of the current page
+     * @return the cursor of the next page
+     */
+    public PersonCursor after(PersonDTO person) {
+        String value = null;
+        if ("nationalId".equals(property)) {
+            value = person.getNationalId();
+        } else if ("fullName".equals(property)) {
+            value = person.getFullName();
+        }
+        return new PersonCursor(property, direction, person.getId(), value);
+    }
+
+    /**
+     * @return the cursor as an opaque, URL safe string
+     */
+    public String encode() {
+        String value = lastValue == null ? "n" : "v" + lastValue;
+        String raw = property + SEPARATOR + direction.name() + SEPARATOR + (lastId == null ? "" : lastId) + SEPARATOR + value;
+        return Base64.getUrlEncoder().withoutPadding().encodeToString(raw.getBytes(StandardCharsets.UTF_8));
+    }
+
+    public boolean isFirst() {
+        return lastId == null;
+    }
+
+    public String getProperty() {
+        return property;
+    }
+
+    public Sort.Direction getDirection() {
+        return direction;
+    }
+
+    public Long getLastId() {
+        return lastId;
+    }
+
+    public String getLastValue() {
+        return lastValue;
+    }
+
+    @Override
+    public String toString() {
+        return "PersonCursor{" +
+            "property='" + property + "'" +
+            ", direction=" + direction +
+            ", lastId=" + lastId +
+            ", lastValue='" + lastValue + "'" +
+            "}";
+    }
+}
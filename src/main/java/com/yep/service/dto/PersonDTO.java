@@ -0,0 +1,59 @@
+package com.yep.service.dto;
+
+/**
+ * A DTO representing a person as returned by the list endpoints.
+ * <p>
+ * It is built by constructor projections straight from the selected columns, so listing people does not load
+ * managed entities in the persistence context.
+ */
+public class PersonDTO {
+
+    private Long id;
+
+    private String nationalId;
+
+    private String fullName;
+
+    public PersonDTO() {
+        // Empty constructor needed for Jackson.
+    }
+
+    public PersonDTO(Long id, String nationalId, String fullName) {
+        this.id = id;
+        this.nationalId = nationalId;
+        this.fullName = fullName;
+    }
+
+    public Long getId() {
+        return id;
+    }
+
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    public String getNationalId() {
+        return nationalId;
+    }
+
+    public void setNationalId(String nationalId) {
+        this.nationalId = nationalId;
+    }
+
+    public String getFullName() {
+        return fullName;
+    }
+
+    public void setFullName(String fullName) {
+        this.fullName = fullName;
+    }
+
+    @Override
+    public String toString() {
+        return "PersonDTO{" +
+            "id=" + id +
+            ", nationalId='" + nationalId + "'" +
+            ", fullName='" + fullName + "'" +
+            "}";
+    }
+}
@@ -0,0 +1,126 @@
+package com.yep.service.dto;
+
+import java.time.Instant;
+import java.util.List;
+
+/**
+ * A DTO representing the progress of a person import job.
+ */
+public class PersonImportJobDTO {
+
+    public enum Status {
+        QUEUED, RUNNING, COMPLETED, FAILED
+    }
+
+    private String id;
+
+    private Status status;
+
+    private long rowsProcessed;
+
+    private long rowsImported;
+
+    private long rowsRejected;
+
+    private double rowsPerSecond;
+
+    private Instant createdDate;
+
+    private Instant startedDate;
+
+    private Instant finishedDate;
+
+    private List<String> errors;
+
+    public String getId() {
+        return id;
+    }
+
+    public void setId(String id) {
+        this.id = id;
+    }
+
+    public Status getStatus() {
+        return status;
+    }
+
+    public void setStatus(Status status) {
+        this.status = status;
+    }
+
+    public long getRowsProcessed() {
+        return rowsProcessed;
+    }
+
+    public void setRowsProcessed(long rowsProcessed) {
+        this.rowsProcessed = rowsProcessed;
+    }
+
+    public long getRowsImported() {
+        return rowsImported;
+    }
+
+    public void setRowsImported(long rowsImported) {
+        this.rowsImported = rowsImported;
+    }
+
+    public long getRowsRejected() {
+        return rowsRejected;
+    }
+
+    public void setRowsRejected(long rowsRejected) {
+        this.rowsRejected = rowsRejected;
+    }
+
+    public double getRowsPerSecond() {
+        return rowsPerSecond;
+    }
+
+    public void setRowsPerSecond(double rowsPerSecond) {
+        this.rowsPerSecond = rowsPerSecond;
+    }
+
+    public Instant getCreatedDate() {
+        return createdDate;
+    }
+
+    public void setCreatedDate(Instant createdDate) {
+        this.createdDate = createdDate;
+    }
+
+    public Instant getStartedDate() {
+        return startedDate;
+    }
+
+    public void setStartedDate(Instant startedDate) {
+        this.startedDate = startedDate;
+    }
+
+    public Instant getFinishedDate() {
+        return finishedDate;
+    }
+
+    public void setFinishedDate(Instant finishedDate) {
+        this.finishedDate = finishedDate;
+    }
+
+    public List<String> getErrors() {
+        return errors;
+    }
+
+    public void setErrors(List<String> errors) {
+        this.errors = errors;
+    }
+
+    @Override
+    public String toString() {
+        return "PersonImportJobDTO{" +
+            "id='" + id + "'" +
+            ", status=" + status +
+            ", rowsProcessed=" + rowsProcessed +
+            ", rowsImported=" + rowsImported +
+            ", rowsRejected=" + rowsRejected +
+            ", rowsPerSecond=" + rowsPerSecond +
+            "}";
+    }
+}
@@ -57,6 +57,26 @@ public class UserDTO {
         // Empty constructor needed for Jackson.
     }
 
+    /**
+     * Constructor of the managed users projection, the authorities are set afterwards.
+     */
+    public UserDTO(Long id, String login, String firstName, String lastName, String email, String imageUrl,
+            boolean activated, String langKey, String createdBy, Instant createdDate, String lastModifiedBy,
+            Instant lastModifiedDate) {
+        this.id = id;
+        this.login = login;
+        this.firstName = firstName;
+        this.lastName = lastName;
+        this.email = email;
+        this.imageUrl = imageUrl;
+        this.activated = activated;
+        this.langKey = langKey;
+        this.createdBy = createdBy;
+        this.createdDate = createdDate;
+        this.lastModifiedBy = lastModifiedBy;
+        this.lastModifiedDate = lastModifiedDate;
+    }
+
     public UserDTO(User user) {
         this.id = user.getId();
         this.login = user.getLogin();
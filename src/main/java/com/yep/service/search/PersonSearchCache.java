@@ -0,0 +1,207 @@
+package com.yep.service.search;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.cache.Cache;
+import org.springframework.cache.CacheManager;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * Cache of the ids matching a keyword search, by normalized keyword and page.
+ * <p>
+ * Every entry is keyed with the generation it was computed in. Writes to people only increment the generation, so
+ * stale entries are never read again and are left to the size and time to live limits of the cache, rather than
+ * being evicted one by one.
+ */
+@Component
+public class PersonSearchCache {
+
+    public static final String PERSON_SEARCH_CACHE = "personSearch";
+
+    private final Logger log = LoggerFactory.getLogger(PersonSearchCache.class);
+
+    private final CacheManager cacheManager;
+
+    private final AtomicLong generation = new AtomicLong();
+
+    private final Meter hits;
+
+    private final Meter misses;
+
+    public PersonSearchCache(CacheManager cacheManager, MetricRegistry metricRegistry) {
+        this.cacheManager = cacheManager;
+        this.hits = metricRegistry.meter(MetricRegistry.name(PersonSearchCache.class, "hits"));
+        this.misses = metricRegistry.meter(MetricRegistry.name(PersonSearchCache.class, "misses"));
+    }
+
+    /**
+     * Normalize a keyword the way searches compare it: trimmed and lower-cased.
+     *
+     * @param keyword the keyword typed by the user
+     * @return the normalized keyword
+     */
+    public static String normalize(String keyword) {
+        return keyword == null ? "" : keyword.trim().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Return the cached result of a search, or run it and cache its result.
+     *
+     * @param keyword the normalized keyword
+     * @param page the requested page
+     * @param counted whether the result holds the total number of matches
+     * @param search the search to run on a miss
+     * @return the ids of the page and the totals
+     */
+    public Result get(String keyword, Pageable page, boolean counted, Supplier<Result> search) {
+        Key key = new Key(generation.get(), keyword, page, counted);
+        Cache cache = cacheManager.getCache(PERSON_SEARCH_CACHE);
+        Result result = cache.get(key, Result.class);
+        if (result != null) {
+            hits.mark();
+            return result;
+        }
+        misses.mark();
+        result = search.get();
+        cache.put(key, result);
+        return result;
+    }
+
+    /**
+     * Make all the cached results stale.
+     * <p>
+     * When a transaction is active, the results cached by other threads until it completes may not see its writes
+     * yet, so they are made stale again once it completes.
+     */
+    public void invalidate() {
+        nextGeneration();
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCompletion(int status) {
+                    nextGeneration();
+                }
+            });
+        }
+    }
+
+    private void nextGeneration() {
+        log.debug("Person search cache is now at generation {}", generation.incrementAndGet());
+    }
+
+    /**
+     * The ids of a page of search results, in rank order, with the total number of matches when it was counted.
+     */
+    public static class Result implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final ArrayList<Long> ids;
+
+        private final long total;
+
+        private final boolean hasNext;
+
+        private Result(List<Long> ids, long total, boolean hasNext) {
+            this.ids = new ArrayList<>(ids);
+            this.total = total;
+            this.hasNext = hasNext;
+        }
+
+        public static Result counted(List<Long> ids, long total) {
+            return new Result(ids, total, false);
+        }
+
+        public static Result uncounted(List<Long> ids, boolean hasNext) {
+            return new Result(ids, -1, hasNext);
+        }
+
+        public List<Long> getIds() {
+            return Collections.unmodifiableList(ids);
+        }
+
+        public long getTotal() {
+            return total;
+        }
+
+        public boolean hasNext() {
+            return hasNext;
+        }
+    }
+
+    private static class Key implements Serializable {
+
+        private static final long serialVersionUID = 1L;
+
+        private final long generation;
+
+        private final String keyword;
+
+        private final int offset;
+
+        private final int size;
+
+        private final Sort sort;
+
+        private final boolean counted;
+
+        Key(long generation, String keyword, Pageable page, boolean counted) {
+            this.generation = generation;
+            this.keyword = keyword;
+            this.offset = page.getOffset();
+            this.size = page.getPageSize();
+            this.sort = page.getSort();
+            this.counted = counted;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Key key = (Key) o;
+            return generation == key.generation &&
+                offset == key.offset &&
+                size == key.size &&
+                counted == key.counted &&
+                keyword.equals(key.keyword) &&
+                Objects.equals(sort, key.sort);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hash(generation, keyword, offset, size, sort, counted);
+        }
+
+        @Override
+        public String toString() {
+            return "Key{" +
+                "generation=" + generation +
+                ", keyword='" + keyword + "'" +
+                ", offset=" + offset +
+                ", size=" + size +
+                ", sort=" + sort +
+                ", counted=" + counted +
+                "}";
+        }
+    }
+}
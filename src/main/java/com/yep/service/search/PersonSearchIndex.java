@@ -0,0 +1,576 @@
+package com.yep.service.search;
+
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.Person;
+import com.yep.repository.PersonRepository;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.Sort;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.BitSet;
+import java.util.Locale;
+import java.util.concurrent.Executor;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * In-memory trigram index over the full name and national id of every {@link Person}.
+ * <p>
+ * Each lower-cased field value is split into overlapping 3-character grams, and every gram points to a sorted
+ * posting list of document ordinals. A "contains" query intersects the posting lists of the keyword's grams and
+ * only verifies the remaining candidates, instead of the full table scan that {@code LIKE '%keyword%'} requires.
+ * <p>
+ * The index is built in the background once the application is ready, and kept current by
+ * {@link com.yep.service.PersonService}. Until it is ready, {@link #search(String)} returns {@code null} and the
+ * caller is expected to fall back to the database.
+ */
+@Component
+public class PersonSearchIndex {
+
+    static final int RANK_EXACT = 0;
+
+    static final int RANK_PREFIX = 1;
+
+    static final int RANK_SUBSTRING = 2;
+
+    private static final int GRAM_LENGTH = 3;
+
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private static final int COMPACTION_THRESHOLD = 1024;
+
+    // The deadline of suggestions is checked every 64 documents
+    private static final int DEADLINE_CHECK_MASK = 63;
+
+    private final Logger log = LoggerFactory.getLogger(PersonSearchIndex.class);
+
+    private final PersonRepository personRepository;
+
+    private final Executor taskExecutor;
+
+    private final ApplicationProperties.PersonSearch properties;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+
+    // Document store, indexed by ordinal
+    private long[] ids;
+
+    private String[] fullNames;
+
+    private String[] nationalIds;
+
+    private int documentCount;
+
+    private BitSet deleted;
+
+    private int deletedCount;
+
+    private LongIntHashMap ordinalsById;
+
+    // Trigram dictionary, each gram points to a slot in the posting arrays
+    private LongIntHashMap slotsByGram;
+
+    private int[][] postings;
+
+    private int[] postingSizes;
+
+    private int gramCount;
+
+    // Ids written while a rebuild is in progress, the rebuild must not overwrite them with older data
+    private LongIntHashMap touchedDuringRebuild;
+
+    private volatile boolean ready;
+
+    public PersonSearchIndex(PersonRepository personRepository, @Qualifier("taskExecutor") Executor taskExecutor,
+            ApplicationProperties applicationProperties) {
+        this.personRepository = personRepository;
+        this.taskExecutor = taskExecutor;
+        this.properties = applicationProperties.getPersonSearch();
+        clear();
+    }
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void onApplicationReady() {
+        if (properties.isIndexEnabled()) {
+            taskExecutor.execute(this::rebuild);
+        }
+    }
+
+    /**
+     * Load every person from the database into a fresh index, one id-ordered batch at a time.
+     * <p>
+     * Writes happening during the rebuild are applied immediately and take precedence over the rows being loaded.
+     */
+    public void rebuild() {
+        log.debug("Building the person search index");
+        long start = System.currentTimeMillis();
+        lock.writeLock().lock();
+        try {
+            ready = false;
+            clear();
+            touchedDuringRebuild = new LongIntHashMap(16);
+        } finally {
+            lock.writeLock().unlock();
+        }
+        try {
+            Pageable batch = new PageRequest(0, properties.getIndexBatchSize(), Sort.Direction.ASC, "id");
+            long lastId = Long.MIN_VALUE;
+            Slice<Person> slice;
+            do {
+                slice = personRepository.findByIdGreaterThan(lastId, batch);
+                lock.writeLock().lock();
+                try {
+                    for (Person person : slice) {
+                        if (touchedDuringRebuild.get(person.getId()) == LongIntHashMap.NO_VALUE) {
+                            add(person.getId(), person.getFullName(), person.getNationalId());
+                        }
+                        lastId = person.getId();
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } while (slice.hasNext());
+            lock.writeLock().lock();
+            try {
+                touchedDuringRebuild = null;
+                ready = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+            log.info("Person search index built with {} documents in {} ms", size(), System.currentTimeMillis() - start);
+        } catch (RuntimeException e) {
+            log.warn("Could not build the person search index, keyword searches will use the database: {}", e.getMessage());
+            // Neither keep the partial index, nor track the writes for a rebuild which is over
+            lock.writeLock().lock();
+            try {
+                touchedDuringRebuild = null;
+                clear();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        }
+    }
+
+    /**
+     * Add or replace a person in the index.
+     * <p>
+     * When a transaction is active the change is applied after it commits, so rolled back writes never show up
+     * in search results.
+     *
+     * @param person the saved person
+     */
+    public void update(Person person) {
+        if (!properties.isIndexEnabled()) {
+            return;
+        }
+        final long id = person.getId();
+        final String fullName = person.getFullName();
+        final String nationalId = person.getNationalId();
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                touch(id);
+                removeOrdinal(ordinalsById.remove(id));
+                add(id, fullName, nationalId);
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Remove a person from the index, after the current transaction commits if there is one.
+     *
+     * @param id the id of the deleted person
+     */
+    public void remove(Long id) {
+        if (!properties.isIndexEnabled()) {
+            return;
+        }
+        afterCommit(() -> {
+            lock.writeLock().lock();
+            try {
+                touch(id);
+                removeOrdinal(ordinalsById.remove(id));
+                compactIfNeeded();
+            } finally {
+                lock.writeLock().unlock();
+            }
+        });
+    }
+
+    /**
+     * Find the ids of all people whose full name or national id contains the keyword, ignoring case.
+     * <p>
+     * Results are ranked: an exact national id match first, then values starting with the keyword, then values
+     * containing it. Ids are ascending within a rank.
+     *
+     * @param keyword the keyword to search for
+     * @return the ranked ids, or {@code null} if the index cannot answer and the database should be used instead
+     */
+    public long[] search(String keyword) {
+        if (!ready || keyword == null) {
+            return null;
+        }
+        String query = normalize(keyword.trim());
+        if (query.isEmpty()) {
+            return null;
+        }
+        lock.readLock().lock();
+        try {
+            RankedIds ranked = new RankedIds();
+            if (query.length() < GRAM_LENGTH) {
+                for (int ordinal = 0; ordinal < documentCount; ordinal++) {
+                    collect(ordinal, query, ranked);
+                }
+            } else {
+                int[] candidates = candidates(query);
+                for (int candidate : candidates) {
+                    collect(candidate, query, ranked);
+                }
+            }
+            return ranked.toArray();
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Find the ids of the best matches of a keyword, for autocompletion.
+     * <p>
+     * Matches are ranked like {@link #search(String)}, but the scan stops as soon as {@code limit} exact or prefix
+     * matches are found. It also stops when the deadline passes, in which case the matches found so far are returned.
+     *
+     * @param keyword the keyword to search for
+     * @param limit the maximum number of ids to return
+     * @param deadline the {@link System#nanoTime()} value after which the scan stops
+     * @return the suggestions, or {@code null} if the index is not ready
+     */
+    public Suggestions suggest(String keyword, int limit, long deadline) {
+        if (!ready || keyword == null) {
+            return null;
+        }
+        String query = normalize(keyword.trim());
+        if (query.isEmpty()) {
+            return new Suggestions(new long[0], true);
+        }
+        lock.readLock().lock();
+        try {
+            int[] candidates = query.length() < GRAM_LENGTH ? null : candidates(query);
+            int candidateCount = candidates == null ? documentCount : candidates.length;
+            RankedIds ranked = new RankedIds();
+            boolean complete = true;
+            for (int i = 0; i < candidateCount && ranked.size(RANK_EXACT) + ranked.size(RANK_PREFIX) < limit; i++) {
+                if ((i & DEADLINE_CHECK_MASK) == 0 && System.nanoTime() - deadline > 0) {
+                    complete = false;
+                    break;
+                }
+                collect(candidates == null ? i : candidates[i], query, ranked);
+            }
+            long[] ids = ranked.toArray();
+            return new Suggestions(ids.length > limit ? Arrays.copyOf(ids, limit) : ids, complete);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public boolean isReady() {
+        return ready;
+    }
+
+    /**
+     * @return the number of people currently in the index
+     */
+    public int size() {
+        lock.readLock().lock();
+        try {
+            return documentCount - deletedCount;
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    private void afterCommit(Runnable change) {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.registerSynchronization(new TransactionSynchronizationAdapter() {
+                @Override
+                public void afterCommit() {
+                    change.run();
+                }
+            });
+        } else {
+            change.run();
+        }
+    }
+
+    private void touch(long id) {
+        if (touchedDuringRebuild != null) {
+            touchedDuringRebuild.put(id, 0);
+        }
+    }
+
+    /**
+     * Intersect the posting lists of all the grams of the query, smallest list first.
+     */
+    private int[] candidates(String query) {
+        int[] slots = new int[query.length() - GRAM_LENGTH + 1];
+        int slotCount = 0;
+        for (int i = 0; i + GRAM_LENGTH <= query.length(); i++) {
+            int slot = slotsByGram.get(gram(query, i));
+            if (slot == LongIntHashMap.NO_VALUE) {
+                return new int[0];
+            }
+            if (!contains(slots, slotCount, slot)) {
+                slots[slotCount++] = slot;
+            }
+        }
+        sortBySize(slots, slotCount);
+        int[] result = Arrays.copyOf(postings[slots[0]], postingSizes[slots[0]]);
+        int resultSize = result.length;
+        for (int i = 1; i < slotCount && resultSize > 0; i++) {
+            resultSize = intersect(result, resultSize, postings[slots[i]], postingSizes[slots[i]]);
+        }
+        return resultSize == result.length ? result : Arrays.copyOf(result, resultSize);
+    }
+
+    private void collect(int ordinal, String query, RankedIds ranked) {
+        if (deleted.get(ordinal)) {
+            return;
+        }
+        String fullName = fullNames[ordinal];
+        String nationalId = nationalIds[ordinal];
+        if (nationalId != null && nationalId.equals(query)) {
+            ranked.add(RANK_EXACT, ids[ordinal]);
+        } else if ((fullName != null && fullName.startsWith(query)) || (nationalId != null && nationalId.startsWith(query))) {
+            ranked.add(RANK_PREFIX, ids[ordinal]);
+        } else if ((fullName != null && fullName.contains(query)) || (nationalId != null && nationalId.contains(query))) {
+            ranked.add(RANK_SUBSTRING, ids[ordinal]);
+        }
+    }
+
+    private void add(long id, String fullName, String nationalId) {
+        int ordinal = documentCount++;
+        if (ordinal == ids.length) {
+            int capacity = ids.length << 1;
+            ids = Arrays.copyOf(ids, capacity);
+            fullNames = Arrays.copyOf(fullNames, capacity);
+            nationalIds = Arrays.copyOf(nationalIds, capacity);
+        }
+        ids[ordinal] = id;
+        fullNames[ordinal] = normalize(fullName);
+        nationalIds[ordinal] = normalize(nationalId);
+        ordinalsById.put(id, ordinal);
+        addGrams(fullNames[ordinal], ordinal);
+        addGrams(nationalIds[ordinal], ordinal);
+    }
+
+    private void addGrams(String value, int ordinal) {
+        if (value == null) {
+            return;
+        }
+        for (int i = 0; i + GRAM_LENGTH <= value.length(); i++) {
+            long gram = gram(value, i);
+            int slot = slotsByGram.get(gram);
+            if (slot == LongIntHashMap.NO_VALUE) {
+                slot = gramCount++;
+                if (slot == postings.length) {
+                    postings = Arrays.copyOf(postings, slot << 1);
+                    postingSizes = Arrays.copyOf(postingSizes, slot << 1);
+                }
+                postings[slot] = new int[4];
+                slotsByGram.put(gram, slot);
+            }
+            int size = postingSizes[slot];
+            // Ordinals are appended in increasing order, so a repeated gram only needs to check the last entry
+            if (size > 0 && postings[slot][size - 1] == ordinal) {
+                continue;
+            }
+            if (size == postings[slot].length) {
+                postings[slot] = Arrays.copyOf(postings[slot], size << 1);
+            }
+            postings[slot][size] = ordinal;
+            postingSizes[slot] = size + 1;
+        }
+    }
+
+    private void removeOrdinal(int ordinal) {
+        if (ordinal == LongIntHashMap.NO_VALUE) {
+            return;
+        }
+        deleted.set(ordinal);
+        deletedCount++;
+        fullNames[ordinal] = null;
+        nationalIds[ordinal] = null;
+    }
+
+    /**
+     * Deleted documents stay in the posting lists until enough of them pile up, then the index is rebuilt
+     * from the live documents it already holds.
+     */
+    private void compactIfNeeded() {
+        if (deletedCount < COMPACTION_THRESHOLD || deletedCount < documentCount / 2) {
+            return;
+        }
+        long[] liveIds = ids;
+        String[] liveFullNames = fullNames;
+        String[] liveNationalIds = nationalIds;
+        BitSet liveDeleted = deleted;
+        int liveCount = documentCount;
+        clear();
+        for (int ordinal = 0; ordinal < liveCount; ordinal++) {
+            if (!liveDeleted.get(ordinal)) {
+                add(liveIds[ordinal], liveFullNames[ordinal], liveNationalIds[ordinal]);
+            }
+        }
+    }
+
+    private void clear() {
+        ids = new long[INITIAL_CAPACITY];
+        fullNames = new String[INITIAL_CAPACITY];
+        nationalIds = new String[INITIAL_CAPACITY];
+        documentCount = 0;
+        deleted = new BitSet();
+        deletedCount = 0;
+        ordinalsById = new LongIntHashMap(INITIAL_CAPACITY);
+        slotsByGram = new LongIntHashMap(INITIAL_CAPACITY);
+        postings = new int[INITIAL_CAPACITY][];
+        postingSizes = new int[INITIAL_CAPACITY];
+        gramCount = 0;
+    }
+
+    private void sortBySize(int[] slots, int count) {
+        for (int i = 1; i < count; i++) {
+            int slot = slots[i];
+            int j = i - 1;
+            while (j >= 0 && postingSizes[slots[j]] > postingSizes[slot]) {
+                slots[j + 1] = slots[j];
+                j--;
+            }
+            slots[j + 1] = slot;
+        }
+    }
+
+    /**
+     * Intersect two sorted posting lists, writing the result into the first one.
+     *
+     * @return the size of the intersection
+     */
+    static int intersect(int[] target, int targetSize, int[] other, int otherSize) {
+        int size = 0;
+        int position = 0;
+        for (int i = 0; i < targetSize && position < otherSize; i++) {
+            int ordinal = target[i];
+            position = gallop(other, position, otherSize, ordinal);
+            if (position < otherSize && other[position] == ordinal) {
+                target[size++] = ordinal;
+                position++;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * @return the first index in {@code [from, to)} whose value is not lower than {@code value}
+     */
+    private static int gallop(int[] values, int from, int to, int value) {
+        if (from >= to || values[from] >= value) {
+            return from;
+        }
+        int low = from;
+        int step = 1;
+        int high = from + 1;
+        while (high < to && values[high] < value) {
+            low = high;
+            step <<= 1;
+            high = from + step;
+        }
+        int index = Arrays.binarySearch(values, low + 1, Math.min(high, to), value);
+        return index >= 0 ? index : -index - 1;
+    }
+
+    private static boolean contains(int[] values, int size, int value) {
+        for (int i = 0; i < size; i++) {
+            if (values[i] == value) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static long gram(String value, int offset) {
+        return ((long) value.charAt(offset) << 32) | ((long) value.charAt(offset + 1) << 16) | value.charAt(offset + 2);
+    }
+
+    private static String normalize(String value) {
+        return value == null ? null : value.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * The ranked ids of the best matches of a keyword.
+     */
+    public static final class Suggestions {
+
+        private final long[] ids;
+
+        private final boolean complete;
+
+        public Suggestions(long[] ids, boolean complete) {
+            this.ids = ids;
+            this.complete = complete;
+        }
+
+        public long[] getIds() {
+            return ids;
+        }
+
+        /**
+         * @return false if the deadline passed before the index was fully scanned
+         */
+        public boolean isComplete() {
+            return complete;
+        }
+    }
+
+    /**
+     * Ids grouped by rank, kept in primitive arrays.
+     */
+    private static final class RankedIds {
+
+        private final long[][] ids = new long[RANK_SUBSTRING + 1][16];
+
+        private final int[] sizes = new int[RANK_SUBSTRING + 1];
+
+        void add(int rank, long id) {
+            if (sizes[rank] == ids[rank].length) {
+                ids[rank] = Arrays.copyOf(ids[rank], sizes[rank] << 1);
+            }
+            ids[rank][sizes[rank]++] = id;
+        }
+
+        int size(int rank) {
+            return sizes[rank];
+        }
+
+        long[] toArray() {
+            long[] result = new long[sizes[RANK_EXACT] + sizes[RANK_PREFIX] + sizes[RANK_SUBSTRING]];
+            int offset = 0;
+            for (int rank = RANK_EXACT; rank <= RANK_SUBSTRING; rank++) {
+                Arrays.sort(ids[rank], 0, sizes[rank]);
+                System.arraycopy(ids[rank], 0, result, offset, sizes[rank]);
+                offset += sizes[rank];
+            }
+            return result;
+        }
+    }
+}
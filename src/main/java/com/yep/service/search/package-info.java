@@ -0,0 +1,4 @@
+/**
+ * In-memory search indexes backing the keyword searches.
+ */
+package com.yep.service.search;
@@ -0,0 +1,85 @@
+package com.yep.service.util;
+
+import com.codahale.metrics.Meter;
+import com.codahale.metrics.MetricRegistry;
+import com.codahale.metrics.RatioGauge;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.function.Supplier;
+
+/**
+ * Utility class coalescing identical concurrent calls: while a call for a key is running, the other calls for the
+ * same key wait for its result instead of running again.
+ * <p>
+ * Nothing is cached: once the call completes, the next call for the key runs again. When no call is in flight, the
+ * overhead is a single map insertion and removal.
+ * <p>
+ * The "executions" and "coalesced" meters count the calls which ran and the calls which waited for another one, and
+ * the "coalescing-ratio" gauge is the share of calls coalesced over the last minute.
+ *
+ * @param <K> the type of the keys, which must implement equals and hashCode
+ * @param <V> the type of the results, which are shared by all the callers
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> calls = new ConcurrentHashMap<>();
+
+    private final Meter executions;
+
+    private final Meter coalesced;
+
+    public SingleFlight(MetricRegistry metricRegistry, String name) {
+        this.executions = metricRegistry.meter(MetricRegistry.name(name, "executions"));
+        this.coalesced = metricRegistry.meter(MetricRegistry.name(name, "coalesced"));
+        metricRegistry.register(MetricRegistry.name(name, "coalescing-ratio"), new RatioGauge() {
+            @Override
+            protected Ratio getRatio() {
+                return Ratio.of(coalesced.getOneMinuteRate(), executions.getOneMinuteRate() + coalesced.getOneMinuteRate());
+            }
+        });
+    }
+
+    /**
+     * Run the call, or wait for the result of the call already running for the same key.
+     *
+     * @param key the key identifying identical calls
+     * @param call the call to run
+     * @return the result of the call, possibly shared with other callers
+     */
+    public V execute(K key, Supplier<V> call) {
+        CompletableFuture<V> future = new CompletableFuture<>();
+        CompletableFuture<V> running = calls.putIfAbsent(key, future);
+        if (running != null) {
+            coalesced.mark();
+            return await(running);
+        }
+        executions.mark();
+        try {
+            V result = call.get();
+            future.complete(result);
+            return result;
+        } catch (RuntimeException | Error e) {
+            future.completeExceptionally(e);
+            throw e;
+        } finally {
+            calls.remove(key, future);
+        }
+    }
+
+    private V await(CompletableFuture<V> running) {
+        try {
+            return running.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            if (e.getCause() instanceof Error) {
+                throw (Error) e.getCause();
+            }
+            throw e;
+        }
+    }
+}
@@ -1,17 +1,24 @@
 package com.yep.web.rest;
 
+import com.yep.config.audit.AuditEventBroadcaster;
 import com.yep.service.AuditEventService;
+import com.yep.service.dto.AuditEventRollupDTO;
+import com.yep.service.dto.AuditEventRollupDTO.Granularity;
 import com.yep.web.rest.util.PaginationUtil;
 
 import io.github.jhipster.web.util.ResponseUtil;
 import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.time.Instant;
 import java.time.LocalDate;
 import java.time.ZoneId;
 import java.util.List;
@@ -25,18 +32,37 @@ public class AuditResource {
 
     private final AuditEventService auditEventService;
 
-    public AuditResource(AuditEventService auditEventService) {
+    private final AuditEventBroadcaster auditEventBroadcaster;
+
+    public AuditResource(AuditEventService auditEventService, AuditEventBroadcaster auditEventBroadcaster) {
         this.auditEventService = auditEventService;
+        this.auditEventBroadcaster = auditEventBroadcaster;
     }
 
     /**
      * GET /audits : get a page of AuditEvents.
+     * <p>
+     * With {@code count=false} the events are not counted and only the next, prev and first links are sent;
+     * {@code estimate=true} then adds the X-Total-Count-Estimate header taken from the database statistics.
      *
+     * @param count whether to count the AuditEvents
+     * @param estimate whether to send the estimated number of AuditEvents when they are not counted
      * @param pageable the pagination information
      * @return the ResponseEntity with status 200 (OK) and the list of AuditEvents in body
      */
     @GetMapping
-    public ResponseEntity<List<AuditEvent>> getAll(Pageable pageable) {
+    public ResponseEntity<List<AuditEvent>> getAll(@RequestParam(defaultValue = "true") boolean count,
+        @RequestParam(defaultValue = "false") boolean estimate, Pageable pageable) {
+
+        if (!count) {
+            Slice<AuditEvent> slice = auditEventService.findAllSlice(pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/management/audits?count=false");
+            if (estimate) {
+                auditEventService.estimateCount().ifPresent(rows ->
+                    headers.add(PaginationUtil.TOTAL_COUNT_ESTIMATE_HEADER, Long.toString(rows)));
+            }
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         Page<AuditEvent> page = auditEventService.findAll(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/management/audits");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
@@ -47,6 +73,7 @@ public class AuditResource {
      *
      * @param fromDate the start of the time period of AuditEvents to get
      * @param toDate the end of the time period of AuditEvents to get
+     * @param count whether to count the AuditEvents
      * @param pageable the pagination information
      * @return the ResponseEntity with status 200 (OK) and the list of AuditEvents in body
      */
@@ -54,16 +81,64 @@ public class AuditResource {
     public ResponseEntity<List<AuditEvent>> getByDates(
         @RequestParam(value = "fromDate") LocalDate fromDate,
         @RequestParam(value = "toDate") LocalDate toDate,
+        @RequestParam(defaultValue = "true") boolean count,
         Pageable pageable) {
 
-        Page<AuditEvent> page = auditEventService.findByDates(
-            fromDate.atStartOfDay(ZoneId.systemDefault()).toInstant(),
-            toDate.atStartOfDay(ZoneId.systemDefault()).plusDays(1).toInstant(),
-            pageable);
+        Instant from = fromDate.atStartOfDay(ZoneId.systemDefault()).toInstant();
+        Instant to = toDate.atStartOfDay(ZoneId.systemDefault()).plusDays(1).toInstant();
+        if (!count) {
+            Slice<AuditEvent> slice = auditEventService.findSliceByDates(from, to, pageable);
+            String baseUrl = "/management/audits?fromDate=" + fromDate + "&toDate=" + toDate + "&count=false";
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, baseUrl);
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
+        Page<AuditEvent> page = auditEventService.findByDates(from, to, pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/management/audits");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    /**
+     * GET  /audits/rollups : count the AuditEvents per time bucket between the fromDate and toDate.
+     * <p>
+     * The counts come from per-minute rollups kept as the events are added, so long periods do not read the events.
+     *
+     * @param fromDate the start of the time period, included
+     * @param toDate the end of the time period, excluded
+     * @param granularity the duration of the time buckets
+     * @param type the type of the AuditEvents to count, or all types
+     * @param principal the principal of the AuditEvents to count, or all principals
+     * @param byType whether to count each type separately
+     * @param byPrincipal whether to count each principal separately
+     * @return the ResponseEntity with status 200 (OK) and the list of counts in body
+     */
+    @GetMapping("/rollups")
+    public ResponseEntity<List<AuditEventRollupDTO>> getRollups(
+        @RequestParam(value = "fromDate") Instant fromDate,
+        @RequestParam(value = "toDate") Instant toDate,
+        @RequestParam(defaultValue = "MINUTE") Granularity granularity,
+        @RequestParam(required = false) String type,
+        @RequestParam(required = false) String principal,
+        @RequestParam(defaultValue = "true") boolean byType,
+        @RequestParam(defaultValue = "true") boolean byPrincipal) {
+
+        return ResponseEntity.ok(
+            auditEventService.findRollups(fromDate, toDate, granularity, type, principal, byType, byPrincipal));
+    }
+
+    /**
+     * GET  /audits/stream : stream the AuditEvents as they are added, as Server-Sent Events.
+     * <p>
+     * The events are numbered: a client reconnecting with the Last-Event-ID header first gets the events it missed,
+     * as long as they are still kept in memory.
+     *
+     * @param lastEventId the id of the last event received, when reconnecting
+     * @return the emitter of the AuditEvents
+     */
+    @GetMapping(path = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public SseEmitter stream(@RequestHeader(value = "Last-Event-ID", required = false) Long lastEventId) {
+        return auditEventBroadcaster.subscribe(lastEventId);
+    }
+
     /**
      * GET  /audits/:id : get an AuditEvent by id.
      *
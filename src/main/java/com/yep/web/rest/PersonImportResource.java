@@ -0,0 +1,75 @@
+package com.yep.web.rest;
+
+import com.codahale.metrics.annotation.Timed;
+import com.yep.service.PersonImportService;
+import com.yep.service.dto.PersonImportJobDTO;
+import io.github.jhipster.web.util.ResponseUtil;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+
+import javax.servlet.http.HttpServletRequest;
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+
+/**
+ * REST controller for importing people in bulk.
+ */
+@RestController
+@RequestMapping("/api")
+public class PersonImportResource {
+
+    private final Logger log = LoggerFactory.getLogger(PersonImportResource.class);
+
+    private static final String TEXT_CSV_VALUE = "text/csv";
+
+    private static final String APPLICATION_NDJSON_VALUE = "application/x-ndjson";
+
+    private final PersonImportService personImportService;
+
+    public PersonImportResource(PersonImportService personImportService) {
+        this.personImportService = personImportService;
+    }
+
+    /**
+     * POST  /people/import : start importing the people of the body.
+     * <p>
+     * The body is either CSV with a header line, or NDJSON with one person per line, and may be gzip-compressed.
+     * The people are imported in the background, in chunks.
+     *
+     * @param contentType the content type of the body
+     * @param request the request holding the body
+     * @return the ResponseEntity with status 202 (Accepted) and with body the queued import job
+     * @throws IOException if the body could not be read
+     * @throws URISyntaxException if the Location URI syntax is incorrect
+     */
+    @PostMapping(value = "/people/import", consumes = {TEXT_CSV_VALUE, APPLICATION_NDJSON_VALUE})
+    @Timed
+    public ResponseEntity<PersonImportJobDTO> importPeople(@RequestHeader(HttpHeaders.CONTENT_TYPE) String contentType,
+            HttpServletRequest request) throws IOException, URISyntaxException {
+        PersonImportService.Format format = MediaType.parseMediaType(contentType).isCompatibleWith(MediaType.valueOf(TEXT_CSV_VALUE))
+            ? PersonImportService.Format.CSV : PersonImportService.Format.NDJSON;
+        log.debug("REST request to import People as {}", format);
+        PersonImportJobDTO result = personImportService.start(request.getInputStream(), format);
+        return ResponseEntity.accepted()
+            .location(new URI("/api/people/import/" + result.getId()))
+            .body(result);
+    }
+
+    /**
+     * GET  /people/import/:id : get the progress of the "id" import job.
+     *
+     * @param id the id of the import job
+     * @return the ResponseEntity with status 200 (OK) and with body the import job, or with status 404 (Not Found)
+     */
+    @GetMapping("/people/import/{id}")
+    @Timed
+    public ResponseEntity<PersonImportJobDTO> getImportJob(@PathVariable String id) {
+        log.debug("REST request to get person import job : {}", id);
+        return ResponseUtil.wrapOrNotFound(personImportService.getJob(id));
+    }
+}
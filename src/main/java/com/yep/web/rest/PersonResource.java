@@ -1,29 +1,54 @@
 package com.yep.web.rest;
 
 import com.codahale.metrics.annotation.Timed;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SequenceWriter;
+import com.fasterxml.jackson.dataformat.csv.CsvMapper;
+import com.fasterxml.jackson.dataformat.csv.CsvSchema;
 import com.yep.domain.Person;
 import com.yep.service.PersonService;
+import com.yep.service.dto.PersonCriteria;
+import com.yep.service.dto.PersonCursor;
+import com.yep.service.dto.PersonDTO;
+import com.yep.service.search.PersonSearchIndex;
 import com.yep.web.rest.errors.BadRequestAlertException;
+import com.yep.web.rest.errors.ServiceUnavailableException;
 import com.yep.web.rest.util.HeaderUtil;
 import com.yep.web.rest.util.PaginationUtil;
-import com.yep.service.dto.PersonCriteria;
+import com.yep.config.ApplicationProperties;
+import com.yep.config.AsyncConfiguration;
 import com.yep.service.PersonQueryService;
-import io.github.jhipster.service.filter.StringFilter;
 import io.github.jhipster.web.util.ResponseUtil;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Qualifier;
+import org.springframework.core.task.AsyncTaskExecutor;
+import org.springframework.core.task.TaskRejectedException;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.context.request.async.DeferredResult;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.util.UriComponentsBuilder;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 
 import java.util.List;
 import java.util.Optional;
+import java.util.concurrent.Future;
+import java.util.function.Supplier;
 
 /**
  * REST controller for managing Person.
@@ -36,13 +61,54 @@ public class PersonResource {
 
     private static final String ENTITY_NAME = "person";
 
+    private static final MediaType APPLICATION_NDJSON = MediaType.valueOf("application/x-ndjson");
+
+    private static final MediaType TEXT_CSV = MediaType.valueOf("text/csv");
+
+    static final String PARTIAL_RESULTS_HEADER = "X-Partial-Results";
+
+    private static final CsvSchema CSV_SCHEMA = CsvSchema.builder()
+        .addColumn("id")
+        .addColumn("nationalId")
+        .addColumn("fullName")
+        .setUseHeader(true)
+        .build();
+
     private final PersonService personService;
 
     private final PersonQueryService personQueryService;
 
-    public PersonResource(PersonService personService, PersonQueryService personQueryService) {
+    private final ObjectWriter jsonWriter;
+
+    private final ObjectWriter csvWriter;
+
+    private final AsyncTaskExecutor personQueryExecutor;
+
+    private final int suggestMaxResults;
+
+    private final long queryTimeoutMillis;
+
+    private final long retryAfterSeconds;
+
+    private final TransactionTemplate queryTransactionTemplate;
+
+    public PersonResource(PersonService personService, PersonQueryService personQueryService, ObjectMapper objectMapper,
+            ApplicationProperties applicationProperties,
+            @Qualifier(AsyncConfiguration.PERSON_QUERY_EXECUTOR) AsyncTaskExecutor personQueryExecutor,
+            PlatformTransactionManager transactionManager) {
         this.personService = personService;
         this.personQueryService = personQueryService;
+        this.personQueryExecutor = personQueryExecutor;
+        this.suggestMaxResults = applicationProperties.getPersonSearch().getSuggestMaxResults();
+        this.queryTimeoutMillis = applicationProperties.getPersonQueries().getTimeoutMillis();
+        this.retryAfterSeconds = applicationProperties.getPersonQueries().getRetryAfterSeconds();
+        // The statements of the queries run on the executor are cancelled by the database once they time out
+        this.queryTransactionTemplate = new TransactionTemplate(transactionManager);
+        this.queryTransactionTemplate.setReadOnly(true);
+        this.queryTransactionTemplate.setTimeout((int) Math.max(1, (queryTimeoutMillis + 999) / 1000));
+        this.jsonWriter = objectMapper.writerFor(Person.class).without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+        this.csvWriter = new CsvMapper().writerFor(Person.class).with(CSV_SCHEMA)
+            .without(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
     }
 
     /**
@@ -87,27 +153,190 @@ public class PersonResource {
             .body(result);
     }
 
+    /**
+     * GET  /people : get the people, optionally filtered by a keyword, or else by criteria.
+     * <p>
+     * When a cursor is given, even an empty one for the first page, the list is keyset paginated: the Link header
+     * holds the cursor of the next page instead of page numbers, and the page parameter is ignored.
+     * <p>
+     * With {@code count=false} the people are not counted: the Link header only holds the next, prev and first
+     * pages, and there is no X-Total-Count header. Adding {@code estimate=true} to an unfiltered list sends the
+     * row count estimated by the database statistics in the X-Total-Count-Estimate header. The criteria only apply
+     * to the counted list.
+     * <p>
+     * With {@code async=true} the query runs on the person query executor, see {@link #query(Supplier)}.
+     *
+     * @param keyword the keyword the full name or national id should contain
+     * @param criteria the criteria which the people should match, when there is no keyword
+     * @param cursor the cursor of the page to get, as found in the Link header
+     * @param count whether to count the people
+     * @param estimate whether to send the estimated number of people when they are not counted
+     * @param pageable the pagination information
+     * @return the ResponseEntity with status 200 (OK) and the list of people in body,
+     * or with status 400 (Bad Request) if the cursor is not valid
+     */
     @GetMapping("/people")
     @Timed
-    public ResponseEntity<List<Person>> getAllPeople(@RequestParam String keyword, Pageable pageable) {
-        log.debug("REST request to get People by criteria: {}", keyword);
-        Page<Person> page;
+    public ResponseEntity<List<PersonDTO>> getAllPeople(@RequestParam(required = false) String keyword,
+            PersonCriteria criteria, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean count, @RequestParam(defaultValue = "false") boolean estimate,
+            Pageable pageable) {
+        log.debug("REST request to get People by keyword: {}, criteria: {}", keyword, criteria);
+        return findAllPeople(keyword, criteria, cursor, count, estimate, pageable);
+    }
+
+    /**
+     * GET  /people?async=true : get the people on the person query executor.
+     *
+     * @return the ResponseEntity with status 200 (OK) and the list of people in body,
+     * or with status 400 (Bad Request) if the cursor is not valid,
+     * or with status 503 (Service Unavailable) if the query was rejected or timed out
+     * @see #getAllPeople(String, PersonCriteria, String, boolean, boolean, Pageable)
+     */
+    @GetMapping(value = "/people", params = "async=true")
+    @Timed
+    public DeferredResult<ResponseEntity<List<PersonDTO>>> getAllPeopleAsync(@RequestParam(required = false) String keyword,
+            PersonCriteria criteria, @RequestParam(required = false) String cursor,
+            @RequestParam(defaultValue = "true") boolean count, @RequestParam(defaultValue = "false") boolean estimate,
+            Pageable pageable) {
+        log.debug("REST request to get People asynchronously by keyword: {}, criteria: {}", keyword, criteria);
+        return query(() -> findAllPeople(keyword, criteria, cursor, count, estimate, pageable));
+    }
+
+    private ResponseEntity<List<PersonDTO>> findAllPeople(String keyword, PersonCriteria criteria, String cursor,
+            boolean count, boolean estimate, Pageable pageable) {
+        if (cursor != null) {
+            return getAllPeopleByCursor(keyword, cursor, pageable);
+        }
+        if (!count) {
+            return getAllPeopleSlice(keyword, estimate, pageable);
+        }
+        Page<PersonDTO> page;
         if (keyword == null || keyword.isEmpty()) {
-            page = personService.findAll(pageable);
+            page = hasFilters(criteria) ? personQueryService.findByCriteria(criteria, pageable) : personService.findAll(pageable);
         } else {
-            PersonCriteria searchCriteria = new PersonCriteria();
-            StringFilter fullNameContainsFilter = new StringFilter();
-            fullNameContainsFilter.setContains(keyword);
-            searchCriteria.setFullName(fullNameContainsFilter);
-            StringFilter nationalIdContainsFilter = new StringFilter();
-            nationalIdContainsFilter.setContains(keyword);
-            searchCriteria.setNationalId(nationalIdContainsFilter);
-            page = personQueryService.findByOrCriteria(searchCriteria, pageable);
+            page = personQueryService.findByKeyword(keyword, pageable);
         }
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/people");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
     }
 
+    private ResponseEntity<List<PersonDTO>> getAllPeopleSlice(String keyword, boolean estimate, Pageable pageable) {
+        Slice<PersonDTO> slice;
+        HttpHeaders headers;
+        if (keyword == null || keyword.isEmpty()) {
+            slice = personService.findAllSlice(pageable);
+            headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/people?count=false");
+            if (estimate) {
+                personService.estimateCount().ifPresent(rows ->
+                    headers.add(PaginationUtil.TOTAL_COUNT_ESTIMATE_HEADER, Long.toString(rows)));
+            }
+        } else {
+            slice = personQueryService.findSliceByKeyword(keyword, pageable);
+            String baseUrl = UriComponentsBuilder.fromUriString("/api/people").queryParam("keyword", keyword)
+                .queryParam("count", false).build().encode().toUriString();
+            headers = PaginationUtil.generateSliceHttpHeaders(slice, baseUrl);
+        }
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
+    private ResponseEntity<List<PersonDTO>> getAllPeopleByCursor(String keyword, String cursor, Pageable pageable) {
+        PersonCursor personCursor;
+        try {
+            personCursor = cursor.isEmpty() ? PersonCursor.first(pageable.getSort()) : PersonCursor.decode(cursor);
+        } catch (IllegalArgumentException e) {
+            throw new BadRequestAlertException("Invalid cursor", ENTITY_NAME, "cursorinvalid");
+        }
+        Slice<PersonDTO> slice = personQueryService.findByCursor(keyword, personCursor, pageable.getPageSize());
+        String nextCursor = null;
+        if (slice.hasNext()) {
+            nextCursor = personCursor.after(slice.getContent().get(slice.getNumberOfElements() - 1)).encode();
+        }
+        String baseUrl = UriComponentsBuilder.fromUriString("/api/people").queryParam("keyword", keyword).build()
+            .encode().toUriString();
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders(nextCursor,
+            personCursor.first().encode(), pageable.getPageSize(), baseUrl);
+        return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+    }
+
+    private static boolean hasFilters(PersonCriteria criteria) {
+        return criteria.getId() != null || criteria.getNationalId() != null || criteria.getFullName() != null;
+    }
+
+    /**
+     * GET  /people/suggest : get the best matches of a keyword, for autocompletion.
+     * <p>
+     * Only the in-memory search index is scanned, with a deadline: when it passes, the matches found so far are
+     * returned with the X-Partial-Results header set to true. The header is also set while the index is being built,
+     * as no suggestions are returned then.
+     *
+     * @param q the keyword the full name or national id should contain
+     * @param k the maximum number of suggestions, bounded by application.person-search.suggest-max-results
+     * @return the ResponseEntity with status 200 (OK) and the list of suggestions in body, best match first
+     */
+    @GetMapping("/people/suggest")
+    @Timed
+    public ResponseEntity<List<PersonDTO>> suggestPeople(@RequestParam String q,
+            @RequestParam(defaultValue = "10") int k) {
+        log.debug("REST request to suggest People for : {}", q);
+        PersonSearchIndex.Suggestions suggestions = personQueryService.suggest(q, Math.max(1, Math.min(k, suggestMaxResults)));
+        HttpHeaders headers = new HttpHeaders();
+        if (!suggestions.isComplete()) {
+            headers.add(PARTIAL_RESULTS_HEADER, Boolean.TRUE.toString());
+        }
+        return new ResponseEntity<>(personQueryService.findSuggestions(suggestions.getIds()), headers, HttpStatus.OK);
+    }
+
+    /**
+     * GET  /people/export : stream all the people matching the criteria, in id order.
+     * <p>
+     * The people are read through a database cursor and written as they are read, so the export does not hold the
+     * table in memory and needs a single request whatever its size.
+     *
+     * @param criteria the criteria which the people should match
+     * @param format the export format, either ndjson (one JSON person per line) or csv
+     * @return the ResponseEntity with status 200 (OK) and the people streamed in body,
+     * or with status 400 (Bad Request) if the format is not supported
+     */
+    @GetMapping("/people/export")
+    @Timed
+    public ResponseEntity<StreamingResponseBody> exportPeople(PersonCriteria criteria,
+            @RequestParam(defaultValue = "ndjson") String format) {
+        log.debug("REST request to export People by criteria: {}", criteria);
+        StreamingResponseBody body;
+        MediaType contentType;
+        if ("ndjson".equals(format)) {
+            contentType = APPLICATION_NDJSON;
+            body = out -> personQueryService.exportByCriteria(criteria, person -> {
+                try {
+                    jsonWriter.writeValue(out, person);
+                    out.write('\n');
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        } else if ("csv".equals(format)) {
+            contentType = TEXT_CSV;
+            body = out -> {
+                try (SequenceWriter rows = csvWriter.writeValues(out)) {
+                    personQueryService.exportByCriteria(criteria, person -> {
+                        try {
+                            rows.write(person);
+                        } catch (IOException e) {
+                            throw new UncheckedIOException(e);
+                        }
+                    });
+                }
+            };
+        } else {
+            throw new BadRequestAlertException("Unsupported export format", ENTITY_NAME, "formatunsupported");
+        }
+        return ResponseEntity.ok()
+            .contentType(contentType)
+            .header(HttpHeaders.CONTENT_DISPOSITION, "attachment; filename=\"people." + format + "\"")
+            .body(body);
+    }
+
     /**
      * GET  /people/:id : get the "id" person.
      *
@@ -118,8 +347,51 @@ public class PersonResource {
     @Timed
     public ResponseEntity<Person> getPerson(@PathVariable Long id) {
         log.debug("REST request to get Person : {}", id);
-        Person person = personService.findOne(id);
-        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(person));
+        return ResponseUtil.wrapOrNotFound(Optional.ofNullable(personService.findOne(id)));
+    }
+
+    /**
+     * GET  /people/:id?async=true : get the "id" person on the person query executor.
+     *
+     * @param id the id of the person to retrieve
+     * @return the ResponseEntity with status 200 (OK) and with body the person, or with status 404 (Not Found),
+     * or with status 503 (Service Unavailable) if the query was rejected or timed out
+     */
+    @GetMapping(value = "/people/{id}", params = "async=true")
+    @Timed
+    public DeferredResult<ResponseEntity<Person>> getPersonAsync(@PathVariable Long id) {
+        log.debug("REST request to get Person asynchronously : {}", id);
+        return query(() -> ResponseUtil.wrapOrNotFound(Optional.ofNullable(personService.findOne(id))));
+    }
+
+    /**
+     * Run a query on the person query executor, which frees the web server thread until the response is ready.
+     * <p>
+     * When the executor queue is full, the query fails right away with a 503 (Service Unavailable) and a Retry-After
+     * header, and so does it when it takes longer than application.person-queries.timeout-millis. The query then
+     * runs in a transaction with the same timeout, so that its statements are cancelled too rather than keeping their
+     * connection.
+     */
+    private <T> DeferredResult<ResponseEntity<T>> query(Supplier<ResponseEntity<T>> query) {
+        DeferredResult<ResponseEntity<T>> result = new DeferredResult<>(queryTimeoutMillis);
+        Future<?> future;
+        try {
+            future = personQueryExecutor.submit(() -> {
+                try {
+                    result.setResult(queryTransactionTemplate.execute(status -> query.get()));
+                } catch (RuntimeException e) {
+                    result.setErrorResult(e);
+                }
+            });
+        } catch (TaskRejectedException e) {
+            throw new ServiceUnavailableException("Too many people queries", retryAfterSeconds);
+        }
+        result.onTimeout(() -> {
+            // A queued query is dropped, a running one is interrupted and its statement times out
+            future.cancel(true);
+            result.setErrorResult(new ServiceUnavailableException("The people query timed out", retryAfterSeconds));
+        });
+        return result;
     }
 
     /**
@@ -14,8 +14,10 @@ import org.springframework.security.authentication.AuthenticationManager;
 import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
 import org.springframework.security.core.Authentication;
 import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.util.StringUtils;
 import org.springframework.web.bind.annotation.*;
 
+import javax.servlet.http.HttpServletRequest;
 import javax.validation.Valid;
 
 /**
@@ -50,6 +52,24 @@ public class UserJWTController {
         return new ResponseEntity<>(new JWTToken(jwt), httpHeaders, HttpStatus.OK);
     }
 
+    /**
+     * POST  /logout : revoke the token of the request, which is then rejected until it expires.
+     *
+     * @param request the request
+     * @return the ResponseEntity with status 200 (OK), or with status 400 (Bad Request) if the request has no token
+     */
+    @PostMapping("/logout")
+    @Timed
+    public ResponseEntity<Void> logout(HttpServletRequest request) {
+        String bearerToken = request.getHeader(JWTConfigurer.AUTHORIZATION_HEADER);
+        if (!StringUtils.hasText(bearerToken) || !bearerToken.startsWith("Bearer ") ||
+            !tokenProvider.revokeToken(bearerToken.substring(7))) {
+            return ResponseEntity.badRequest().build();
+        }
+        SecurityContextHolder.clearContext();
+        return ResponseEntity.ok().build();
+    }
+
     /**
      * Object to return as body in JWT Authentication.
      */
@@ -19,6 +19,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
@@ -136,13 +137,28 @@ public class UserResource {
 
     /**
      * GET /users : get all users.
+     * <p>
+     * With {@code count=false} the users are not counted and only the next, prev and first links are sent;
+     * {@code estimate=true} then adds the X-Total-Count-Estimate header taken from the database statistics.
      *
+     * @param count whether to count the users
+     * @param estimate whether to send the estimated number of users when they are not counted
      * @param pageable the pagination information
      * @return the ResponseEntity with status 200 (OK) and with body all users
      */
     @GetMapping("/users")
     @Timed
-    public ResponseEntity<List<UserDTO>> getAllUsers(Pageable pageable) {
+    public ResponseEntity<List<UserDTO>> getAllUsers(@RequestParam(defaultValue = "true") boolean count,
+            @RequestParam(defaultValue = "false") boolean estimate, Pageable pageable) {
+        if (!count) {
+            final Slice<UserDTO> slice = userService.getAllManagedUsersSlice(pageable);
+            HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, "/api/users?count=false");
+            if (estimate) {
+                userService.estimateManagedUsersCount().ifPresent(rows ->
+                    headers.add(PaginationUtil.TOTAL_COUNT_ESTIMATE_HEADER, Long.toString(rows)));
+            }
+            return new ResponseEntity<>(slice.getContent(), headers, HttpStatus.OK);
+        }
         final Page<UserDTO> page = userService.getAllManagedUsers(pageable);
         HttpHeaders headers = PaginationUtil.generatePaginationHttpHeaders(page, "/api/users");
         return new ResponseEntity<>(page.getContent(), headers, HttpStatus.OK);
@@ -1,8 +1,10 @@
 package com.yep.web.rest.errors;
 
+import com.yep.security.PasswordHashingUnavailableException;
 import com.yep.web.rest.util.HeaderUtil;
 
 import org.springframework.dao.ConcurrencyFailureException;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.ResponseEntity;
 import org.springframework.validation.BindingResult;
 import org.springframework.web.bind.MethodArgumentNotValidException;
@@ -95,4 +97,18 @@ public class ExceptionTranslator implements ProblemHandling {
             .build();
         return create(ex, problem, request);
     }
+
+    @ExceptionHandler(PasswordHashingUnavailableException.class)
+    public ResponseEntity<Problem> handlePasswordHashingUnavailable(PasswordHashingUnavailableException ex,
+            NativeWebRequest request) {
+        return handleServiceUnavailable(new ServiceUnavailableException(ex.getMessage(), ex.getRetryAfterSeconds()),
+            request);
+    }
+
+    @ExceptionHandler(ServiceUnavailableException.class)
+    public ResponseEntity<Problem> handleServiceUnavailable(ServiceUnavailableException ex, NativeWebRequest request) {
+        HttpHeaders headers = new HttpHeaders();
+        headers.add(HttpHeaders.RETRY_AFTER, Long.toString(ex.getRetryAfterSeconds()));
+        return create(ex, request, headers);
+    }
 }
@@ -0,0 +1,24 @@
+package com.yep.web.rest.errors;
+
+import org.zalando.problem.AbstractThrowableProblem;
+import org.zalando.problem.Status;
+
+import java.util.Collections;
+
+/**
+ * Exception returning a Service Unavailable code, with the Retry-After header telling the client when to try again.
+ */
+public class ServiceUnavailableException extends AbstractThrowableProblem {
+
+    private final long retryAfterSeconds;
+
+    public ServiceUnavailableException(String message, long retryAfterSeconds) {
+        super(ErrorConstants.DEFAULT_TYPE, message, Status.SERVICE_UNAVAILABLE, null, null, null,
+            Collections.singletonMap("message", "error.http.503"));
+        this.retryAfterSeconds = retryAfterSeconds;
+    }
+
+    public long getRetryAfterSeconds() {
+        return retryAfterSeconds;
+    }
+}
@@ -1,6 +1,7 @@
 package com.yep.web.rest.util;
 
 import org.springframework.data.domain.Page;
+import org.springframework.data.domain.Slice;
 import org.springframework.http.HttpHeaders;
 import org.springframework.web.util.UriComponentsBuilder;
 
@@ -10,9 +11,13 @@ import org.springframework.web.util.UriComponentsBuilder;
  * <p>
  * Pagination uses the same principles as the <a href="https://developer.github.com/v3/#pagination">GitHub API</a>,
  * and follow <a href="http://tools.ietf.org/html/rfc5988">RFC 5988 (Link header)</a>.
+ * <p>
+ * The base URLs must already be encoded, as they hold the filters of the list, whose values may have to be.
  */
 public final class PaginationUtil {
 
+    public static final String TOTAL_COUNT_ESTIMATE_HEADER = "X-Total-Count-Estimate";
+
     private PaginationUtil() {
     }
 
@@ -39,7 +44,55 @@ public final class PaginationUtil {
         return headers;
     }
 
+    /**
+     * Generate the Link header of a {@link Slice}, which only knows if there is a next page: there is no
+     * X-Total-Count header and no "last" link.
+     *
+     * @param slice the slice of the list
+     * @param baseUrl the URL of the list
+     * @return the HTTP headers
+     */
+    public static HttpHeaders generateSliceHttpHeaders(Slice slice, String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (slice.hasNext()) {
+            link = "<" + generateUri(baseUrl, slice.getNumber() + 1, slice.getSize()) + ">; rel=\"next\",";
+        }
+        if (slice.hasPrevious()) {
+            link += "<" + generateUri(baseUrl, slice.getNumber() - 1, slice.getSize()) + ">; rel=\"prev\",";
+        }
+        link += "<" + generateUri(baseUrl, 0, slice.getSize()) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    /**
+     * Generate the Link header of a keyset paginated list, where pages are addressed by an opaque cursor
+     * instead of a page number.
+     *
+     * @param nextCursor the cursor of the next page, or {@code null} if this is the last page
+     * @param firstCursor the cursor of the first page, which keeps the sort of the list
+     * @param size the page size
+     * @param baseUrl the URL of the list, including its filters
+     * @return the HTTP headers
+     */
+    public static HttpHeaders generateCursorPaginationHttpHeaders(String nextCursor, String firstCursor, int size,
+                                                                  String baseUrl) {
+        HttpHeaders headers = new HttpHeaders();
+        String link = "";
+        if (nextCursor != null) {
+            link = "<" + generateCursorUri(baseUrl, nextCursor, size) + ">; rel=\"next\",";
+        }
+        link += "<" + generateCursorUri(baseUrl, firstCursor, size) + ">; rel=\"first\"";
+        headers.add(HttpHeaders.LINK, link);
+        return headers;
+    }
+
+    private static String generateCursorUri(String baseUrl, String cursor, int size) {
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("cursor", cursor).queryParam("size", size).build().toUriString();
+    }
+
     private static String generateUri(String baseUrl, int page, int size) {
-        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).toUriString();
+        return UriComponentsBuilder.fromUriString(baseUrl).queryParam("page", page).queryParam("size", size).build().toUriString();
     }
 }
@@ -38,6 +38,10 @@
                     page = parseInt(page);
                 }
                 var name = section[1].replace(/rel="(.*)"/, '$1').trim();
+                // keyset paginated lists link to an opaque cursor instead of a page number
+                if (angular.isString(queryString.cursor)) {
+                    page = decodeURIComponent(queryString.cursor);
+                }
                 links[name] = page;
             });
             return links;
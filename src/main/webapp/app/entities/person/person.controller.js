@@ -16,6 +16,7 @@
         vm.loadPage = loadPage;
         vm.itemsPerPage = paginationConstants.itemsPerPage;
         vm.page = 0;
+        vm.cursor = '';
         vm.links = {
             last: 0
         };
@@ -23,17 +24,25 @@
         vm.reset = reset;
         vm.loadAll = loadAll;
         vm.keywordRefresh = keywordRefresh;
+        vm.suggest = suggest;
+        vm.hasNextPage = hasNextPage;
         vm.reverse = true;
 
         loadAll();
 
         function loadAll () {
-            Person.query({
-                page: vm.page,
+            var params = {
                 size: vm.itemsPerPage,
                 sort: sort(),
                 keyword: vm.keyword
-            }, onSuccess, onError);
+            };
+            // keyword searches are paginated by offset, in the order of the sorted column, plain listings are keyset paginated
+            if (vm.keyword) {
+                params.page = vm.page;
+            } else {
+                params.cursor = vm.cursor;
+            }
+            Person.query(params, onSuccess, onError);
             function sort() {
                 var result = [vm.predicate + ',' + (vm.reverse ? 'asc' : 'desc')];
                 if (vm.predicate !== 'id') {
@@ -56,39 +65,28 @@
         }
 
         function keywordRefresh () {
-            vm.page = 0;
-            Person.query({
-                page: vm.page,
-                size: vm.itemsPerPage,
-                sort: sort(),
-                keyword: vm.keyword
-            }, onSuccess, onError);
-            function sort() {
-                var result = [vm.predicate + ',' + (vm.reverse ? 'asc' : 'desc')];
-                if (vm.predicate !== 'id') {
-                    result.push('id');
-                }
-                return result;
-            }
-
-            function onSuccess(data, headers) {
-                vm.people = data;
-            }
+            reset();
+        }
 
-            function onError(error) {
-                AlertService.error(error.data.message);
-            }
+        function suggest (keyword) {
+            return Person.suggest({q: keyword, k: 10}).$promise;
         }
 
         function reset () {
             vm.page = 0;
+            vm.cursor = '';
             vm.people = [];
             loadAll();
         }
 
         function loadPage(page) {
             vm.page = page;
+            vm.cursor = vm.links.next;
             loadAll();
         }
+
+        function hasNextPage() {
+            return angular.isDefined(vm.links.next);
+        }
     }
 })();
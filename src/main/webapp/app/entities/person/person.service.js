@@ -11,6 +11,7 @@
 
         return $resource(resourceUrl, {}, {
             'query': { method: 'GET', isArray: true},
+            'suggest': { method: 'GET', url: 'api/people/suggest', isArray: true},
             'get': {
                 method: 'GET',
                 transformResponse: function (data) {
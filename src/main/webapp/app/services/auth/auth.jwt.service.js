@@ -64,9 +64,13 @@
         }
 
         function logout () {
+            var token = getToken();
+            var revoked = token ? $http.post('api/logout', null, {headers: {Authorization: 'Bearer ' + token}}) : $q.when();
 
+            // The token is removed right away, so the header is set here rather than by the auth interceptor
             delete $localStorage.authenticationToken;
             delete $sessionStorage.authenticationToken;
+            return revoked.catch(angular.noop);
         }
     }
 })();
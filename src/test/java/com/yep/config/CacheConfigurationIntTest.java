@@ -0,0 +1,127 @@
+package com.yep.config;
+
+import com.codahale.metrics.MetricRegistry;
+import com.yep.SomethingApp;
+import com.yep.domain.Authority;
+import com.yep.domain.Person;
+import com.yep.domain.User;
+import com.yep.repository.AuthorityRepository;
+import com.yep.repository.PersonRepository;
+import com.yep.security.AuthoritiesConstants;
+import com.yep.service.PersonService;
+
+import org.ehcache.config.CacheRuntimeConfiguration;
+import org.ehcache.config.ResourceType;
+import org.ehcache.config.SizedResourcePool;
+import org.ehcache.config.units.MemoryUnit;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.SecondLevelCacheStatistics;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.persistence.EntityManagerFactory;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the Hibernate second-level cache regions created by the CacheConfiguration.
+ * <p>
+ * The other tests run without the JCache CacheManager nor the second-level cache, so they are enabled here.
+ *
+ * @see CacheConfiguration
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SomethingApp.class, properties = {
+    "spring.cache.type=jcache",
+    "spring.jpa.properties.hibernate.cache.use_second_level_cache=true",
+    "spring.jpa.properties.hibernate.cache.region.factory_class=io.github.jhipster.config.jcache.NoDefaultJCacheRegionFactory",
+    "application.cache.regions.person.max-entries=5",
+    "application.cache.regions.authority.off-heap-megabytes=1"
+})
+public class CacheConfigurationIntTest {
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private AuthorityRepository authorityRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private MetricRegistry metricRegistry;
+
+    private Person person;
+
+    @Before
+    public void init() {
+        person = personRepository.saveAndFlush(new Person().nationalId("CACHE0001").fullName("Cached Person"));
+        entityManagerFactory.getCache().evictAll();
+        statistics().clear();
+    }
+
+    @After
+    public void destroy() {
+        personService.delete(person.getId());
+    }
+
+    @Test
+    public void testPersonIsReadFromCache() {
+        personService.findOne(person.getId());
+        personService.findOne(person.getId());
+
+        SecondLevelCacheStatistics personStatistics = statistics().getSecondLevelCacheStatistics(Person.class.getName());
+        assertThat(personStatistics.getMissCount()).isEqualTo(1);
+        assertThat(personStatistics.getHitCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testAuthorityIsReadFromCache() {
+        Authority authority = authorityRepository.findOne(AuthoritiesConstants.USER);
+        assertThat(authority).isNotNull();
+        authorityRepository.findOne(AuthoritiesConstants.USER);
+
+        assertThat(statistics().getSecondLevelCacheStatistics(Authority.class.getName()).getHitCount()).isPositive();
+    }
+
+    @Test
+    public void testRegionConfiguration() {
+        Cache<Object, Object> personCache = cacheManager.getCache(Person.class.getName());
+        CacheRuntimeConfiguration<?, ?> configuration = personCache.unwrap(org.ehcache.Cache.class).getRuntimeConfiguration();
+        assertThat(configuration.getResourcePools().getPoolForResource(ResourceType.Core.HEAP).getSize()).isEqualTo(5);
+        Cache<Object, Object> authorityCache = cacheManager.getCache(Authority.class.getName());
+        CacheRuntimeConfiguration<?, ?> authorityConfiguration = authorityCache.unwrap(org.ehcache.Cache.class).getRuntimeConfiguration();
+        SizedResourcePool offHeap = authorityConfiguration.getResourcePools().getPoolForResource(ResourceType.Core.OFFHEAP);
+        assertThat(offHeap.getSize()).isEqualTo(1);
+        assertThat(offHeap.getUnit()).isEqualTo(MemoryUnit.MB);
+        assertThat(authorityConfiguration.getResourcePools().getPoolForResource(ResourceType.Core.DISK)).isNull();
+        assertThat(cacheManager.getCache(User.class.getName() + ".authorities")).isNotNull();
+    }
+
+    @Test
+    public void testTierStatisticsAreRegistered() {
+        assertThat(metricRegistry.getGauges()).containsKeys(
+            "jcache.tiers." + Person.class.getName() + ".OnHeap.hits",
+            "jcache.tiers." + Person.class.getName() + ".OnHeap.evictions",
+            "jcache.tiers." + Authority.class.getName() + ".OffHeap.misses");
+    }
+
+    private Statistics statistics() {
+        return entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+    }
+}
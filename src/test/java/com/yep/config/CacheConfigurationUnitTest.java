@@ -0,0 +1,98 @@
+package com.yep.config;
+
+import com.yep.config.cache.ClusterCacheInvalidator;
+import com.yep.repository.UserRepository;
+
+import io.github.jhipster.config.JHipsterProperties;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.beans.factory.ObjectProvider;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the caches created by the CacheConfiguration, in a CacheManager of their own.
+ *
+ * @see CacheConfiguration
+ */
+public class CacheConfigurationUnitTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private CacheManager cacheManager;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        EhcacheCachingProvider cachingProvider =
+            (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        // A class loader of its own, so that the CacheManager is not the one of the other tests
+        cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+            new URLClassLoader(new URL[0], getClass().getClassLoader()));
+    }
+
+    @After
+    public void destroy() {
+        cacheManager.close();
+    }
+
+    @Test
+    public void testUserCacheCanBePersistent() {
+        region("users-by-login").setPersistent(true);
+
+        customize(null);
+
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE)).isNotNull();
+    }
+
+    @Test
+    public void testClusteredUserCacheCannotBePersistent() {
+        region("users-by-login").setPersistent(true);
+
+        assertThatThrownBy(() -> customize(mock(ClusterCacheInvalidator.class)))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("users-by-login");
+    }
+
+    @Test
+    public void testPersonSearchCacheCannotBePersistent() {
+        region("person-search").setPersistent(true);
+
+        assertThatThrownBy(() -> customize(null))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageContaining("person-search");
+    }
+
+    @Test
+    public void testHibernateRegionCannotBePersistent() {
+        region("user").setPersistent(true);
+
+        assertThatThrownBy(() -> customize(null))
+            .isInstanceOf(IllegalStateException.class)
+            .hasMessageStartingWith("The user cache");
+    }
+
+    private ApplicationProperties.Cache.Region region(String regionName) {
+        return applicationProperties.getCache().getRegions()
+            .computeIfAbsent(regionName, name -> new ApplicationProperties.Cache.Region());
+    }
+
+    @SuppressWarnings("unchecked")
+    private void customize(ClusterCacheInvalidator invalidator) {
+        ObjectProvider<ClusterCacheInvalidator> clusterCacheInvalidator = mock(ObjectProvider.class);
+        when(clusterCacheInvalidator.getIfAvailable()).thenReturn(invalidator);
+        new CacheConfiguration(new JHipsterProperties(), applicationProperties)
+            .cacheManagerCustomizer(clusterCacheInvalidator)
+            .customize(cacheManager);
+    }
+}
@@ -0,0 +1,178 @@
+package com.yep.config;
+
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.LazyConnectionDataSourceProxy;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.context.SecurityContextHolder;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.time.Clock;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.ZoneOffset;
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ReplicaRoutingDataSource, with H2 databases standing in for the primary and the replicas.
+ *
+ * @see ReplicaRoutingDataSource
+ */
+public class ReplicaRoutingDataSourceUnitTest {
+
+    private static final long READ_YOUR_WRITES_MILLIS = 1000;
+
+    private MutableClock clock;
+
+    private ReplicaRoutingDataSource routingDataSource;
+
+    private JdbcTemplate jdbcTemplate;
+
+    private TransactionTemplate readWriteTransaction;
+
+    private TransactionTemplate readOnlyTransaction;
+
+    @Before
+    public void setup() {
+        clock = new MutableClock();
+        routingDataSource = new ReplicaRoutingDataSource(database("primary"),
+            Arrays.asList(database("replica-1"), database("replica-2")), READ_YOUR_WRITES_MILLIS, clock);
+        DataSource dataSource = new LazyConnectionDataSourceProxy(routingDataSource);
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        DataSourceTransactionManager transactionManager = new DataSourceTransactionManager(dataSource);
+        readWriteTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction = new TransactionTemplate(transactionManager);
+        readOnlyTransaction.setReadOnly(true);
+    }
+
+    @After
+    public void destroy() {
+        SecurityContextHolder.clearContext();
+    }
+
+    @Test
+    public void testReadOnlyTransactionsGoToTheReplicasInTurn() {
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo("replica-1");
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo("replica-2");
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo("replica-1");
+    }
+
+    @Test
+    public void testOtherStatementsGoToThePrimary() {
+        assertThat(currentDatabase(readWriteTransaction)).isEqualTo("primary");
+        assertThat(currentDatabase()).isEqualTo("primary");
+        // A read-only transaction joining a read-write one stays on its connection
+        String joinedDatabase = readWriteTransaction.execute(status -> currentDatabase(readOnlyTransaction));
+        assertThat(joinedDatabase).isEqualTo("primary");
+    }
+
+    @Test
+    public void testReadYourWrites() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("writer", "writer"));
+        readWriteTransaction.execute(status -> write());
+
+        assertThat(currentDatabase(readOnlyTransaction)).isEqualTo("primary");
+        clock.advance(READ_YOUR_WRITES_MILLIS);
+        assertThat(currentDatabase(readOnlyTransaction)).startsWith("replica-");
+    }
+
+    @Test
+    public void testReadYourWritesIsPerUser() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("writer", "writer"));
+        readWriteTransaction.execute(status -> write());
+
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("reader", "reader"));
+        assertThat(currentDatabase(readOnlyTransaction)).startsWith("replica-");
+    }
+
+    @Test
+    public void testRolledBackWritesDoNotOpenTheWindow() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("writer", "writer"));
+        readWriteTransaction.execute(status -> {
+            write();
+            status.setRollbackOnly();
+            return null;
+        });
+
+        assertThat(currentDatabase(readOnlyTransaction)).startsWith("replica-");
+    }
+
+    @Test
+    public void testTransactionsWhichDidNotWriteDoNotOpenTheWindow() {
+        SecurityContextHolder.getContext().setAuthentication(new UsernamePasswordAuthenticationToken("writer", "writer"));
+        assertThat(currentDatabase(readWriteTransaction)).isEqualTo("primary");
+
+        assertThat(currentDatabase(readOnlyTransaction)).startsWith("replica-");
+    }
+
+    @Test
+    public void testForcedPrimary() {
+        try (ReplicaRoutingDataSource.PrimaryScope ignored = ReplicaRoutingDataSource.forcePrimary()) {
+            assertThat(currentDatabase(readOnlyTransaction)).isEqualTo("primary");
+            try (ReplicaRoutingDataSource.PrimaryScope nested = ReplicaRoutingDataSource.forcePrimary()) {
+                assertThat(currentDatabase(readOnlyTransaction)).isEqualTo("primary");
+            }
+            assertThat(currentDatabase(readOnlyTransaction)).isEqualTo("primary");
+        }
+
+        assertThat(currentDatabase(readOnlyTransaction)).startsWith("replica-");
+    }
+
+    /**
+     * Write, and report it as the ReplicaRoutingWriteListener does.
+     */
+    private int write() {
+        int rows = jdbcTemplate.update("update marker set name = name");
+        routingDataSource.recordWrite();
+        return rows;
+    }
+
+    private String currentDatabase(TransactionTemplate transaction) {
+        return transaction.execute(status -> currentDatabase());
+    }
+
+    private String currentDatabase() {
+        return jdbcTemplate.queryForObject("select name from marker", String.class);
+    }
+
+    private static DataSource database(String name) {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:routing-" + name + ";DB_CLOSE_DELAY=-1");
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop table if exists marker");
+        jdbcTemplate.execute("create table marker (name varchar(20))");
+        jdbcTemplate.update("insert into marker values (?)", name);
+        return dataSource;
+    }
+
+    private static class MutableClock extends Clock {
+
+        private Instant instant = Instant.now();
+
+        void advance(long millis) {
+            instant = instant.plusMillis(millis);
+        }
+
+        @Override
+        public ZoneId getZone() {
+            return ZoneOffset.UTC;
+        }
+
+        @Override
+        public Clock withZone(ZoneId zone) {
+            return this;
+        }
+
+        @Override
+        public Instant instant() {
+            return instant;
+        }
+    }
+}
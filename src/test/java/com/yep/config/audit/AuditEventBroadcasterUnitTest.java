@@ -0,0 +1,127 @@
+package com.yep.config.audit;
+
+import com.codahale.metrics.MetricRegistry;
+import com.yep.config.ApplicationProperties;
+import com.yep.web.rest.AuditResource;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.UnsupportedEncodingException;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.request;
+
+/**
+ * Test class for the AuditEventBroadcaster, through the stream of the AuditResource.
+ *
+ * @see AuditEventBroadcaster
+ */
+public class AuditEventBroadcasterUnitTest {
+
+    private ApplicationProperties applicationProperties;
+
+    private MetricRegistry metricRegistry;
+
+    private AuditEventBroadcaster auditEventBroadcaster;
+
+    private MockMvc restAuditMockMvc;
+
+    @Before
+    public void setup() {
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditEvents().setStreamHistorySize(10);
+        applicationProperties.getAuditEvents().setStreamBufferSize(3);
+        metricRegistry = new MetricRegistry();
+        auditEventBroadcaster = new AuditEventBroadcaster(applicationProperties, metricRegistry);
+        restAuditMockMvc = MockMvcBuilders.standaloneSetup(new AuditResource(null, auditEventBroadcaster)).build();
+    }
+
+    @After
+    public void destroy() {
+        auditEventBroadcaster.destroy();
+    }
+
+    @Test
+    public void testEventsArePublishedToEverySubscriber() throws Exception {
+        MockHttpServletResponse first = stream(get("/management/audits/stream"));
+        MockHttpServletResponse second = stream(get("/management/audits/stream"));
+        assertThat(metricRegistry.getGauges().get(MetricRegistry.name(AuditEventBroadcaster.class, "subscribers"))
+            .getValue()).isEqualTo(2);
+
+        auditEventBroadcaster.publish(createEvent("first"));
+        auditEventBroadcaster.publish(createEvent("second"));
+
+        for (MockHttpServletResponse response : new MockHttpServletResponse[]{first, second}) {
+            String content = waitForContent(response, "id:2");
+            assertThat(content).contains("event:" + AuditEventBroadcaster.EVENT_NAME);
+            assertThat(content.indexOf("\"principal\":\"first\"")).isPositive()
+                .isLessThan(content.indexOf("\"principal\":\"second\""));
+        }
+    }
+
+    @Test
+    public void testMissedEventsAreSentOnResume() throws Exception {
+        auditEventBroadcaster.publish(createEvent("first"));
+        auditEventBroadcaster.publish(createEvent("second"));
+        auditEventBroadcaster.publish(createEvent("third"));
+
+        MockHttpServletResponse response = stream(get("/management/audits/stream").header("Last-Event-ID", 1));
+
+        String content = waitForContent(response, "id:3");
+        assertThat(content).doesNotContain("id:1").contains("id:2");
+    }
+
+    @Test
+    public void testResumeIsLimitedToTheBufferSize() throws Exception {
+        for (int i = 1; i <= 6; i++) {
+            auditEventBroadcaster.publish(createEvent("user-" + i));
+        }
+
+        MockHttpServletResponse response = stream(get("/management/audits/stream").header("Last-Event-ID", 1));
+
+        String content = waitForContent(response, "id:6");
+        assertThat(content).doesNotContain("id:3").contains("id:4").contains("id:5");
+    }
+
+    @Test
+    public void testUnknownLastEventIdOnlyGetsNewEvents() throws Exception {
+        auditEventBroadcaster.publish(createEvent("first"));
+
+        MockHttpServletResponse response = stream(get("/management/audits/stream").header("Last-Event-ID", 42));
+        auditEventBroadcaster.publish(createEvent("second"));
+
+        String content = waitForContent(response, "id:2");
+        assertThat(content).doesNotContain("id:1");
+    }
+
+    private MockHttpServletResponse stream(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        MvcResult result = restAuditMockMvc.perform(requestBuilder)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return result.getResponse();
+    }
+
+    private static String waitForContent(MockHttpServletResponse response, String expected)
+            throws UnsupportedEncodingException, InterruptedException {
+        for (int attempt = 0; attempt < 100 && !response.getContentAsString().contains(expected); attempt++) {
+            Thread.sleep(50);
+        }
+        String content = response.getContentAsString();
+        assertThat(content).contains(expected);
+        return content;
+    }
+
+    private static AuditEvent createEvent(String principal) {
+        return new AuditEvent(principal, "test-type", Collections.singletonMap("test-key", "test-value"));
+    }
+}
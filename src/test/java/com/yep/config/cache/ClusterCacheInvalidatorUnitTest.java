@@ -0,0 +1,234 @@
+package com.yep.config.cache;
+
+import com.codahale.metrics.MetricRegistry;
+import com.hazelcast.config.Config;
+import com.hazelcast.config.JoinConfig;
+import com.hazelcast.core.Hazelcast;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.junit.AfterClass;
+import org.junit.Before;
+import org.junit.BeforeClass;
+import org.junit.Test;
+import org.springframework.cache.Cache;
+import org.springframework.cache.jcache.JCacheCacheManager;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import javax.cache.spi.CachingProvider;
+import java.net.URL;
+import java.net.URLClassLoader;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the ClusterCacheInvalidator, with two members of a cluster in the same JVM. Forming the cluster
+ * takes a few seconds, so the members are shared by the tests.
+ *
+ * @see ClusterCacheInvalidator
+ */
+public class ClusterCacheInvalidatorUnitTest {
+
+    private static final String CLUSTERED_CACHE = "clustered";
+
+    private static final String LOCAL_CACHE = "local";
+
+    private static final long TIMEOUT_MILLIS = 10000;
+
+    private static Member first;
+
+    private static Member second;
+
+    @BeforeClass
+    public static void startMembers() {
+        CachingProvider cachingProvider = Caching.getCachingProvider("org.ehcache.jsr107.EhcacheCachingProvider");
+        String clusterName = "cluster-cache-invalidator-test-" + System.nanoTime();
+        first = new Member(cachingProvider, clusterName, "first");
+        second = new Member(cachingProvider, clusterName, "second");
+    }
+
+    @AfterClass
+    public static void stopMembers() {
+        if (first != null) {
+            first.close();
+        }
+        if (second != null) {
+            second.close();
+        }
+    }
+
+    @Before
+    public void setup() {
+        first.clear();
+        second.clear();
+    }
+
+    @Test
+    public void testEvictionIsAppliedOnTheOtherMember() {
+        first.cache(CLUSTERED_CACHE).put("user", "first");
+        second.cache(CLUSTERED_CACHE).put("user", "second");
+
+        first.cache(CLUSTERED_CACHE).evict("user");
+
+        assertThat(first.cache(CLUSTERED_CACHE).get("user")).isNull();
+        waitUntilAbsent(second.cache(CLUSTERED_CACHE), "user");
+    }
+
+    @Test
+    public void testEvictionOfAKeyMissingLocallyIsPublished() {
+        second.cache(CLUSTERED_CACHE).put("user", "second");
+
+        first.cache(CLUSTERED_CACHE).evict("user");
+
+        waitUntilAbsent(second.cache(CLUSTERED_CACHE), "user");
+    }
+
+    @Test
+    public void testClearIsAppliedOnTheOtherMember() {
+        second.cache(CLUSTERED_CACHE).put("user", "second");
+
+        first.cache(CLUSTERED_CACHE).clear();
+
+        waitUntilAbsent(second.cache(CLUSTERED_CACHE), "user");
+    }
+
+    @Test
+    public void testPutAndUnregisteredCachesStayLocal() {
+        second.cache(CLUSTERED_CACHE).put("user", "second");
+        second.cache(LOCAL_CACHE).put("user", "second");
+
+        first.cache(CLUSTERED_CACHE).put("user", "first");
+        first.cache(LOCAL_CACHE).evict("user");
+        waitForPublishedInvalidations();
+
+        assertThat(second.cache(CLUSTERED_CACHE).get("user").get()).isEqualTo("second");
+        assertThat(second.cache(LOCAL_CACHE).get("user").get()).isEqualTo("second");
+    }
+
+    @Test
+    public void testEvictionInATransactionIsPublishedAfterCommit() {
+        second.cache(CLUSTERED_CACHE).put("user", "second");
+        long published = first.published();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            first.cache(CLUSTERED_CACHE).evict("user");
+
+            assertThat(first.cache(CLUSTERED_CACHE).get("user")).isNull();
+            assertThat(first.published()).isEqualTo(published);
+            // Read again by another request before the commit
+            first.cache(CLUSTERED_CACHE).put("user", "first");
+
+            TransactionSynchronizationUtils.triggerAfterCommit();
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+
+        assertThat(first.cache(CLUSTERED_CACHE).get("user")).isNull();
+        waitUntilAbsent(second.cache(CLUSTERED_CACHE), "user");
+    }
+
+    @Test
+    public void testEvictionInARolledBackTransactionIsNotPublished() {
+        second.cache(CLUSTERED_CACHE).put("user", "second");
+        long published = first.published();
+
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            first.cache(CLUSTERED_CACHE).clear();
+
+            TransactionSynchronizationUtils.invokeAfterCompletion(TransactionSynchronizationManager.getSynchronizations(),
+                TransactionSynchronization.STATUS_ROLLED_BACK);
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        waitForPublishedInvalidations();
+
+        assertThat(first.published()).isEqualTo(published + 1);
+        assertThat(second.cache(CLUSTERED_CACHE).get("user").get()).isEqualTo("second");
+    }
+
+    /**
+     * Publish the eviction of a marker and wait for it, so that the invalidations published before have been
+     * received too.
+     */
+    private void waitForPublishedInvalidations() {
+        second.cache(CLUSTERED_CACHE).put("marker", "second");
+        first.cache(CLUSTERED_CACHE).evict("marker");
+        waitUntilAbsent(second.cache(CLUSTERED_CACHE), "marker");
+    }
+
+    private void waitUntilAbsent(Cache cache, Object key) {
+        long deadline = System.currentTimeMillis() + TIMEOUT_MILLIS;
+        while (cache.get(key) != null && System.currentTimeMillis() < deadline) {
+            try {
+                Thread.sleep(10);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            }
+        }
+        assertThat(cache.get(key)).isNull();
+    }
+
+    private static final class Member {
+
+        private final CacheManager jCacheManager;
+
+        private final MetricRegistry metricRegistry = new MetricRegistry();
+
+        private final ClusterCacheInvalidator invalidator;
+
+        private final ClusteredCacheManager cacheManager;
+
+        private Member(CachingProvider cachingProvider, String clusterName, String name) {
+            // The cache managers are per class loader
+            jCacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+                new URLClassLoader(new URL[0], Member.class.getClassLoader()));
+            for (String cacheName : new String[]{CLUSTERED_CACHE, LOCAL_CACHE}) {
+                jCacheManager.createCache(cacheName, Eh107Configuration.fromEhcacheCacheConfiguration(
+                    CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                        ResourcePoolsBuilder.heap(100)).build()));
+            }
+
+            Config config = new Config();
+            config.setInstanceName(clusterName + "-" + name);
+            config.getGroupConfig().setName(clusterName);
+            config.setProperty("hazelcast.logging.type", "slf4j");
+            config.setProperty("hazelcast.phone.home.enabled", "false");
+            config.getNetworkConfig().setPortAutoIncrement(true);
+            JoinConfig join = config.getNetworkConfig().getJoin();
+            join.getMulticastConfig().setEnabled(false);
+            join.getTcpIpConfig().setEnabled(true).addMember("127.0.0.1");
+            invalidator = new ClusterCacheInvalidator(Hazelcast.newHazelcastInstance(config), metricRegistry);
+            invalidator.register(jCacheManager.getCache(CLUSTERED_CACHE));
+
+            JCacheCacheManager springCacheManager = new JCacheCacheManager(jCacheManager);
+            springCacheManager.afterPropertiesSet();
+            cacheManager = new ClusteredCacheManager(springCacheManager, invalidator);
+        }
+
+        private Cache cache(String name) {
+            return cacheManager.getCache(name);
+        }
+
+        private long published() {
+            return metricRegistry.meter(MetricRegistry.name(ClusterCacheInvalidator.class, "published")).getCount();
+        }
+
+        // Straight to the JCache caches, so that nothing is published
+        private void clear() {
+            jCacheManager.getCache(CLUSTERED_CACHE).removeAll();
+            jCacheManager.getCache(LOCAL_CACHE).removeAll();
+        }
+
+        private void close() {
+            invalidator.destroy();
+            jCacheManager.close();
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.yep.config.cache;
+
+import org.hibernate.cache.spi.EntityRegion;
+import org.hibernate.cache.spi.access.EntityRegionAccessStrategy;
+import org.hibernate.engine.spi.SessionFactoryImplementor;
+import org.hibernate.event.spi.EventSource;
+import org.hibernate.event.spi.PostDeleteEvent;
+import org.hibernate.event.spi.PostUpdateEvent;
+import org.hibernate.persister.entity.EntityPersister;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+import org.springframework.transaction.support.TransactionSynchronizationUtils;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the HibernateCacheInvalidationListener.
+ *
+ * @see HibernateCacheInvalidationListener
+ */
+public class HibernateCacheInvalidationListenerUnitTest {
+
+    private static final String REGION = "com.yep.domain.User";
+
+    private static final Long ID = 42L;
+
+    private static final Object CACHE_KEY = "user#42";
+
+    private ClusterCacheInvalidator invalidator;
+
+    private HibernateCacheInvalidationListener listener;
+
+    private EntityPersister persister;
+
+    private EventSource session;
+
+    @Before
+    public void setup() {
+        invalidator = mock(ClusterCacheInvalidator.class);
+        when(invalidator.isRegistered(REGION)).thenReturn(true);
+        listener = new HibernateCacheInvalidationListener(invalidator);
+
+        SessionFactoryImplementor sessionFactory = mock(SessionFactoryImplementor.class);
+        session = mock(EventSource.class);
+        when(session.getFactory()).thenReturn(sessionFactory);
+
+        EntityRegion region = mock(EntityRegion.class);
+        when(region.getName()).thenReturn(REGION);
+        EntityRegionAccessStrategy cacheAccess = mock(EntityRegionAccessStrategy.class);
+        when(cacheAccess.getRegion()).thenReturn(region);
+        persister = mock(EntityPersister.class);
+        when(persister.hasCache()).thenReturn(true);
+        when(persister.getCacheAccessStrategy()).thenReturn(cacheAccess);
+        when(cacheAccess.generateCacheKey(ID, persister, sessionFactory, null)).thenReturn(CACHE_KEY);
+    }
+
+    @After
+    public void cleanup() {
+        if (TransactionSynchronizationManager.isSynchronizationActive()) {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+    }
+
+    @Test
+    public void testUpdateIsPublishedAfterCommit() {
+        TransactionSynchronizationManager.initSynchronization();
+
+        listener.onPostUpdate(new PostUpdateEvent(new Object(), ID, null, null, null, persister, session));
+
+        verify(invalidator, never()).publish(anyString(), any());
+        TransactionSynchronizationUtils.triggerAfterCommit();
+        verify(invalidator).publish(REGION, CACHE_KEY);
+    }
+
+    @Test
+    public void testDeleteIsPublishedWithoutTransaction() {
+        listener.onPostDelete(new PostDeleteEvent(new Object(), ID, null, persister, session));
+
+        verify(invalidator).publish(REGION, CACHE_KEY);
+    }
+
+    @Test
+    public void testUnregisteredRegionIsNotPublished() {
+        when(invalidator.isRegistered(REGION)).thenReturn(false);
+
+        listener.onPostUpdate(new PostUpdateEvent(new Object(), ID, null, null, null, persister, session));
+
+        verify(invalidator, never()).publish(anyString(), any());
+    }
+
+    @Test
+    public void testUncachedEntityIsNotPublished() {
+        when(persister.hasCache()).thenReturn(false);
+
+        listener.onPostDelete(new PostDeleteEvent(new Object(), ID, null, persister, session));
+
+        verify(invalidator, never()).publish(anyString(), any());
+    }
+}
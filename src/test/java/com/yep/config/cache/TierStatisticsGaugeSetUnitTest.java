@@ -0,0 +1,120 @@
+package com.yep.config.cache;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.Metric;
+import org.ehcache.config.builders.CacheConfigurationBuilder;
+import org.ehcache.config.builders.ResourcePoolsBuilder;
+import org.ehcache.config.units.MemoryUnit;
+import org.ehcache.core.config.DefaultConfiguration;
+import org.ehcache.impl.config.persistence.DefaultPersistenceConfiguration;
+import org.ehcache.jsr107.Eh107Configuration;
+import org.ehcache.jsr107.EhcacheCachingProvider;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import javax.cache.Cache;
+import javax.cache.CacheManager;
+import javax.cache.Caching;
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the TierStatisticsGaugeSet, on a cache with its three tiers.
+ *
+ * @see TierStatisticsGaugeSet
+ */
+public class TierStatisticsGaugeSetUnitTest {
+
+    private static final String CACHE_NAME = "tiered";
+
+    private static final int HEAP_ENTRIES = 10;
+
+    private static final int ENTRIES = 100;
+
+    @Rule
+    public final TemporaryFolder temporaryFolder = new TemporaryFolder();
+
+    private EhcacheCachingProvider cachingProvider;
+
+    private File storagePath;
+
+    @Before
+    public void setup() throws IOException {
+        cachingProvider = (EhcacheCachingProvider) Caching.getCachingProvider(EhcacheCachingProvider.class.getName());
+        storagePath = temporaryFolder.newFolder("cache");
+    }
+
+    @Test
+    public void testStatisticsByTier() {
+        CacheManager cacheManager = createCacheManager();
+        try {
+            Cache<Object, Object> cache = cacheManager.getCache(CACHE_NAME);
+            for (int i = 0; i < ENTRIES; i++) {
+                cache.put(i, "value " + i);
+            }
+            for (int i = 0; i < ENTRIES; i++) {
+                assertThat(cache.get(i)).isEqualTo("value " + i);
+            }
+
+            Map<String, Metric> metrics = new TierStatisticsGaugeSet(cacheManager).getMetrics();
+
+            assertThat(metrics).containsKeys(CACHE_NAME + ".OnHeap.hits", CACHE_NAME + ".OnHeap.misses",
+                CACHE_NAME + ".OnHeap.evictions", CACHE_NAME + ".OffHeap.hits", CACHE_NAME + ".Disk.hits");
+            // The heap only holds a few entries, the others are read from the tiers below
+            assertThat(value(metrics, CACHE_NAME + ".OnHeap.misses")).isGreaterThanOrEqualTo(ENTRIES - HEAP_ENTRIES);
+            assertThat(value(metrics, CACHE_NAME + ".OnHeap.evictions")).isPositive();
+            assertThat(value(metrics, CACHE_NAME + ".OffHeap.hits") + value(metrics, CACHE_NAME + ".Disk.hits"))
+                .isGreaterThanOrEqualTo(ENTRIES - HEAP_ENTRIES);
+        } finally {
+            cacheManager.close();
+        }
+    }
+
+    @Test
+    public void testPersistentCacheIsWarmAfterARestart() {
+        CacheManager cacheManager = createCacheManager();
+        for (int i = 0; i < ENTRIES; i++) {
+            cacheManager.getCache(CACHE_NAME).put(i, "value " + i);
+        }
+        cacheManager.close();
+
+        CacheManager restartedCacheManager = createCacheManager();
+        try {
+            Cache<Object, Object> cache = restartedCacheManager.getCache(CACHE_NAME);
+            for (int i = 0; i < ENTRIES; i++) {
+                assertThat(cache.get(i)).isEqualTo("value " + i);
+            }
+            Map<String, Metric> metrics = new TierStatisticsGaugeSet(restartedCacheManager).getMetrics();
+            assertThat(value(metrics, CACHE_NAME + ".Disk.hits")).isEqualTo(ENTRIES);
+        } finally {
+            restartedCacheManager.close();
+        }
+    }
+
+    /**
+     * A cache manager of its own, as they are per class loader, with the cache created as the CacheConfiguration does.
+     */
+    private CacheManager createCacheManager() {
+        ClassLoader classLoader = new URLClassLoader(new URL[0], getClass().getClassLoader());
+        CacheManager cacheManager = cachingProvider.getCacheManager(cachingProvider.getDefaultURI(),
+            new DefaultConfiguration(classLoader, new DefaultPersistenceConfiguration(storagePath)));
+        cacheManager.createCache(CACHE_NAME, Eh107Configuration.fromEhcacheCacheConfiguration(
+            CacheConfigurationBuilder.newCacheConfigurationBuilder(Object.class, Object.class,
+                ResourcePoolsBuilder.heap(HEAP_ENTRIES)
+                    .offheap(1, MemoryUnit.MB)
+                    .disk(10, MemoryUnit.MB, true))
+                .build()));
+        return cacheManager;
+    }
+
+    private static long value(Map<String, Metric> metrics, String name) {
+        return (Long) ((Gauge<?>) metrics.get(name)).getValue();
+    }
+}
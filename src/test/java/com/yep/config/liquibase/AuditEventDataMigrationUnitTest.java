@@ -0,0 +1,76 @@
+package com.yep.config.liquibase;
+
+import com.yep.domain.AuditEventDataCodec;
+
+import liquibase.database.Database;
+import liquibase.database.DatabaseFactory;
+import liquibase.database.jvm.JdbcConnection;
+import org.h2.jdbcx.JdbcDataSource;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.util.Map;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+
+/**
+ * Test class for the AuditEventDataMigration, on the schema it migrates from.
+ *
+ * @see AuditEventDataMigration
+ */
+public class AuditEventDataMigrationUnitTest {
+
+    private Connection connection;
+
+    private JdbcTemplate jdbcTemplate;
+
+    @Before
+    public void setup() throws Exception {
+        JdbcDataSource dataSource = new JdbcDataSource();
+        dataSource.setURL("jdbc:h2:mem:audit-event-data-migration;DB_CLOSE_DELAY=-1");
+        connection = dataSource.getConnection();
+        jdbcTemplate = new JdbcTemplate(dataSource);
+        jdbcTemplate.execute("drop all objects");
+        jdbcTemplate.execute("create table jhi_persistent_audit_event (event_id bigint primary key, event_data clob)");
+        jdbcTemplate.execute("create table jhi_persistent_audit_evt_data (event_id bigint, name varchar(150), value varchar(255))");
+        jdbcTemplate.update("insert into jhi_persistent_audit_event (event_id) values (1), (2), (3)");
+        jdbcTemplate.update("insert into jhi_persistent_audit_evt_data values " +
+            "(1, 'remoteAddress', '1.2.3.4'), (1, 'sessionId', 'session'), (2, 'message', 'a \"quoted\" message')");
+    }
+
+    @After
+    public void destroy() throws Exception {
+        connection.close();
+    }
+
+    @Test
+    public void testMigration() throws Exception {
+        Database database = DatabaseFactory.getInstance().findCorrectDatabaseImplementation(new JdbcConnection(connection));
+        AuditEventDataMigration migration = new AuditEventDataMigration();
+        migration.execute(database);
+        // Liquibase commits once the change set is executed
+        database.commit();
+
+        Map<String, String> first = AuditEventDataCodec.decode(eventData(1));
+        assertThat(first).hasSize(2).containsEntry("remoteAddress", "1.2.3.4").containsEntry("sessionId", "session");
+        assertThat(AuditEventDataCodec.decode(eventData(2))).containsOnly(entry("message", "a \"quoted\" message"));
+        assertThat(eventData(3)).isNull();
+        assertThat(migration.getConfirmationMessage()).contains("2 audit events");
+    }
+
+    @Test
+    public void testDecodedKeysAreInterned() {
+        String encodedData = AuditEventDataCodec.encode(AuditEventDataCodec.decode("{\"remote\" : \"1.2.3.4\"}"));
+        String key = AuditEventDataCodec.decode(encodedData).keySet().iterator().next();
+        assertThat(key).isSameAs("remote");
+    }
+
+    private String eventData(long eventId) {
+        return jdbcTemplate.queryForObject("select event_data from jhi_persistent_audit_event where event_id = ?",
+            String.class, eventId);
+    }
+}
@@ -0,0 +1,45 @@
+package com.yep.repository;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the statements of the AuditEventPartitionRepository, which only runs them on MySQL.
+ *
+ * @see AuditEventPartitionRepository
+ */
+public class AuditEventPartitionRepositoryUnitTest {
+
+    @Test
+    public void testNextBucket() {
+        assertThat(AuditEventPartitionRepository.nextBucket(201804)).isEqualTo(201805);
+        assertThat(AuditEventPartitionRepository.nextBucket(201812)).isEqualTo(201901);
+    }
+
+    @Test
+    public void testBucketsBetween() {
+        assertThat(AuditEventPartitionRepository.bucketsBetween(201811, 201902))
+            .containsExactly(201811, 201812, 201901, 201902);
+        assertThat(AuditEventPartitionRepository.bucketsBetween(201805, 201805)).containsExactly(201805);
+        assertThat(AuditEventPartitionRepository.bucketsBetween(201806, 201805)).isEmpty();
+    }
+
+    @Test
+    public void testReorganizeStatementSplitsMonthsOutOfMaxPartition() {
+        assertThat(AuditEventPartitionRepository.reorganizeStatement(Arrays.asList(201811, 201812, 201901)))
+            .isEqualTo("ALTER TABLE jhi_persistent_audit_event REORGANIZE PARTITION pmax INTO (" +
+                "PARTITION p201811 VALUES LESS THAN (201812), " +
+                "PARTITION p201812 VALUES LESS THAN (201901), " +
+                "PARTITION p201901 VALUES LESS THAN (201902), " +
+                "PARTITION pmax VALUES LESS THAN MAXVALUE)");
+    }
+
+    @Test
+    public void testDropStatement() {
+        assertThat(AuditEventPartitionRepository.dropStatement(Arrays.asList(201701, 201702)))
+            .isEqualTo("ALTER TABLE jhi_persistent_audit_event DROP PARTITION p201701, p201702");
+    }
+}
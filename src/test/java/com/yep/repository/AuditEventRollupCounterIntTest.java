@@ -0,0 +1,160 @@
+package com.yep.repository;
+
+import com.yep.SomethingApp;
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.AuditEventRollup;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.time.Instant;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Test class for the AuditEventRollupCounter, which writes in its own transactions.
+ *
+ * @see AuditEventRollupCounter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SomethingApp.class)
+public class AuditEventRollupCounterIntTest {
+
+    private static final Instant START = Instant.parse("2018-04-09T10:00:00Z");
+
+    @Autowired
+    private AuditEventRollupRepository auditEventRollupRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ApplicationProperties applicationProperties;
+
+    private AuditEventRollupCounter auditEventRollupCounter;
+
+    @Before
+    public void setup() {
+        auditEventRollupRepository.deleteAll();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditEvents().setRollupRingMinutes(5);
+        auditEventRollupCounter = new AuditEventRollupCounter(auditEventRollupRepository, transactionManager,
+            applicationProperties);
+    }
+
+    @After
+    public void destroy() {
+        auditEventRollupRepository.deleteAll();
+    }
+
+    @Test
+    public void testPastMinutesAreCompacted() {
+        auditEventRollupCounter.add(createEvent(START, "first"));
+        auditEventRollupCounter.add(createEvent(START.plusSeconds(30), "first"));
+        auditEventRollupCounter.add(createEvent(START.plusSeconds(60), "second"));
+
+        auditEventRollupCounter.compact(minuteOf(START.plusSeconds(60)));
+
+        assertThat(auditEventRollupRepository.findAll())
+            .extracting(AuditEventRollup::getBucketStart, AuditEventRollup::getPrincipal, AuditEventRollup::getEventCount)
+            .containsExactly(tuple(START, "first", 2L));
+        assertThat(countRollups())
+            .containsOnly(entry(START + " first", 2L), entry(START.plusSeconds(60) + " second", 1L));
+    }
+
+    @Test
+    public void testLateEventsAreAddedToTheCompactedCounts() {
+        auditEventRollupCounter.add(createEvent(START, "first"));
+        auditEventRollupCounter.compact(minuteOf(START.plusSeconds(60)));
+
+        auditEventRollupCounter.add(createEvent(START.plusSeconds(10), "first"));
+        assertThat(countRollups()).containsOnly(entry(START + " first", 2L));
+
+        auditEventRollupCounter.compact(minuteOf(START.plusSeconds(60)));
+        assertThat(auditEventRollupRepository.findAll()).hasSize(2);
+        assertThat(countRollups()).containsOnly(entry(START + " first", 2L));
+    }
+
+    @Test
+    public void testBucketsAreKeptWhenTheRingGoesRound() {
+        auditEventRollupCounter.add(createEvent(START, "first"));
+        auditEventRollupCounter.add(createEvent(START.plusSeconds(5 * 60), "first"));
+        auditEventRollupCounter.add(createEvent(START.plusSeconds(10), "first"));
+
+        assertThat(auditEventRollupRepository.count()).isZero();
+        assertThat(countRollups())
+            .containsOnly(entry(START + " first", 2L), entry(START.plusSeconds(5 * 60) + " first", 1L));
+
+        auditEventRollupCounter.destroy();
+        assertThat(auditEventRollupRepository.findAll())
+            .extracting(AuditEventRollup::getEventCount)
+            .containsExactlyInAnyOrder(2L, 1L);
+    }
+
+    @Test
+    public void testOldestPendingBucketsAreDropped() {
+        applicationProperties.getAuditEvents().setRollupMaxPendingMinutes(2);
+        auditEventRollupCounter = new AuditEventRollupCounter(auditEventRollupRepository, transactionManager,
+            applicationProperties);
+        for (int minute = 10; minute < 15; minute++) {
+            auditEventRollupCounter.add(createEvent(START.plusSeconds(minute * 60), "ring"));
+        }
+
+        // Older than the minutes of the ring, so kept out of it until the next compaction
+        auditEventRollupCounter.add(createEvent(START, "late"));
+        auditEventRollupCounter.add(createEvent(START.plusSeconds(60), "late"));
+        auditEventRollupCounter.add(createEvent(START.plusSeconds(120), "late"));
+
+        assertThat(countRollups()).containsKeys(START.plusSeconds(60) + " late", START.plusSeconds(120) + " late")
+            .doesNotContainKey(START + " late")
+            .hasSize(7);
+    }
+
+    @Test
+    public void testRollupsAreFiltered() {
+        auditEventRollupCounter.add(createEvent(START, "first"));
+        auditEventRollupCounter.add(createEvent(START, "second"));
+        auditEventRollupCounter.add(createEvent(START.plusSeconds(120), "first"));
+        auditEventRollupCounter.compact(minuteOf(START.plusSeconds(60)));
+
+        List<AuditEventRollup> rollups =
+            auditEventRollupCounter.findRollups(START, START.plusSeconds(180), "test-type", "first");
+        assertThat(rollups)
+            .extracting(AuditEventRollup::getBucketStart, AuditEventRollup::getEventCount)
+            .containsExactlyInAnyOrder(tuple(START, 1L), tuple(START.plusSeconds(120), 1L));
+        assertThat(auditEventRollupCounter.findRollups(START, START.plusSeconds(180), "other-type", null)).isEmpty();
+        assertThat(auditEventRollupCounter.findRollups(START.plusSeconds(60), START.plusSeconds(120), null, null))
+            .isEmpty();
+    }
+
+    /**
+     * Sum the rollups of the hour, by minute and principal.
+     */
+    private Map<String, Long> countRollups() {
+        return auditEventRollupCounter.findRollups(START, START.plusSeconds(3600), null, null).stream()
+            .collect(Collectors.groupingBy(rollup -> rollup.getBucketStart() + " " + rollup.getPrincipal(),
+                Collectors.summingLong(AuditEventRollup::getEventCount)));
+    }
+
+    private static long minuteOf(Instant date) {
+        return TimeUnit.SECONDS.toMinutes(date.getEpochSecond());
+    }
+
+    private static AuditEvent createEvent(Instant timestamp, String principal) {
+        return new AuditEvent(Date.from(timestamp), principal, "test-type", Collections.emptyMap());
+    }
+}
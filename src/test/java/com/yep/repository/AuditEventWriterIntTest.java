@@ -0,0 +1,159 @@
+package com.yep.repository;
+
+import com.codahale.metrics.MetricRegistry;
+import com.yep.SomethingApp;
+import com.yep.config.ApplicationProperties;
+import com.yep.config.ApplicationProperties.AuditEvents.OverflowPolicy;
+import com.yep.domain.PersistentAuditEvent;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.persistence.EntityManager;
+import java.time.Instant;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AuditEventWriter, writing asynchronously.
+ *
+ * @see AuditEventWriter
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SomethingApp.class)
+public class AuditEventWriterIntTest {
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private EntityManager entityManager;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    private ApplicationProperties applicationProperties;
+
+    private MetricRegistry metricRegistry;
+
+    private AuditEventWriter auditEventWriter;
+
+    @Before
+    public void setup() {
+        persistenceAuditEventRepository.deleteAll();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getAuditEvents().setAsyncWrites(true);
+        applicationProperties.getAuditEvents().setFlushIntervalMillis(60000);
+        metricRegistry = new MetricRegistry();
+    }
+
+    @After
+    public void destroy() throws InterruptedException {
+        if (auditEventWriter != null) {
+            auditEventWriter.stop();
+        }
+        persistenceAuditEventRepository.deleteAll();
+    }
+
+    @Test
+    public void testEventsAreWrittenByBatch() throws InterruptedException {
+        applicationProperties.getAuditEvents().setBatchSize(2);
+        startWriter();
+
+        auditEventWriter.write(createEvent("first"));
+        Thread.sleep(200);
+        assertThat(persistenceAuditEventRepository.count()).isZero();
+
+        auditEventWriter.write(createEvent("second"));
+        assertThat(waitForEvents(2)).containsExactlyInAnyOrder("first", "second");
+        assertThat(metricRegistry.timer(MetricRegistry.name(AuditEventWriter.class, "flushes")).getCount()).isEqualTo(1);
+        assertThat(metricRegistry.getGauges().get(MetricRegistry.name(AuditEventWriter.class, "queue-depth")).getValue())
+            .isEqualTo(0);
+    }
+
+    @Test
+    public void testEventsAreWrittenAfterFlushInterval() {
+        applicationProperties.getAuditEvents().setFlushIntervalMillis(100);
+        startWriter();
+
+        auditEventWriter.write(createEvent("first"));
+        assertThat(waitForEvents(1)).containsExactly("first");
+    }
+
+    @Test
+    public void testQueuedEventsAreWrittenOnStop() throws InterruptedException {
+        startWriter();
+
+        auditEventWriter.write(createEvent("first"));
+        auditEventWriter.stop();
+        assertThat(principals()).containsExactly("first");
+    }
+
+    @Test
+    public void testDropOldestWhenQueueIsFull() throws InterruptedException {
+        applicationProperties.getAuditEvents().setQueueCapacity(2);
+        applicationProperties.getAuditEvents().setOverflowPolicy(OverflowPolicy.DROP_OLDEST);
+        startWriter();
+
+        auditEventWriter.write(createEvent("first"));
+        auditEventWriter.write(createEvent("second"));
+        auditEventWriter.write(createEvent("third"));
+        auditEventWriter.stop();
+        assertThat(principals()).containsExactlyInAnyOrder("second", "third");
+        assertThat(metricRegistry.meter(MetricRegistry.name(AuditEventWriter.class, "dropped")).getCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testWriteSynchronouslyWhenQueueIsFull() throws InterruptedException {
+        applicationProperties.getAuditEvents().setQueueCapacity(1);
+        applicationProperties.getAuditEvents().setOverflowPolicy(OverflowPolicy.WRITE_SYNCHRONOUSLY);
+        startWriter();
+
+        auditEventWriter.write(createEvent("first"));
+        auditEventWriter.write(createEvent("second"));
+        assertThat(principals()).containsExactly("second");
+        auditEventWriter.stop();
+        assertThat(principals()).containsExactlyInAnyOrder("first", "second");
+    }
+
+    private void startWriter() {
+        auditEventWriter = new AuditEventWriter(persistenceAuditEventRepository, entityManager, transactionManager,
+            applicationProperties, metricRegistry);
+        auditEventWriter.start();
+    }
+
+    private List<String> waitForEvents(int count) {
+        for (int attempt = 0; attempt < 100 && persistenceAuditEventRepository.count() < count; attempt++) {
+            try {
+                Thread.sleep(50);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        return principals();
+    }
+
+    private List<String> principals() {
+        return persistenceAuditEventRepository.findAll().stream()
+            .map(PersistentAuditEvent::getPrincipal)
+            .collect(Collectors.toList());
+    }
+
+    private static PersistentAuditEvent createEvent(String principal) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal(principal);
+        event.setAuditEventType("test-type");
+        event.setAuditEventDate(Instant.now());
+        event.setData(Collections.singletonMap("test-key", "test-value"));
+        return event;
+    }
+}
@@ -2,6 +2,7 @@ package com.yep.repository;
 
 import com.yep.SomethingApp;
 import com.yep.config.Constants;
+import com.yep.config.audit.AuditEventBroadcaster;
 import com.yep.config.audit.AuditEventConverter;
 import com.yep.domain.PersistentAuditEvent;
 import org.junit.Before;
@@ -42,6 +43,15 @@ public class CustomAuditEventRepositoryIntTest {
     @Autowired
     private AuditEventConverter auditEventConverter;
 
+    @Autowired
+    private AuditEventWriter auditEventWriter;
+
+    @Autowired
+    private AuditEventBroadcaster auditEventBroadcaster;
+
+    @Autowired
+    private AuditEventRollupCounter auditEventRollupCounter;
+
     private CustomAuditEventRepository customAuditEventRepository;
 
     private PersistentAuditEvent testUserEvent;
@@ -52,7 +62,8 @@ public class CustomAuditEventRepositoryIntTest {
 
     @Before
     public void setup() {
-        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter);
+        customAuditEventRepository = new CustomAuditEventRepository(persistenceAuditEventRepository, auditEventConverter,
+            auditEventWriter, auditEventBroadcaster, auditEventRollupCounter);
         persistenceAuditEventRepository.deleteAll();
         Instant oneHourAgo = Instant.now().minusSeconds(3600);
 
@@ -0,0 +1,132 @@
+package com.yep.security;
+
+import com.codahale.metrics.MetricRegistry;
+import com.yep.config.ApplicationProperties;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.security.crypto.password.PasswordEncoder;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+/**
+ * Test class for the BoundedPasswordEncoder.
+ *
+ * @see BoundedPasswordEncoder
+ */
+public class BoundedPasswordEncoderUnitTest {
+
+    private final CountDownLatch release = new CountDownLatch(1);
+
+    private ThreadPoolTaskExecutor executor;
+
+    private MetricRegistry metricRegistry;
+
+    private ApplicationProperties applicationProperties;
+
+    @Before
+    public void setup() {
+        executor = new ThreadPoolTaskExecutor();
+        executor.setCorePoolSize(1);
+        executor.setMaxPoolSize(1);
+        executor.setQueueCapacity(1);
+        executor.setThreadNamePrefix("password-hashing-");
+        executor.initialize();
+        metricRegistry = new MetricRegistry();
+        applicationProperties = new ApplicationProperties();
+        applicationProperties.getPasswordHashing().setRetryAfterSeconds(2);
+    }
+
+    @After
+    public void tearDown() {
+        release.countDown();
+        executor.shutdown();
+    }
+
+    @Test
+    public void testHashingRunsOnTheExecutor() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new ThreadNamePasswordEncoder(), executor,
+            applicationProperties, metricRegistry);
+
+        assertThat(encoder.encode("password")).startsWith("password-hashing-");
+        assertThat(encoder.matches("password", "password-hashing-1:password")).isTrue();
+        assertThat(encoder.matches("password", "password-hashing-1:other")).isFalse();
+        assertThat(metricRegistry.timer(MetricRegistry.name(BoundedPasswordEncoder.class, "hashing-time")).getCount())
+            .isEqualTo(3);
+    }
+
+    @Test
+    public void testHashingIsRejectedWhenTheExecutorIsBusy() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new ThreadNamePasswordEncoder(), executor,
+            applicationProperties, metricRegistry);
+        // One hashing running and one queued
+        executor.execute(this::awaitRelease);
+        executor.execute(this::awaitRelease);
+
+        assertThatThrownBy(() -> encoder.encode("password"))
+            .isInstanceOf(PasswordHashingUnavailableException.class)
+            .hasMessage("Too many password hashings")
+            .hasFieldOrPropertyWithValue("retryAfterSeconds", 2L);
+    }
+
+    @Test
+    public void testHashingTimesOut() {
+        applicationProperties.getPasswordHashing().setTimeoutMillis(50);
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new BlockingPasswordEncoder(), executor,
+            applicationProperties, metricRegistry);
+
+        assertThatThrownBy(() -> encoder.encode("password"))
+            .isInstanceOf(PasswordHashingUnavailableException.class)
+            .hasMessage("The password hashing timed out");
+    }
+
+    @Test
+    public void testHashingFailureIsRethrown() {
+        BoundedPasswordEncoder encoder = new BoundedPasswordEncoder(new ThreadNamePasswordEncoder(), executor,
+            applicationProperties, metricRegistry);
+
+        assertThatThrownBy(() -> encoder.matches("password", null))
+            .isInstanceOf(IllegalArgumentException.class);
+    }
+
+    private void awaitRelease() {
+        try {
+            release.await(10, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * Hashes a password to the name of the thread doing it, followed by the password.
+     */
+    private static class ThreadNamePasswordEncoder implements PasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            return Thread.currentThread().getName() + ":" + rawPassword;
+        }
+
+        @Override
+        public boolean matches(CharSequence rawPassword, String encodedPassword) {
+            if (encodedPassword == null) {
+                throw new IllegalArgumentException("No encoded password");
+            }
+            return encodedPassword.endsWith(":" + rawPassword);
+        }
+    }
+
+    private class BlockingPasswordEncoder extends ThreadNamePasswordEncoder {
+
+        @Override
+        public String encode(CharSequence rawPassword) {
+            awaitRelease();
+            return super.encode(rawPassword);
+        }
+    }
+}
@@ -3,21 +3,29 @@ package com.yep.security;
 import com.yep.SomethingApp;
 import com.yep.domain.User;
 import com.yep.repository.UserRepository;
+import com.yep.service.UserService;
+import com.yep.service.dto.UserDTO;
 
 import org.apache.commons.lang3.RandomStringUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.cache.CacheManager;
 import org.springframework.security.core.userdetails.UserDetails;
 import org.springframework.security.core.userdetails.UserDetailsService;
+import org.springframework.security.core.userdetails.UsernameNotFoundException;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.util.Locale;
 
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
 
 /**
  * Test class for DomainUserDetailsService.
@@ -42,12 +50,25 @@ public class DomainUserDetailsServiceIntTest {
     @Autowired
     private UserDetailsService domainUserDetailsService;
 
+    @Autowired
+    private UserService userService;
+
+    @Autowired
+    private CacheManager cacheManager;
+
+    @Autowired
+    private EntityManager em;
+
     private User userOne;
     private User userTwo;
     private User userThree;
 
     @Before
     public void init() {
+        cacheManager.getCache(DomainUserDetailsService.UNKNOWN_PRINCIPALS_CACHE).clear();
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).clear();
+        cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).clear();
+
         userOne = new User();
         userOne.setLogin(USER_ONE_LOGIN);
         userOne.setPassword(RandomStringUtils.random(60));
@@ -119,6 +140,94 @@ public class DomainUserDetailsServiceIntTest {
         assertThat(userDetails.getUsername()).isEqualTo(USER_ONE_LOGIN);
     }
 
+    @Test
+    @Transactional
+    public void assertThatUnknownUserIsCached() {
+        assertThatThrownBy(() -> domainUserDetailsService.loadUserByUsername("Test-User-Unknown"))
+            .isInstanceOf(UsernameNotFoundException.class);
+
+        assertThat(cacheManager.getCache(DomainUserDetailsService.UNKNOWN_PRINCIPALS_CACHE).get("test-user-unknown"))
+            .isNotNull();
+        assertThatThrownBy(() -> domainUserDetailsService.loadUserByUsername("test-user-unknown"))
+            .isInstanceOf(UsernameNotFoundException.class);
+    }
+
+    @Test
+    @Transactional
+    public void assertThatCreatedUserIsFoundAfterBeingUnknown() {
+        assertThatThrownBy(() -> domainUserDetailsService.loadUserByUsername("test-user-four"))
+            .isInstanceOf(UsernameNotFoundException.class);
+        assertThatThrownBy(() -> domainUserDetailsService.loadUserByUsername("test-user-four@localhost"))
+            .isInstanceOf(UsernameNotFoundException.class);
+
+        UserDTO userDTO = new UserDTO();
+        userDTO.setLogin("test-user-four");
+        userDTO.setEmail("test-user-four@localhost");
+        userService.createUser(userDTO);
+
+        assertThat(domainUserDetailsService.loadUserByUsername("test-user-four").getUsername())
+            .isEqualTo("test-user-four");
+        assertThat(domainUserDetailsService.loadUserByUsername("test-user-four@localhost").getUsername())
+            .isEqualTo("test-user-four");
+    }
+
+    @Test
+    @Transactional
+    public void assertThatEmailIsPrioritizedOverLoginOfAnotherUser() {
+        User userFour = new User();
+        userFour.setLogin(USER_TWO_EMAIL);
+        userFour.setPassword(RandomStringUtils.random(60));
+        userFour.setActivated(true);
+        userFour.setEmail("test-user-four@localhost");
+        userRepository.save(userFour);
+
+        UserDetails userDetails = domainUserDetailsService.loadUserByUsername(USER_TWO_EMAIL);
+        assertThat(userDetails.getUsername()).isEqualTo(USER_TWO_LOGIN);
+    }
+
+    @Test
+    @Transactional
+    public void assertThatCachedUserIsFoundWithoutQuery() {
+        domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN);
+        domainUserDetailsService.loadUserByUsername(USER_TWO_EMAIL);
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(USER_ONE_LOGIN)).isNotNull();
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_EMAIL_CACHE).get(USER_TWO_EMAIL)).isNotNull();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        assertThat(domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN.toUpperCase(Locale.ENGLISH)).getUsername())
+            .isEqualTo(USER_ONE_LOGIN);
+        assertThat(domainUserDetailsService.loadUserByUsername(USER_TWO_EMAIL).getUsername())
+            .isEqualTo(USER_TWO_LOGIN);
+
+        assertThat(statistics.getPrepareStatementCount()).isZero();
+    }
+
+    @Test
+    @Transactional
+    public void assertThatCachedLoginWithAtIsNotPrioritizedOverEmail() {
+        User userFour = new User();
+        userFour.setLogin(USER_TWO_EMAIL);
+        userFour.setPassword(RandomStringUtils.random(60));
+        userFour.setActivated(true);
+        userFour.setEmail("test-user-four@localhost");
+        userRepository.save(userFour);
+        cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).put(USER_TWO_EMAIL, userFour);
+
+        UserDetails userDetails = domainUserDetailsService.loadUserByUsername(USER_TWO_EMAIL);
+        assertThat(userDetails.getUsername()).isEqualTo(USER_TWO_LOGIN);
+    }
+
+    @Test
+    @Transactional
+    public void assertThatChangedUserIsNotFoundInCache() {
+        domainUserDetailsService.loadUserByUsername(USER_ONE_LOGIN);
+
+        userService.updateUser(new UserDTO(userOne));
+
+        assertThat(cacheManager.getCache(UserRepository.USERS_BY_LOGIN_CACHE).get(USER_ONE_LOGIN)).isNull();
+    }
+
     @Test(expected = UserNotActivatedException.class)
     @Transactional
     public void assertThatUserNotActivatedExceptionIsThrownForNotActivatedUsers() {
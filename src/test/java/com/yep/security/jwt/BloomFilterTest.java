@@ -0,0 +1,43 @@
+package com.yep.security.jwt;
+
+import org.junit.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class BloomFilterTest {
+
+    @Test
+    public void testPutValuesAreFound() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put("token-" + i);
+        }
+
+        for (int i = 0; i < 1000; i++) {
+            assertThat(bloomFilter.mightContain("token-" + i)).isTrue();
+        }
+    }
+
+    @Test
+    public void testFalsePositivesAreRare() {
+        BloomFilter bloomFilter = new BloomFilter(1000, 0.01);
+        for (int i = 0; i < 1000; i++) {
+            bloomFilter.put("token-" + i);
+        }
+
+        int falsePositives = 0;
+        for (int i = 0; i < 100000; i++) {
+            if (bloomFilter.mightContain("other-token-" + i)) {
+                falsePositives++;
+            }
+        }
+        assertThat(falsePositives).isLessThan(2000);
+    }
+
+    @Test
+    public void testEmptyFilterContainsNothing() {
+        BloomFilter bloomFilter = new BloomFilter(0, 0.01);
+
+        assertThat(bloomFilter.mightContain("token")).isFalse();
+    }
+}
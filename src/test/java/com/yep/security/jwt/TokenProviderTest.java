@@ -1,5 +1,7 @@
 package com.yep.security.jwt;
 
+import com.yep.config.ApplicationProperties;
+import com.yep.repository.RevokedTokenRepository;
 import com.yep.security.AuthoritiesConstants;
 import io.github.jhipster.config.JHipsterProperties;
 import io.jsonwebtoken.Jwts;
@@ -29,7 +31,8 @@ public class TokenProviderTest {
     @Before
     public void setup() {
         jHipsterProperties = Mockito.mock(JHipsterProperties.class);
-        tokenProvider = new TokenProvider(jHipsterProperties);
+        tokenProvider = new TokenProvider(jHipsterProperties, new ApplicationProperties(),
+            new TokenRevocationList(Mockito.mock(RevokedTokenRepository.class), new ApplicationProperties()));
         ReflectionTestUtils.setField(tokenProvider, "secretKey", secretKey);
         ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", ONE_MINUTE);
     }
@@ -79,6 +82,73 @@ public class TokenProviderTest {
         assertThat(isTokenValid).isEqualTo(false);
     }
 
+    @Test
+    public void testVerifiedAuthenticationIsCached() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        Authentication authentication = tokenProvider.getVerifiedAuthentication(token);
+
+        assertThat(authentication.getName()).isEqualTo("anonymous");
+        assertThat(authentication.getCredentials()).isEqualTo(token);
+        assertThat(tokenProvider.getVerifiedAuthentication(new String(token))).isSameAs(authentication);
+    }
+
+    @Test
+    public void testAuthoritiesAreSharedBetweenTokens() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMillisecondsForRememberMe", 2 * ONE_MINUTE);
+        Authentication first = tokenProvider.getVerifiedAuthentication(tokenProvider.createToken(createAuthentication(), false));
+        Authentication second = tokenProvider.getVerifiedAuthentication(tokenProvider.createToken(createAuthentication(), true));
+
+        assertThat(second).isNotSameAs(first);
+        assertThat(second.getAuthorities().iterator().next()).isSameAs(first.getAuthorities().iterator().next());
+    }
+
+    @Test
+    public void testVerifiedAuthenticationIsNullWhenJWThasInvalidSignature() {
+        assertThat(tokenProvider.getVerifiedAuthentication(createTokenWithDifferentSignature())).isNull();
+    }
+
+    @Test
+    public void testVerifiedAuthenticationIsNullWhenJWTisExpired() {
+        ReflectionTestUtils.setField(tokenProvider, "tokenValidityInMilliseconds", -ONE_MINUTE);
+        String token = tokenProvider.createToken(createAuthentication(), false);
+
+        assertThat(tokenProvider.getVerifiedAuthentication(token)).isNull();
+    }
+
+    @Test
+    public void testRevokedTokenIsRejected() {
+        String token = tokenProvider.createToken(createAuthentication(), false);
+        String otherToken = tokenProvider.createToken(createAuthentication(), false);
+        assertThat(tokenProvider.getVerifiedAuthentication(token)).isNotNull();
+
+        assertThat(tokenProvider.revokeToken(token)).isTrue();
+
+        assertThat(tokenProvider.getVerifiedAuthentication(token)).isNull();
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+        assertThat(tokenProvider.getVerifiedAuthentication(otherToken)).isNotNull();
+    }
+
+    @Test
+    public void testTokenWithoutIdIsRevokedBySignature() {
+        String token = Jwts.builder()
+            .setSubject("anonymous")
+            .claim("auth", AuthoritiesConstants.ANONYMOUS)
+            .signWith(SignatureAlgorithm.HS512, secretKey)
+            .setExpiration(new Date(new Date().getTime() + ONE_MINUTE))
+            .compact();
+        assertThat(tokenProvider.validateToken(token)).isTrue();
+
+        assertThat(tokenProvider.revokeToken(token)).isTrue();
+
+        assertThat(tokenProvider.validateToken(token)).isFalse();
+    }
+
+    @Test
+    public void testInvalidTokenIsNotRevoked() {
+        assertThat(tokenProvider.revokeToken(createTokenWithDifferentSignature())).isFalse();
+    }
+
     private Authentication createAuthentication() {
         Collection<GrantedAuthority> authorities = new ArrayList<>();
         authorities.add(new SimpleGrantedAuthority(AuthoritiesConstants.ANONYMOUS));
@@ -0,0 +1,80 @@
+package com.yep.security.jwt;
+
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.RevokedToken;
+import com.yep.repository.RevokedTokenRepository;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.Mockito;
+
+import java.time.Instant;
+import java.time.temporal.ChronoUnit;
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+public class TokenRevocationListTest {
+
+    private RevokedTokenRepository revokedTokenRepository;
+
+    private TokenRevocationList tokenRevocationList;
+
+    @Before
+    public void setup() {
+        revokedTokenRepository = Mockito.mock(RevokedTokenRepository.class);
+        tokenRevocationList = new TokenRevocationList(revokedTokenRepository, new ApplicationProperties());
+    }
+
+    @Test
+    public void testRevokedTokenIsPersisted() {
+        Instant expiresAt = Instant.now().plus(1, ChronoUnit.HOURS);
+
+        tokenRevocationList.revoke("revoked-id", expiresAt);
+
+        assertThat(tokenRevocationList.isRevoked("revoked-id")).isTrue();
+        assertThat(tokenRevocationList.isRevoked("other-id")).isFalse();
+        verify(revokedTokenRepository).save(new RevokedToken("revoked-id", expiresAt));
+    }
+
+    @Test
+    public void testExpiredTokenIsNotRevoked() {
+        tokenRevocationList.revoke("expired-id", Instant.now().minusSeconds(1));
+
+        assertThat(tokenRevocationList.isRevoked("expired-id")).isFalse();
+        verify(revokedTokenRepository, never()).save(any(RevokedToken.class));
+    }
+
+    @Test
+    public void testRefreshLoadsPersistedTokens() {
+        when(revokedTokenRepository.findAllByExpiresAtAfter(any(Instant.class))).thenReturn(
+            Collections.singletonList(new RevokedToken("persisted-id", Instant.now().plus(1, ChronoUnit.HOURS))));
+
+        tokenRevocationList.init();
+
+        assertThat(tokenRevocationList.isRevoked("persisted-id")).isTrue();
+        verify(revokedTokenRepository).deleteExpired(any(Instant.class));
+    }
+
+    @Test
+    public void testRefreshKeepsTokensRevokedSinceTheLoad() {
+        tokenRevocationList.revoke("revoked-id", Instant.now().plus(1, ChronoUnit.HOURS));
+
+        tokenRevocationList.refresh();
+
+        assertThat(tokenRevocationList.isRevoked("revoked-id")).isTrue();
+    }
+
+    @Test
+    public void testRefreshForgetsExpiredTokens() throws Exception {
+        tokenRevocationList.revoke("expiring-id", Instant.now().plusMillis(50));
+        Thread.sleep(100);
+
+        tokenRevocationList.refresh();
+
+        assertThat(tokenRevocationList.isRevoked("expiring-id")).isFalse();
+    }
+}
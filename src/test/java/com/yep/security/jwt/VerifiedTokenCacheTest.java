@@ -0,0 +1,59 @@
+package com.yep.security.jwt;
+
+import org.junit.Test;
+import org.springframework.security.authentication.UsernamePasswordAuthenticationToken;
+import org.springframework.security.core.Authentication;
+
+import java.util.Collections;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+public class VerifiedTokenCacheTest {
+
+    private final VerifiedTokenCache verifiedTokenCache = new VerifiedTokenCache(4);
+
+    @Test
+    public void testTokenIsCachedUntilItExpires() {
+        Authentication authentication = createAuthentication("first");
+        verifiedTokenCache.put("first-token", "first-id", authentication, 1000);
+
+        assertThat(verifiedTokenCache.get("first-token", 999).getAuthentication()).isSameAs(authentication);
+        assertThat(verifiedTokenCache.get("first-token", 999).getTokenId()).isEqualTo("first-id");
+        assertThat(verifiedTokenCache.get("first-token", 1000)).isNull();
+    }
+
+    @Test
+    public void testOtherTokensAreNotFound() {
+        verifiedTokenCache.put("first-token", "first-id", createAuthentication("first"), 1000);
+
+        assertThat(verifiedTokenCache.get("second-token", 0)).isNull();
+    }
+
+    @Test
+    public void testCacheIsBounded() {
+        for (int i = 0; i < 100; i++) {
+            verifiedTokenCache.put("token-" + i, "id-" + i, createAuthentication("user-" + i), 1000);
+        }
+
+        int cached = 0;
+        for (int i = 0; i < 100; i++) {
+            if (verifiedTokenCache.get("token-" + i, 0) != null) {
+                cached++;
+            }
+        }
+        assertThat(cached).isBetween(1, 4);
+        assertThat(verifiedTokenCache.get("token-99", 0).getAuthentication().getName()).isEqualTo("user-99");
+    }
+
+    @Test
+    public void testClear() {
+        verifiedTokenCache.put("first-token", "first-id", createAuthentication("first"), 1000);
+        verifiedTokenCache.clear();
+
+        assertThat(verifiedTokenCache.get("first-token", 0)).isNull();
+    }
+
+    private static Authentication createAuthentication(String name) {
+        return new UsernamePasswordAuthenticationToken(name, "", Collections.emptyList());
+    }
+}
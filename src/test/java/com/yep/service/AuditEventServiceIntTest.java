@@ -0,0 +1,135 @@
+package com.yep.service;
+
+import com.yep.SomethingApp;
+import com.yep.domain.AuditEventRollup;
+import com.yep.domain.PersistentAuditEvent;
+import com.yep.repository.AuditEventRollupRepository;
+import com.yep.repository.PersistenceAuditEventRepository;
+
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.audit.AuditEvent;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.test.context.junit4.SpringRunner;
+
+import javax.persistence.EntityManagerFactory;
+import java.time.Instant;
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.util.Collections;
+import java.util.Date;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the AuditEventService.
+ *
+ * @see AuditEventService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SomethingApp.class)
+public class AuditEventServiceIntTest {
+
+    @Autowired
+    private AuditEventService auditEventService;
+
+    @Autowired
+    private PersistenceAuditEventRepository persistenceAuditEventRepository;
+
+    @Autowired
+    private EntityManagerFactory entityManagerFactory;
+
+    @Autowired
+    private AuditEventRollupRepository auditEventRollupRepository;
+
+    @Before
+    @After
+    public void deleteAuditEvents() {
+        // Not transactional, as the purge deletes each bucket in its own transaction
+        persistenceAuditEventRepository.deleteAll();
+        auditEventRollupRepository.deleteAll();
+    }
+
+    @Test
+    public void testBucketOf() {
+        assertThat(PersistentAuditEvent.bucketOf(Instant.parse("2018-01-31T23:59:59Z"))).isEqualTo(201801);
+        assertThat(PersistentAuditEvent.bucketOf(Instant.parse("2018-02-01T00:00:00Z"))).isEqualTo(201802);
+    }
+
+    @Test
+    public void testFindByDatesAcrossBuckets() {
+        PersistentAuditEvent january = persistenceAuditEventRepository.save(createEvent(Instant.parse("2018-01-31T12:00:00Z")));
+        PersistentAuditEvent february = persistenceAuditEventRepository.save(createEvent(Instant.parse("2018-02-01T12:00:00Z")));
+        persistenceAuditEventRepository.save(createEvent(Instant.parse("2018-03-01T12:00:00Z")));
+        assertThat(january.getAuditEventBucket()).isEqualTo(201801);
+
+        assertThat(auditEventService.findByDates(Instant.parse("2018-01-31T00:00:00Z"),
+            Instant.parse("2018-02-28T23:59:59Z"), new PageRequest(0, 10)).getContent())
+            .extracting(AuditEvent::getTimestamp)
+            .containsExactlyInAnyOrder(Date.from(january.getAuditEventDate()),
+                Date.from(february.getAuditEventDate()));
+        assertThat(auditEventService.findSliceByDates(Instant.parse("2018-02-01T00:00:00Z"),
+            Instant.parse("2018-02-28T23:59:59Z"), new PageRequest(0, 10)).getContent()).hasSize(1);
+    }
+
+    @Test
+    public void testFindAllReadsTheDataWithTheEvents() {
+        for (int i = 0; i < 3; i++) {
+            persistenceAuditEventRepository.save(createEvent(Instant.now()));
+        }
+        Statistics statistics = entityManagerFactory.unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        List<AuditEvent> events = auditEventService.findAll(new PageRequest(0, 10)).getContent();
+        assertThat(events).extracting(event -> event.getData().get("test-key"))
+            .containsExactly("test-value", "test-value", "test-value");
+        assertThat(statistics.getPrepareStatementCount()).isEqualTo(1);
+    }
+
+    @Test
+    public void testRemoveOldAuditEvents() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        persistenceAuditEventRepository.save(createEvent(now.minusMonths(14).toInstant()));
+        persistenceAuditEventRepository.save(createEvent(now.minusMonths(13).toInstant()));
+        PersistentAuditEvent undatedEvent = persistenceAuditEventRepository.save(createEvent(null));
+        PersistentAuditEvent recentEvent = persistenceAuditEventRepository.save(createEvent(now.minusMonths(11).toInstant()));
+        assertThat(undatedEvent.getAuditEventBucket()).isEqualTo(PersistentAuditEvent.NO_DATE_BUCKET);
+
+        auditEventService.removeOldAuditEvents();
+
+        assertThat(persistenceAuditEventRepository.findAll()).extracting(PersistentAuditEvent::getId)
+            .containsExactly(recentEvent.getId());
+    }
+
+    @Test
+    public void testRemoveOldAuditEventRollups() {
+        ZonedDateTime now = ZonedDateTime.now(ZoneOffset.UTC);
+        auditEventRollupRepository.save(createRollup(now.minusMonths(13).toInstant()));
+        AuditEventRollup recentRollup = auditEventRollupRepository.save(createRollup(now.minusMonths(11).toInstant()));
+
+        auditEventService.removeOldAuditEvents();
+
+        assertThat(auditEventRollupRepository.findAll()).extracting(AuditEventRollup::getId)
+            .containsExactly(recentRollup.getId());
+    }
+
+    private static AuditEventRollup createRollup(Instant bucketStart) {
+        return new AuditEventRollup(bucketStart, "test-type", "test-user", 1L);
+    }
+
+    private static PersistentAuditEvent createEvent(Instant date) {
+        PersistentAuditEvent event = new PersistentAuditEvent();
+        event.setPrincipal("test-user");
+        event.setAuditEventType("test-type");
+        event.setAuditEventDate(date);
+        event.setData(Collections.singletonMap("test-key", "test-value"));
+        return event;
+    }
+}
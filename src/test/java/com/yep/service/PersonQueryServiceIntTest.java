@@ -0,0 +1,90 @@
+package com.yep.service;
+
+import com.yep.SomethingApp;
+import com.yep.domain.Person;
+import com.yep.repository.PersonRepository;
+import com.yep.service.dto.PersonCriteria;
+
+import io.github.jhipster.service.filter.StringFilter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.persistence.EntityManager;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.tuple;
+
+/**
+ * Test class for the PersonQueryService, whose searches only coalesce in read-only transactions, so the tests run
+ * their own.
+ *
+ * @see PersonQueryService
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SomethingApp.class)
+public class PersonQueryServiceIntTest {
+
+    @Autowired
+    private PersonQueryService personQueryService;
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
+    @Autowired
+    private EntityManager em;
+
+    private Person person;
+
+    @Before
+    public void init() {
+        person = personRepository.saveAndFlush(new Person().nationalId("QUERY0001").fullName("Queried Person"));
+    }
+
+    @After
+    public void destroy() {
+        personRepository.delete(person.getId());
+    }
+
+    @Test
+    public void testFindByCriteriaInReadOnlyTransactionReturnsDetachedCopies() {
+        TransactionTemplate readOnly = new TransactionTemplate(transactionManager);
+        readOnly.setReadOnly(true);
+
+        readOnly.execute(status -> {
+            List<Person> people = personQueryService.findByCriteria(nationalIdCriteria("QUERY0001"));
+            assertThat(people).extracting(Person::getId, Person::getFullName)
+                .containsExactly(tuple(person.getId(), "Queried Person"));
+            assertThat(em.contains(people.get(0))).isFalse();
+            return null;
+        });
+    }
+
+    @Test
+    public void testFindByCriteriaInReadWriteTransactionReturnsManagedPeople() {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            List<Person> people = personQueryService.findByCriteria(nationalIdCriteria("QUERY0001"));
+            assertThat(people).hasSize(1);
+            assertThat(em.contains(people.get(0))).isTrue();
+            return null;
+        });
+    }
+
+    private static PersonCriteria nationalIdCriteria(String nationalId) {
+        PersonCriteria criteria = new PersonCriteria();
+        StringFilter filter = new StringFilter();
+        filter.setEquals(nationalId);
+        criteria.setNationalId(filter);
+        return criteria;
+    }
+}
@@ -4,10 +4,13 @@ import com.yep.SomethingApp;
 import com.yep.config.Constants;
 import com.yep.domain.User;
 import com.yep.repository.UserRepository;
+import com.yep.security.AuthoritiesConstants;
 import com.yep.service.dto.UserDTO;
 import com.yep.service.util.RandomUtil;
 
 import org.apache.commons.lang3.RandomStringUtils;
+import org.hibernate.SessionFactory;
+import org.hibernate.stat.Statistics;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
@@ -15,9 +18,11 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Sort;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.transaction.annotation.Transactional;
 
+import javax.persistence.EntityManager;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.List;
@@ -41,6 +46,9 @@ public class UserServiceIntTest {
     @Autowired
     private UserService userService;
 
+    @Autowired
+    private EntityManager em;
+
     private User user;
 
     @Before
@@ -159,6 +167,24 @@ public class UserServiceIntTest {
             .isTrue();
     }
 
+    @Test
+    @Transactional
+    public void testGetAllManagedUsersDoesNotLoadEntities() {
+        em.clear();
+        Statistics statistics = em.getEntityManagerFactory().unwrap(SessionFactory.class).getStatistics();
+        statistics.clear();
+
+        Page<UserDTO> allManagedUsers = userService.getAllManagedUsers(new PageRequest(0, 10, Sort.Direction.ASC, "login"));
+
+        assertThat(statistics.getEntityLoadCount()).isZero();
+        assertThat(statistics.getCollectionLoadCount()).isZero();
+        UserDTO admin = allManagedUsers.getContent().stream()
+            .filter(managedUser -> "admin".equals(managedUser.getLogin()))
+            .findFirst().get();
+        assertThat(admin.getAuthorities()).containsOnly(AuthoritiesConstants.ADMIN, AuthoritiesConstants.USER);
+        assertThat(admin.isActivated()).isTrue();
+    }
+
     @Test
     @Transactional
     public void testRemoveNotActivatedUsers() {
@@ -0,0 +1,96 @@
+package com.yep.service.search;
+
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.cache.concurrent.ConcurrentMapCacheManager;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.transaction.support.TransactionSynchronization;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Test class for the PersonSearchCache.
+ *
+ * @see PersonSearchCache
+ */
+public class PersonSearchCacheUnitTest {
+
+    private MetricRegistry metricRegistry;
+
+    private PersonSearchCache personSearchCache;
+
+    private AtomicInteger searches;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        personSearchCache = new PersonSearchCache(new ConcurrentMapCacheManager(), metricRegistry);
+        searches = new AtomicInteger();
+    }
+
+    @Test
+    public void testNormalize() {
+        assertThat(PersonSearchCache.normalize("  SmiTH ")).isEqualTo("smith");
+        assertThat(PersonSearchCache.normalize(null)).isEmpty();
+    }
+
+    @Test
+    public void testResultIsCachedByKeywordAndPage() {
+        assertThat(search("smith", 0).getIds()).containsExactly(1L, 2L);
+        assertThat(search("smith", 0).getTotal()).isEqualTo(2);
+        assertThat(searches.get()).isEqualTo(1);
+
+        search("smith", 1);
+        search("smit", 0);
+        personSearchCache.get("smith", new PageRequest(0, 20), false, this::uncounted);
+        assertThat(searches.get()).isEqualTo(4);
+
+        assertThat(metricRegistry.meter(MetricRegistry.name(PersonSearchCache.class, "hits")).getCount()).isEqualTo(1);
+        assertThat(metricRegistry.meter(MetricRegistry.name(PersonSearchCache.class, "misses")).getCount()).isEqualTo(4);
+    }
+
+    @Test
+    public void testInvalidateMakesResultsStale() {
+        search("smith", 0);
+        personSearchCache.invalidate();
+        search("smith", 0);
+        assertThat(searches.get()).isEqualTo(2);
+    }
+
+    @Test
+    public void testInvalidateAgainWhenTransactionCompletes() {
+        TransactionSynchronizationManager.initSynchronization();
+        try {
+            personSearchCache.invalidate();
+            // Cached while the write is not visible to other transactions yet
+            search("smith", 0);
+            search("smith", 0);
+            assertThat(searches.get()).isEqualTo(1);
+
+            TransactionSynchronizationManager.getSynchronizations()
+                .forEach(synchronization -> synchronization.afterCompletion(TransactionSynchronization.STATUS_COMMITTED));
+        } finally {
+            TransactionSynchronizationManager.clearSynchronization();
+        }
+        search("smith", 0);
+        assertThat(searches.get()).isEqualTo(2);
+    }
+
+    private PersonSearchCache.Result search(String keyword, int page) {
+        return personSearchCache.get(keyword, new PageRequest(page, 20), true, () -> {
+            searches.incrementAndGet();
+            return PersonSearchCache.Result.counted(Arrays.asList(1L, 2L), 2);
+        });
+    }
+
+    private PersonSearchCache.Result uncounted() {
+        searches.incrementAndGet();
+        return PersonSearchCache.Result.uncounted(Arrays.asList(1L, 2L), false);
+    }
+}
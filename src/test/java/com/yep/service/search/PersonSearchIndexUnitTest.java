@@ -0,0 +1,159 @@
+package com.yep.service.search;
+
+import com.yep.config.ApplicationProperties;
+import com.yep.domain.Person;
+import com.yep.repository.PersonRepository;
+
+import org.junit.Before;
+import org.junit.Test;
+import org.springframework.dao.QueryTimeoutException;
+import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Pageable;
+import org.springframework.data.domain.SliceImpl;
+import org.springframework.test.util.ReflectionTestUtils;
+
+import java.util.Arrays;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyLong;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.when;
+
+/**
+ * Test class for the PersonSearchIndex.
+ *
+ * @see PersonSearchIndex
+ */
+public class PersonSearchIndexUnitTest {
+
+    private PersonRepository personRepository;
+
+    private PersonSearchIndex personSearchIndex;
+
+    @Before
+    public void setup() {
+        personRepository = mock(PersonRepository.class);
+        personSearchIndex = new PersonSearchIndex(personRepository, Runnable::run, new ApplicationProperties());
+        when(personRepository.findByIdGreaterThan(anyLong(), any(Pageable.class))).thenReturn(new SliceImpl<>(Arrays.asList(
+            person(1L, "A1234567", "John Smith"),
+            person(2L, "B7654321", "Jane Smithers"),
+            person(3L, "SMI00001", "Robert Brown"),
+            person(4L, "C0000004", "Alice Goldsmith"),
+            person(5L, "D0000005", null))));
+        personSearchIndex.rebuild();
+    }
+
+    @Test
+    public void testNotReadyBeforeRebuild() {
+        PersonSearchIndex index = new PersonSearchIndex(personRepository, Runnable::run, new ApplicationProperties());
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.search("smith")).isNull();
+    }
+
+    @Test
+    public void testFailedRebuildKeepsNoPartialIndex() {
+        PersonSearchIndex index = new PersonSearchIndex(personRepository, Runnable::run, new ApplicationProperties());
+        when(personRepository.findByIdGreaterThan(anyLong(), any(Pageable.class)))
+            .thenReturn(new SliceImpl<>(Arrays.asList(person(1L, "A1234567", "John Smith")), new PageRequest(0, 1), true))
+            .thenThrow(new QueryTimeoutException("timeout"));
+
+        index.rebuild();
+        index.update(person(6L, "X1", "Written After"));
+
+        assertThat(index.isReady()).isFalse();
+        assertThat(index.size()).isEqualTo(1);
+        assertThat(ReflectionTestUtils.getField(index, "touchedDuringRebuild")).isNull();
+    }
+
+    @Test
+    public void testSearchRanksPrefixBeforeSubstring() {
+        assertThat(personSearchIndex.isReady()).isTrue();
+        assertThat(personSearchIndex.size()).isEqualTo(5);
+        assertThat(personSearchIndex.search("SMI")).containsExactly(3L, 1L, 2L, 4L);
+        assertThat(personSearchIndex.search("smith")).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    public void testSearchRanksExactNationalIdFirst() {
+        personSearchIndex.update(person(6L, "X1", "a1234567 lookalike"));
+        assertThat(personSearchIndex.search("a1234567")).containsExactly(1L, 6L);
+        assertThat(personSearchIndex.search("x1")).containsExactly(6L);
+    }
+
+    @Test
+    public void testSearchWithoutMatch() {
+        assertThat(personSearchIndex.search("zzz")).isEmpty();
+        assertThat(personSearchIndex.search("smithz")).isEmpty();
+        assertThat(personSearchIndex.search("  ")).isNull();
+    }
+
+    @Test
+    public void testShortKeywordScansDocuments() {
+        assertThat(personSearchIndex.search("ja")).containsExactly(2L);
+        assertThat(personSearchIndex.search("0")).containsExactly(3L, 4L, 5L);
+    }
+
+    @Test
+    public void testUpdateReplacesPreviousValues() {
+        personSearchIndex.update(person(1L, "A1234567", "Johnny Walker"));
+        assertThat(personSearchIndex.search("smith")).containsExactly(2L, 4L);
+        assertThat(personSearchIndex.search("walker")).containsExactly(1L);
+        assertThat(personSearchIndex.size()).isEqualTo(5);
+    }
+
+    @Test
+    public void testRemove() {
+        personSearchIndex.remove(2L);
+        assertThat(personSearchIndex.search("smith")).containsExactly(1L, 4L);
+        assertThat(personSearchIndex.size()).isEqualTo(4);
+    }
+
+    @Test
+    public void testCompactionKeepsLiveDocuments() {
+        for (long id = 100; id < 3100; id++) {
+            personSearchIndex.update(person(id, "N" + id, "Temporary " + id));
+        }
+        for (long id = 100; id < 3100; id++) {
+            personSearchIndex.remove(id);
+        }
+        assertThat(personSearchIndex.size()).isEqualTo(5);
+        assertThat(personSearchIndex.search("temporary")).isEmpty();
+        assertThat(personSearchIndex.search("smith")).containsExactly(1L, 2L, 4L);
+    }
+
+    @Test
+    public void testSuggestRanksAndLimits() {
+        PersonSearchIndex.Suggestions suggestions = personSearchIndex.suggest("smi", 2, System.nanoTime() + 1_000_000_000L);
+        assertThat(suggestions.getIds()).containsExactly(3L, 1L);
+        assertThat(suggestions.isComplete()).isTrue();
+        assertThat(personSearchIndex.suggest("j", 1, System.nanoTime() + 1_000_000_000L).getIds()).containsExactly(1L);
+    }
+
+    @Test
+    public void testSuggestAfterDeadlineIsPartial() {
+        PersonSearchIndex.Suggestions suggestions = personSearchIndex.suggest("smith", 10, System.nanoTime() - 1);
+        assertThat(suggestions.getIds()).isEmpty();
+        assertThat(suggestions.isComplete()).isFalse();
+    }
+
+    @Test
+    public void testSuggestNotReadyBeforeRebuild() {
+        PersonSearchIndex index = new PersonSearchIndex(personRepository, Runnable::run, new ApplicationProperties());
+        assertThat(index.suggest("smith", 10, System.nanoTime() + 1_000_000_000L)).isNull();
+    }
+
+    @Test
+    public void testIntersect() {
+        int[] target = {1, 3, 5, 7, 9, 11};
+        int[] other = {0, 1, 2, 5, 6, 7, 8, 10, 11, 12, 13, 14, 15};
+        int size = PersonSearchIndex.intersect(target, target.length, other, other.length);
+        assertThat(Arrays.copyOf(target, size)).containsExactly(1, 5, 7, 11);
+    }
+
+    private static Person person(Long id, String nationalId, String fullName) {
+        Person person = new Person().nationalId(nationalId).fullName(fullName);
+        person.setId(id);
+        return person;
+    }
+}
@@ -0,0 +1,117 @@
+package com.yep.service.util;
+
+import com.codahale.metrics.Gauge;
+import com.codahale.metrics.MetricRegistry;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.catchThrowable;
+
+/**
+ * Test class for the SingleFlight utility class.
+ *
+ * @see SingleFlight
+ */
+public class SingleFlightUnitTest {
+
+    private MetricRegistry metricRegistry;
+
+    private SingleFlight<String, String> singleFlight;
+
+    private ExecutorService executor;
+
+    @Before
+    public void setup() {
+        metricRegistry = new MetricRegistry();
+        singleFlight = new SingleFlight<>(metricRegistry, "test");
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void destroy() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    public void testConcurrentCallsAreCoalesced() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger calls = new AtomicInteger();
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            started.countDown();
+            await(release);
+            return "result";
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<String> follower = executor.submit(() -> singleFlight.execute("key", () -> {
+            calls.incrementAndGet();
+            return "other result";
+        }));
+        waitUntilCoalesced(1);
+        release.countDown();
+
+        assertThat(leader.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isEqualTo("result");
+        assertThat(calls.get()).isEqualTo(1);
+        assertThat(metricRegistry.meter("test.executions").getCount()).isEqualTo(1);
+        assertThat(metricRegistry.getGauges()).containsKey("test.coalescing-ratio");
+    }
+
+    @Test
+    public void testSequentialCallsAreNotCoalesced() {
+        AtomicInteger calls = new AtomicInteger();
+        singleFlight.execute("key", () -> "result " + calls.incrementAndGet());
+
+        assertThat(singleFlight.execute("key", () -> "result " + calls.incrementAndGet())).isEqualTo("result 2");
+        assertThat(metricRegistry.meter("test.coalesced").getCount()).isZero();
+        Gauge<?> ratio = metricRegistry.getGauges().get("test.coalescing-ratio");
+        assertThat(ratio.getValue()).isIn(0.0, Double.NaN);
+    }
+
+    @Test
+    public void testFailureIsSharedWithWaiters() throws Exception {
+        CountDownLatch started = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        Future<String> leader = executor.submit(() -> singleFlight.execute("key", () -> {
+            started.countDown();
+            await(release);
+            throw new IllegalStateException("failed");
+        }));
+        assertThat(started.await(5, TimeUnit.SECONDS)).isTrue();
+        Future<Throwable> follower = executor.submit(() -> catchThrowable(() -> singleFlight.execute("key", () -> "result")));
+        waitUntilCoalesced(1);
+        release.countDown();
+
+        assertThat(catchThrowable(() -> leader.get(5, TimeUnit.SECONDS))).hasCauseInstanceOf(IllegalStateException.class);
+        assertThat(follower.get(5, TimeUnit.SECONDS)).isInstanceOf(IllegalStateException.class).hasMessage("failed");
+        assertThat(singleFlight.execute("key", () -> "result")).isEqualTo("result");
+    }
+
+    private void waitUntilCoalesced(long count) throws InterruptedException {
+        for (int attempt = 0; attempt < 100 && metricRegistry.meter("test.coalesced").getCount() < count; attempt++) {
+            Thread.sleep(20);
+        }
+        assertThat(metricRegistry.meter("test.coalesced").getCount()).isEqualTo(count);
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
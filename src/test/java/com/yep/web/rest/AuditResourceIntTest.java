@@ -1,29 +1,42 @@
 package com.yep.web.rest;
 
 import com.yep.SomethingApp;
+import com.yep.config.ApplicationProperties;
+import com.yep.config.audit.AuditEventBroadcaster;
 import com.yep.config.audit.AuditEventConverter;
 import com.yep.domain.PersistentAuditEvent;
+import com.yep.repository.AuditEventPartitionRepository;
+import com.yep.repository.AuditEventRollupCounter;
+import com.yep.repository.AuditEventRollupRepository;
 import com.yep.repository.PersistenceAuditEventRepository;
+import com.yep.repository.TableStatisticsRepository;
 import com.yep.service.AuditEventService;
 import org.junit.Before;
 import org.junit.Test;
 import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.actuate.audit.AuditEvent;
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
 import org.springframework.format.support.FormattingConversionService;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import java.time.Instant;
 import java.time.format.DateTimeFormatter;
+import java.util.Collections;
+import java.util.Date;
 
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -48,6 +61,24 @@ public class AuditResourceIntTest {
     @Autowired
     private AuditEventConverter auditEventConverter;
 
+    @Autowired
+    private TableStatisticsRepository tableStatisticsRepository;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private AuditEventBroadcaster auditEventBroadcaster;
+
+    @Autowired
+    private AuditEventRollupRepository auditEventRollupRepository;
+
+    @Autowired
+    private AuditEventPartitionRepository auditEventPartitionRepository;
+
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
@@ -59,14 +90,20 @@ public class AuditResourceIntTest {
 
     private PersistentAuditEvent auditEvent;
 
+    private AuditEventRollupCounter auditEventRollupCounter;
+
     private MockMvc restAuditMockMvc;
 
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
+        auditEventRollupCounter = new AuditEventRollupCounter(auditEventRollupRepository, transactionManager,
+            applicationProperties);
         AuditEventService auditEventService =
-            new AuditEventService(auditEventRepository, auditEventConverter);
-        AuditResource auditResource = new AuditResource(auditEventService);
+            new AuditEventService(auditEventRepository, auditEventConverter, tableStatisticsRepository,
+                applicationProperties, auditEventRollupCounter, auditEventPartitionRepository,
+                auditEventRollupRepository);
+        AuditResource auditResource = new AuditResource(auditEventService, auditEventBroadcaster);
         this.restAuditMockMvc = MockMvcBuilders.standaloneSetup(auditResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setConversionService(formattingConversionService)
@@ -94,6 +131,20 @@ public class AuditResourceIntTest {
             .andExpect(jsonPath("$.[*].principal").value(hasItem(SAMPLE_PRINCIPAL)));
     }
 
+    @Test
+    public void getAllAuditsWithoutCount() throws Exception {
+        // Initialize the database
+        auditEventRepository.save(auditEvent);
+
+        // Get all the audits, without counting them
+        restAuditMockMvc.perform(get("/management/audits?count=false&estimate=true"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].principal").value(hasItem(SAMPLE_PRINCIPAL)))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"last\""))));
+    }
+
     @Test
     public void getAudit() throws Exception {
         // Initialize the database
@@ -138,10 +189,68 @@ public class AuditResourceIntTest {
             .andExpect(header().string("X-Total-Count", "0"));
     }
 
+    @Test
+    public void getAuditsByDateWithoutCount() throws Exception {
+        // Initialize the database
+        auditEventRepository.save(auditEvent);
+
+        // Generate dates for selecting audits by date, making sure the period will contain the audit
+        String fromDate  = SAMPLE_TIMESTAMP.minusSeconds(SECONDS_PER_DAY).toString().substring(0,10);
+        String toDate = SAMPLE_TIMESTAMP.plusSeconds(SECONDS_PER_DAY).toString().substring(0,10);
+
+        // Get the audit, without counting
+        restAuditMockMvc.perform(get("/management/audits?fromDate=" + fromDate + "&toDate=" + toDate + "&count=false"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].principal").value(hasItem(SAMPLE_PRINCIPAL)))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("fromDate=" + fromDate)));
+    }
+
+    @Test
+    public void getAuditRollups() throws Exception {
+        Instant start = Instant.parse("2018-04-09T10:00:00Z");
+        auditEventRollupCounter.add(createEvent(start.plusSeconds(10), "first", "AUTHENTICATION_FAILURE"));
+        auditEventRollupCounter.add(createEvent(start.plusSeconds(70), "second", "AUTHENTICATION_FAILURE"));
+        auditEventRollupCounter.add(createEvent(start.plusSeconds(80), "first", "AUTHENTICATION_SUCCESS"));
+        auditEventRollupCounter.add(createEvent(start.plusSeconds(3600), "first", "AUTHENTICATION_FAILURE"));
+
+        // Get the failed logins per hour
+        restAuditMockMvc.perform(get("/management/audits/rollups")
+            .param("fromDate", start.toString())
+            .param("toDate", start.plusSeconds(7200).toString())
+            .param("granularity", "HOUR")
+            .param("type", "AUTHENTICATION_FAILURE")
+            .param("byPrincipal", "false"))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.length()").value(2))
+            .andExpect(jsonPath("$.[0].bucketStart").value("2018-04-09T10:00:00Z"))
+            .andExpect(jsonPath("$.[0].type").value("AUTHENTICATION_FAILURE"))
+            .andExpect(jsonPath("$.[0].principal").doesNotExist())
+            .andExpect(jsonPath("$.[0].count").value(2))
+            .andExpect(jsonPath("$.[1].bucketStart").value("2018-04-09T11:00:00Z"))
+            .andExpect(jsonPath("$.[1].count").value(1));
+
+        // Get the events per principal per minute
+        restAuditMockMvc.perform(get("/management/audits/rollups")
+            .param("fromDate", start.toString())
+            .param("toDate", start.plusSeconds(120).toString())
+            .param("byType", "false"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.length()").value(3))
+            .andExpect(jsonPath("$.[1].bucketStart").value("2018-04-09T10:01:00Z"))
+            .andExpect(jsonPath("$.[1].principal").value("first"))
+            .andExpect(jsonPath("$.[2].principal").value("second"));
+    }
+
     @Test
     public void getNonExistingAudit() throws Exception {
         // Get the audit
         restAuditMockMvc.perform(get("/management/audits/{id}", Long.MAX_VALUE))
             .andExpect(status().isNotFound());
     }
+
+    private static AuditEvent createEvent(Instant timestamp, String principal, String type) {
+        return new AuditEvent(Date.from(timestamp), principal, type, Collections.emptyMap());
+    }
 }
@@ -0,0 +1,181 @@
+package com.yep.web.rest;
+
+import com.yep.SomethingApp;
+
+import com.yep.domain.Person;
+import com.yep.repository.PersonRepository;
+import com.yep.service.PersonImportService;
+import com.yep.service.PersonService;
+import com.yep.service.dto.PersonImportJobDTO.Status;
+import com.yep.web.rest.errors.ExceptionTranslator;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.junit.runner.RunWith;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
+import org.springframework.test.context.junit4.SpringRunner;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.zip.GZIPOutputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+/**
+ * Test class for the PersonImportResource REST controller.
+ *
+ * The imports are committed by the import thread, so these tests are not transactional and delete the imported
+ * people themselves.
+ *
+ * @see PersonImportResource
+ */
+@RunWith(SpringRunner.class)
+@SpringBootTest(classes = SomethingApp.class)
+public class PersonImportResourceIntTest {
+
+    private static final String NATIONAL_ID_PREFIX = "IMPORT";
+
+    @Autowired
+    private PersonRepository personRepository;
+
+    @Autowired
+    private PersonService personService;
+
+    @Autowired
+    private PersonImportService personImportService;
+
+    @Autowired
+    private MappingJackson2HttpMessageConverter jacksonMessageConverter;
+
+    @Autowired
+    private ExceptionTranslator exceptionTranslator;
+
+    private MockMvc restPersonImportMockMvc;
+
+    @Before
+    public void setup() {
+        PersonImportResource personImportResource = new PersonImportResource(personImportService);
+        this.restPersonImportMockMvc = MockMvcBuilders.standaloneSetup(personImportResource)
+            .setControllerAdvice(exceptionTranslator)
+            .setMessageConverters(jacksonMessageConverter).build();
+    }
+
+    @After
+    public void deleteImportedPeople() {
+        findImportedPeople().forEach(person -> personService.delete(person.getId()));
+    }
+
+    @Test
+    public void importPeopleFromNdjson() throws Exception {
+        String body = "{\"nationalId\":\"IMPORT0001\",\"fullName\":\"Imported One\"}\n" +
+            "{\"nationalId\":\"IMPORT0002\",\"fullName\":\"Imported Two\"}\n" +
+            "{\"id\":1,\"nationalId\":\"IMPORT0003\",\"fullName\":\"Imported Three\"}\n";
+
+        String jobId = startImport(body.getBytes(StandardCharsets.UTF_8), "application/x-ndjson");
+
+        waitForJob(jobId)
+            .andExpect(jsonPath("$.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.rowsProcessed").value(3))
+            .andExpect(jsonPath("$.rowsImported").value(2))
+            .andExpect(jsonPath("$.rowsRejected").value(1))
+            .andExpect(jsonPath("$.errors").value(hasItem("Row 3: A new person cannot already have an ID")));
+        assertThat(findImportedPeople()).extracting(Person::getFullName)
+            .containsExactlyInAnyOrder("Imported One", "Imported Two");
+    }
+
+    @Test
+    public void importPeopleFromGzippedCsv() throws Exception {
+        String body = "nationalId,fullName\n" +
+            "IMPORT0004,\"Imported, Four\"\n" +
+            "IMPORT0005,Imported Five\n";
+        ByteArrayOutputStream compressed = new ByteArrayOutputStream();
+        try (GZIPOutputStream gzip = new GZIPOutputStream(compressed)) {
+            gzip.write(body.getBytes(StandardCharsets.UTF_8));
+        }
+
+        String jobId = startImport(compressed.toByteArray(), "text/csv");
+
+        waitForJob(jobId)
+            .andExpect(jsonPath("$.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.rowsImported").value(2))
+            .andExpect(jsonPath("$.rowsRejected").value(0));
+        assertThat(findImportedPeople()).extracting(Person::getFullName)
+            .containsExactlyInAnyOrder("Imported, Four", "Imported Five");
+    }
+
+    @Test
+    public void importPeopleRejectsTheRowsWhichCannotBeSaved() throws Exception {
+        String tooLong = String.join("", Collections.nCopies(256, "x"));
+        String body = "{\"nationalId\":\"IMPORT0006\",\"fullName\":\"Imported Six\"}\n" +
+            "{\"nationalId\":\"IMPORT0007\",\"fullName\":\"" + tooLong + "\"}\n" +
+            "{\"nationalId\":\"IMPORT0008\",\"fullName\":\"Imported Eight\"}\n";
+
+        String jobId = startImport(body.getBytes(StandardCharsets.UTF_8), "application/x-ndjson");
+
+        waitForJob(jobId)
+            .andExpect(jsonPath("$.status").value("COMPLETED"))
+            .andExpect(jsonPath("$.rowsProcessed").value(3))
+            .andExpect(jsonPath("$.rowsImported").value(2))
+            .andExpect(jsonPath("$.rowsRejected").value(1))
+            .andExpect(jsonPath("$.errors[0]").value(startsWith("Row 2: ")));
+        assertThat(findImportedPeople()).extracting(Person::getFullName)
+            .containsExactlyInAnyOrder("Imported Six", "Imported Eight");
+    }
+
+    @Test
+    public void importPeopleWithUnsupportedContentType() throws Exception {
+        restPersonImportMockMvc.perform(post("/api/people/import")
+            .contentType("application/xml")
+            .content("<people/>"))
+            .andExpect(status().isUnsupportedMediaType());
+    }
+
+    @Test
+    public void getNonExistingImportJob() throws Exception {
+        restPersonImportMockMvc.perform(get("/api/people/import/{id}", "unknown"))
+            .andExpect(status().isNotFound());
+    }
+
+    private String startImport(byte[] body, String contentType) throws Exception {
+        MvcResult result = restPersonImportMockMvc.perform(post("/api/people/import")
+            .contentType(contentType)
+            .content(body))
+            .andExpect(status().isAccepted())
+            .andExpect(header().string("Location", startsWith("/api/people/import/")))
+            .andReturn();
+        String location = result.getResponse().getHeader("Location");
+        return location.substring(location.lastIndexOf('/') + 1);
+    }
+
+    private ResultActions waitForJob(String jobId) throws Exception {
+        for (int attempt = 0; attempt < 100; attempt++) {
+            Status status = personImportService.getJob(jobId).get().getStatus();
+            if (status != Status.QUEUED && status != Status.RUNNING) {
+                break;
+            }
+            Thread.sleep(50);
+        }
+        return restPersonImportMockMvc.perform(get("/api/people/import/{id}", jobId))
+            .andExpect(status().isOk());
+    }
+
+    private List<Person> findImportedPeople() {
+        return personRepository.findAll().stream()
+            .filter(person -> person.getNationalId() != null && person.getNationalId().startsWith(NATIONAL_ID_PREFIX))
+            .collect(Collectors.toList());
+    }
+}
@@ -1,6 +1,8 @@
 package com.yep.web.rest;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import com.yep.SomethingApp;
+import com.yep.config.ApplicationProperties;
 
 import com.yep.domain.Person;
 import com.yep.repository.PersonRepository;
@@ -8,6 +10,7 @@ import com.yep.service.PersonService;
 import com.yep.web.rest.errors.ExceptionTranslator;
 import com.yep.service.dto.PersonCriteria;
 import com.yep.service.PersonQueryService;
+import com.yep.service.search.PersonSearchIndex;
 
 import org.junit.Before;
 import org.junit.Test;
@@ -15,20 +18,37 @@ import org.junit.runner.RunWith;
 import org.mockito.MockitoAnnotations;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.core.task.SyncTaskExecutor;
+import org.springframework.core.task.support.TaskExecutorAdapter;
 import org.springframework.data.web.PageableHandlerMethodArgumentResolver;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.MediaType;
 import org.springframework.http.converter.json.MappingJackson2HttpMessageConverter;
 import org.springframework.test.context.junit4.SpringRunner;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+import org.springframework.test.web.servlet.ResultActions;
+import org.springframework.test.web.servlet.request.MockHttpServletRequestBuilder;
 import org.springframework.test.web.servlet.setup.MockMvcBuilders;
+import org.springframework.scheduling.concurrent.ThreadPoolTaskExecutor;
+import org.springframework.transaction.PlatformTransactionManager;
 import org.springframework.transaction.annotation.Transactional;
 
 import javax.persistence.EntityManager;
+import java.net.URI;
 import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
 
 import static com.yep.web.rest.TestUtil.createFormattingConversionService;
 import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.contains;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.hamcrest.Matchers.containsString;
 import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
 
@@ -59,6 +79,15 @@ public class PersonResourceIntTest {
     @Autowired
     private MappingJackson2HttpMessageConverter jacksonMessageConverter;
 
+    @Autowired
+    private ObjectMapper objectMapper;
+
+    @Autowired
+    private ApplicationProperties applicationProperties;
+
+    @Autowired
+    private PersonSearchIndex personSearchIndex;
+
     @Autowired
     private PageableHandlerMethodArgumentResolver pageableArgumentResolver;
 
@@ -68,6 +97,9 @@ public class PersonResourceIntTest {
     @Autowired
     private EntityManager em;
 
+    @Autowired
+    private PlatformTransactionManager transactionManager;
+
     private MockMvc restPersonMockMvc;
 
     private Person person;
@@ -75,7 +107,9 @@ public class PersonResourceIntTest {
     @Before
     public void setup() {
         MockitoAnnotations.initMocks(this);
-        final PersonResource personResource = new PersonResource(personService, personQueryService);
+        // The queries run on the test thread, so that they see the data of the test transaction
+        final PersonResource personResource = new PersonResource(personService, personQueryService, objectMapper,
+            applicationProperties, new TaskExecutorAdapter(new SyncTaskExecutor()), transactionManager);
         this.restPersonMockMvc = MockMvcBuilders.standaloneSetup(personResource)
             .setCustomArgumentResolvers(pageableArgumentResolver)
             .setControllerAdvice(exceptionTranslator)
@@ -154,6 +188,107 @@ public class PersonResourceIntTest {
             .andExpect(jsonPath("$.[*].fullName").value(hasItem(DEFAULT_FULL_NAME.toString())));
     }
 
+    @Test
+    public void exportPeople() throws Exception {
+        // Initialize the database, committing so that the export thread can see the people
+        Person first = personRepository.saveAndFlush(createEntity(em).nationalId("EXPORT0001").fullName("Export, One"));
+        Person second = personRepository.saveAndFlush(createEntity(em).nationalId("EXPORT0002").fullName("Export Two"));
+        try {
+            // Export the people as NDJSON
+            MvcResult result = restPersonMockMvc.perform(get("/api/people/export?nationalId.contains=EXPORT"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            result.getAsyncResult();
+            assertThat(result.getResponse().getContentType()).isEqualTo("application/x-ndjson");
+            assertThat(result.getResponse().getContentAsString()).isEqualTo(
+                "{\"id\":" + first.getId() + ",\"nationalId\":\"EXPORT0001\",\"fullName\":\"Export, One\"}\n" +
+                "{\"id\":" + second.getId() + ",\"nationalId\":\"EXPORT0002\",\"fullName\":\"Export Two\"}\n");
+
+            // Export the people as CSV
+            result = restPersonMockMvc.perform(get("/api/people/export?nationalId.contains=EXPORT&format=csv"))
+                .andExpect(status().isOk())
+                .andExpect(request().asyncStarted())
+                .andReturn();
+            result.getAsyncResult();
+            assertThat(result.getResponse().getContentType()).isEqualTo("text/csv");
+            assertThat(result.getResponse().getContentAsString()).isEqualTo(
+                "id,nationalId,fullName\n" +
+                first.getId() + ",EXPORT0001,\"Export, One\"\n" +
+                second.getId() + ",EXPORT0002,\"Export Two\"\n");
+        } finally {
+            personService.delete(first.getId());
+            personService.delete(second.getId());
+        }
+    }
+
+    @Test
+    public void suggestPeople() throws Exception {
+        // Initialize the database and the search index, committing so that the index sees the people
+        Person prefix = personService.save(createEntity(em).nationalId("SUGGEST01").fullName("Zorro Suggested"));
+        Person substring = personService.save(createEntity(em).nationalId("SUGGEST02").fullName("Don Zorro"));
+        Person other = personService.save(createEntity(em).nationalId("SUGGEST03").fullName("Zorrino"));
+        try {
+            for (int attempt = 0; attempt < 100 && !personSearchIndex.isReady(); attempt++) {
+                Thread.sleep(50);
+            }
+
+            // The prefix matches are suggested first
+            restPersonMockMvc.perform(get("/api/people/suggest?q=ZORR&k=2"))
+                .andExpect(status().isOk())
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+                .andExpect(header().doesNotExist(PersonResource.PARTIAL_RESULTS_HEADER))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$.[*].id").value(containsInAnyOrder(prefix.getId().intValue(), other.getId().intValue())))
+                .andExpect(jsonPath("$.[0].fullName").exists())
+                .andExpect(jsonPath("$.[0].nationalId").exists());
+
+            restPersonMockMvc.perform(get("/api/people/suggest?q=zorro"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(contains(prefix.getId().intValue(), substring.getId().intValue())));
+        } finally {
+            personService.delete(prefix.getId());
+            personService.delete(substring.getId());
+            personService.delete(other.getId());
+        }
+    }
+
+    @Test
+    public void searchPeopleWithSort() throws Exception {
+        // Initialize the database and the search index, committing so that the index sees the people
+        Person charlie = personService.save(createEntity(em).nationalId("SORTED01").fullName("Sortkey Charlie"));
+        Person alpha = personService.save(createEntity(em).nationalId("SORTED02").fullName("Sortkey Alpha"));
+        Person bravo = personService.save(createEntity(em).nationalId("SORTED03").fullName("Sortkey Bravo"));
+        try {
+            for (int attempt = 0; attempt < 100 && !personSearchIndex.isReady(); attempt++) {
+                Thread.sleep(50);
+            }
+
+            restPersonMockMvc.perform(get("/api/people?keyword=sortkey&sort=fullName,asc"))
+                .andExpect(status().isOk())
+                .andExpect(header().string("X-Total-Count", "3"))
+                .andExpect(jsonPath("$.[*].id").value(contains(alpha.getId().intValue(), bravo.getId().intValue(),
+                    charlie.getId().intValue())));
+            restPersonMockMvc.perform(get("/api/people?keyword=sortkey&sort=id,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(contains(bravo.getId().intValue(), alpha.getId().intValue(),
+                    charlie.getId().intValue())));
+            restPersonMockMvc.perform(get("/api/people?keyword=sortkey&count=false&size=2&sort=fullName,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.[*].id").value(contains(charlie.getId().intValue(), bravo.getId().intValue())));
+        } finally {
+            personService.delete(charlie.getId());
+            personService.delete(alpha.getId());
+            personService.delete(bravo.getId());
+        }
+    }
+
+    @Test
+    public void exportPeopleWithUnsupportedFormat() throws Exception {
+        restPersonMockMvc.perform(get("/api/people/export?format=xml"))
+            .andExpect(status().isBadRequest());
+    }
+
     @Test
     @Transactional
     public void getPerson() throws Exception {
@@ -169,6 +304,35 @@ public class PersonResourceIntTest {
             .andExpect(jsonPath("$.fullName").value(DEFAULT_FULL_NAME.toString()));
     }
 
+    @Test
+    @Transactional
+    public void getPersonAsync() throws Exception {
+        // Initialize the database
+        personRepository.saveAndFlush(person);
+
+        // Get the person on the person query executor
+        performAsync(get("/api/people/{id}?async=true", person.getId()))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.id").value(person.getId().intValue()));
+        performAsync(get("/api/people/{id}?async=true", Long.MAX_VALUE))
+            .andExpect(status().isNotFound());
+    }
+
+    @Test
+    @Transactional
+    public void getAllPeopleAsync() throws Exception {
+        // Initialize the database
+        personRepository.saveAndFlush(person);
+
+        // Get all the personList on the person query executor
+        performAsync(get("/api/people?async=true&sort=id,desc&fullName.equals=" + DEFAULT_FULL_NAME))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(person.getId().intValue())));
+        performAsync(get("/api/people?async=true&sort=id,desc&fullName.equals=" + UPDATED_FULL_NAME))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$").isEmpty());
+    }
+
     @Test
     @Transactional
     public void getAllPeopleByNationalIdIsEqualToSomething() throws Exception {
@@ -246,6 +410,161 @@ public class PersonResourceIntTest {
         // Get all the personList where fullName is null
         defaultPersonShouldNotBeFound("fullName.specified=false");
     }
+
+    @Test
+    @Transactional
+    public void getAllPeopleWithoutCount() throws Exception {
+        // Initialize the database
+        Person first = personRepository.saveAndFlush(createEntity(em));
+        Person second = personRepository.saveAndFlush(createEntity(em));
+
+        // Get the first page, without counting the people
+        restPersonMockMvc.perform(get("/api/people?keyword=&count=false&estimate=true&size=1&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(second.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("count=false&page=1&size=1>; rel=\"next\"")))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"last\""))));
+
+        // Get the next page
+        restPersonMockMvc.perform(get("/api/people?keyword=&count=false&size=1&page=1&sort=id,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(hasItem(first.getId().intValue())))
+            .andExpect(header().doesNotExist("X-Total-Count"))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"prev\"")));
+    }
+
+    @Test
+    @Transactional
+    public void getAllPeopleByCursor() throws Exception {
+        // Initialize the database
+        Person first = personRepository.saveAndFlush(createEntity(em).fullName("Cursor B"));
+        Person second = personRepository.saveAndFlush(createEntity(em).fullName(null));
+        Person third = personRepository.saveAndFlush(createEntity(em).fullName("Cursor A"));
+        Person fourth = personRepository.saveAndFlush(createEntity(em).fullName("Cursor B"));
+
+        // Get the first page, sorted by full name with nulls first
+        MvcResult result = restPersonMockMvc.perform(get("/api/people?keyword=&cursor=&size=2&sort=fullName,asc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(second.getId().intValue(), third.getId().intValue())))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("rel=\"next\"")))
+            .andReturn();
+
+        // Follow the cursor of the next page
+        restPersonMockMvc.perform(get(nextLink(result)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue(), fourth.getId().intValue())))
+            .andExpect(header().string(HttpHeaders.LINK, not(containsString("rel=\"next\""))));
+    }
+
+    @Test
+    @Transactional
+    public void getAllPeopleByCursorDescending() throws Exception {
+        // Initialize the database
+        Person first = personRepository.saveAndFlush(createEntity(em).fullName("Cursor B"));
+        Person second = personRepository.saveAndFlush(createEntity(em).fullName(null));
+        Person third = personRepository.saveAndFlush(createEntity(em).fullName("Cursor A"));
+
+        // Get the first page, sorted by full name with nulls last
+        MvcResult result = restPersonMockMvc.perform(get("/api/people?keyword=&cursor=&size=1&sort=fullName,desc"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue())))
+            .andReturn();
+        result = restPersonMockMvc.perform(get(nextLink(result)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(third.getId().intValue())))
+            .andReturn();
+        restPersonMockMvc.perform(get(nextLink(result)))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(second.getId().intValue())));
+
+        // The first page keeps the sort
+        restPersonMockMvc.perform(get(link(result, "first")))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(first.getId().intValue())));
+    }
+
+    @Test
+    @Transactional
+    public void getAllPeopleByCursorWithKeywordToEncode() throws Exception {
+        // Initialize the database
+        Person person = personRepository.saveAndFlush(createEntity(em).fullName("Smith & Sons #1"));
+        personRepository.saveAndFlush(createEntity(em).fullName("Smith & Sons #2"));
+
+        MvcResult result = restPersonMockMvc.perform(get("/api/people").param("keyword", "& Sons #")
+                .param("cursor", "").param("size", "1"))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].id").value(contains(person.getId().intValue())))
+            .andExpect(header().string(HttpHeaders.LINK, containsString("keyword=%26%20Sons%20%23&")))
+            .andReturn();
+
+        restPersonMockMvc.perform(get(URI.create(nextLink(result))))
+            .andExpect(status().isOk())
+            .andExpect(jsonPath("$.[*].fullName").value(contains("Smith & Sons #2")));
+    }
+
+    @Test
+    @Transactional
+    public void getAllPeopleWithInvalidCursor() throws Exception {
+        restPersonMockMvc.perform(get("/api/people?keyword=&cursor=not-a-cursor"))
+            .andExpect(status().isBadRequest());
+
+        restPersonMockMvc.perform(get("/api/people?keyword=&cursor=&sort=unknown,asc"))
+            .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    public void getAllPeopleWhenQueueIsFull() throws Exception {
+        ThreadPoolTaskExecutor personQueryExecutor = new ThreadPoolTaskExecutor();
+        personQueryExecutor.setCorePoolSize(1);
+        personQueryExecutor.setMaxPoolSize(1);
+        personQueryExecutor.setQueueCapacity(0);
+        personQueryExecutor.initialize();
+        CountDownLatch release = new CountDownLatch(1);
+        try {
+            // Keep the only thread busy
+            personQueryExecutor.execute(() -> {
+                try {
+                    release.await(5, TimeUnit.SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            });
+            PersonResource personResource = new PersonResource(personService, personQueryService, objectMapper,
+                applicationProperties, personQueryExecutor, transactionManager);
+            MockMvcBuilders.standaloneSetup(personResource)
+                .setControllerAdvice(exceptionTranslator)
+                .setMessageConverters(jacksonMessageConverter).build()
+                .perform(get("/api/people/{id}?async=true", Long.MAX_VALUE))
+                .andExpect(status().isServiceUnavailable())
+                .andExpect(header().string(HttpHeaders.RETRY_AFTER,
+                    Long.toString(applicationProperties.getPersonQueries().getRetryAfterSeconds())))
+                .andExpect(jsonPath("$.message").value("error.http.503"));
+        } finally {
+            release.countDown();
+            personQueryExecutor.shutdown();
+        }
+    }
+
+    /**
+     * Performs a request answered asynchronously, and dispatches its result.
+     */
+    private ResultActions performAsync(MockHttpServletRequestBuilder requestBuilder) throws Exception {
+        MvcResult result = restPersonMockMvc.perform(requestBuilder)
+            .andExpect(request().asyncStarted())
+            .andReturn();
+        return restPersonMockMvc.perform(asyncDispatch(result));
+    }
+
+    private static String nextLink(MvcResult result) {
+        return link(result, "next");
+    }
+
+    private static String link(MvcResult result, String rel) {
+        Matcher matcher = Pattern.compile("<([^>]*)>; rel=\"" + rel + "\"").matcher(result.getResponse().getHeader(HttpHeaders.LINK));
+        assertThat(matcher.find()).isTrue();
+        return matcher.group(1);
+    }
     /**
      * Executes the search, and checks that the default entity is returned
      */
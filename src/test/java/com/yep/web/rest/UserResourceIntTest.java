@@ -279,6 +279,21 @@ public class UserResourceIntTest {
             .andExpect(jsonPath("$.[*].langKey").value(hasItem(DEFAULT_LANGKEY)));
     }
 
+    @Test
+    @Transactional
+    public void getAllUsersWithoutCount() throws Exception {
+        // Initialize the database
+        userRepository.saveAndFlush(user);
+
+        // Get all the users, without counting them
+        restUserMockMvc.perform(get("/api/users?sort=id,desc&count=false")
+            .accept(MediaType.APPLICATION_JSON))
+            .andExpect(status().isOk())
+            .andExpect(content().contentType(MediaType.APPLICATION_JSON_UTF8_VALUE))
+            .andExpect(jsonPath("$.[*].login").value(hasItem(DEFAULT_LOGIN)))
+            .andExpect(header().doesNotExist("X-Total-Count"));
+    }
+
     @Test
     @Transactional
     public void getUser() throws Exception {
@@ -16,6 +16,7 @@ import org.zalando.problem.spring.web.advice.MediaTypes;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.get;
 import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.post;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.content;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.header;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.jsonPath;
 import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.status;
 
@@ -139,6 +140,16 @@ public class ExceptionTranslatorIntTest {
             .andExpect(jsonPath("$.title").value("test response status"));
     }
 
+    @Test
+    public void testPasswordHashingUnavailable() throws Exception {
+        mockMvc.perform(get("/test/password-hashing-unavailable"))
+            .andExpect(status().isServiceUnavailable())
+            .andExpect(header().string("Retry-After", "2"))
+            .andExpect(content().contentType(MediaTypes.PROBLEM))
+            .andExpect(jsonPath("$.message").value("error.http.503"))
+            .andExpect(jsonPath("$.title").value("Too many password hashings"));
+    }
+
     @Test
     public void testInternalServerError() throws Exception {
         mockMvc.perform(get("/test/internal-server-error"))
@@ -1,5 +1,6 @@
 package com.yep.web.rest.errors;
 
+import com.yep.security.PasswordHashingUnavailableException;
 import org.springframework.dao.ConcurrencyFailureException;
 import org.springframework.http.HttpStatus;
 import org.springframework.security.access.AccessDeniedException;
@@ -63,6 +64,11 @@ public class ExceptionTranslatorTestController {
         throw new TestResponseStatusException();
     }
 
+    @GetMapping("/test/password-hashing-unavailable")
+    public void passwordHashingUnavailable() {
+        throw new PasswordHashingUnavailableException("Too many password hashings", 2);
+    }
+
     @GetMapping("/test/internal-server-error")
     public void internalServerError() {
         throw new RuntimeException();
@@ -11,6 +11,8 @@ import org.junit.Test;
 import org.springframework.data.domain.Page;
 import org.springframework.data.domain.PageImpl;
 import org.springframework.data.domain.PageRequest;
+import org.springframework.data.domain.Slice;
+import org.springframework.data.domain.SliceImpl;
 import org.springframework.http.HttpHeaders;
 
 /**
@@ -41,4 +43,38 @@ public class PaginationUtilUnitTest {
         assertTrue(Long.valueOf(xTotalCountHeaders.get(0)).equals(400L));
     }
 
+    @Test
+    public void generateCursorPaginationHttpHeadersTest() {
+        String baseUrl = "/api/_search/example?keyword=a%20%26%20b";
+        HttpHeaders headers = PaginationUtil.generateCursorPaginationHttpHeaders("aWQ6QVNDOjQyOm4", "aWQ6QVNDOjpu", 20, baseUrl);
+        List<String> strHeaders = headers.get(HttpHeaders.LINK);
+        assertNotNull(strHeaders);
+        assertTrue(strHeaders.size() == 1);
+        String expectedData = "</api/_search/example?keyword=a%20%26%20b&cursor=aWQ6QVNDOjQyOm4&size=20>; rel=\"next\","
+                + "</api/_search/example?keyword=a%20%26%20b&cursor=aWQ6QVNDOjpu&size=20>; rel=\"first\"";
+        assertEquals(expectedData, strHeaders.get(0));
+        assertTrue(headers.get("X-Total-Count") == null);
+
+        headers = PaginationUtil.generateCursorPaginationHttpHeaders(null, "aWQ6QVNDOjpu", 20, baseUrl);
+        assertEquals("</api/_search/example?keyword=a%20%26%20b&cursor=aWQ6QVNDOjpu&size=20>; rel=\"first\"",
+            headers.getFirst(HttpHeaders.LINK));
+    }
+
+    @Test
+    public void generateSliceHttpHeadersTest() {
+        String baseUrl = "/api/_search/example?count=false";
+        List<String> content = new ArrayList<>();
+        Slice<String> slice = new SliceImpl<>(content, new PageRequest(6, 50), true);
+        HttpHeaders headers = PaginationUtil.generateSliceHttpHeaders(slice, baseUrl);
+        String expectedData = "</api/_search/example?count=false&page=7&size=50>; rel=\"next\","
+                + "</api/_search/example?count=false&page=5&size=50>; rel=\"prev\","
+                + "</api/_search/example?count=false&page=0&size=50>; rel=\"first\"";
+        assertEquals(expectedData, headers.getFirst(HttpHeaders.LINK));
+        assertTrue(headers.get("X-Total-Count") == null);
+
+        slice = new SliceImpl<>(content, new PageRequest(0, 50), false);
+        headers = PaginationUtil.generateSliceHttpHeaders(slice, baseUrl);
+        assertEquals("</api/_search/example?count=false&page=0&size=50>; rel=\"first\"", headers.getFirst(HttpHeaders.LINK));
+    }
+
 }
@@ -36,5 +36,20 @@ describe('Service Tests', function () {
             expect(localStorageService.authenticationToken).toBe(undefined);
             expect(sessionStorageService.authenticationToken).toBe(undefined);
         });
+        it('should revoke the token on the backend on logout', function(){
+            //GIVEN
+            sessionStorageService.authenticationToken = 'token';
+            $httpBackend.expectPOST('api/logout', null, function(headers) {
+                return headers.Authorization === 'Bearer token';
+            }).respond(200);
+
+            //WHEN
+            authService.logout();
+            $httpBackend.flush();
+
+            //THEN
+            expect(localStorageService.authenticationToken).toBe(undefined);
+            expect(sessionStorageService.authenticationToken).toBe(undefined);
+        });
     });
 });